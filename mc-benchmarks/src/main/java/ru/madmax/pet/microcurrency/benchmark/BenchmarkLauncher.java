@@ -0,0 +1,32 @@
+package ru.madmax.pet.microcurrency.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+// Точка входа benchmarks.jar: те же аргументы, что у org.openjdk.jmh.Main,
+// но если профайлеры не заданы явно (-prof), подключается gc - скорость и объем аллокаций
+// на операцию выводятся рядом с пропускной способностью
+ */
+public final class BenchmarkLauncher {
+
+    private BenchmarkLauncher() {}
+
+    public static void main(String[] args) throws Exception {
+        var commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()
+                || !commandLine.getProfilers().isEmpty()) {
+            Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
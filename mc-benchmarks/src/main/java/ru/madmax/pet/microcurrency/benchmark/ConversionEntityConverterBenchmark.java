@@ -0,0 +1,34 @@
+package ru.madmax.pet.microcurrency.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.madmax.pet.microcurrency.common.model.Conversion;
+import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
+import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
+import ru.madmax.pet.microcurrency.consumer.service.converter.model.ConversionEntityConverter;
+
+import java.util.concurrent.TimeUnit;
+
+// Conversion -> ConversionEntity в mc-consumer-db, включая разбор ключа записи в UUID
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionEntityConverterBenchmark {
+    private static final String KEY = "0190a3b4-5c6d-7e8f-9a0b-000000000001";
+
+    private ConversionEntityConverter converter;
+    private Conversion conversion;
+
+    @Setup
+    public void setUp() {
+        converter = new ConversionEntityConverter();
+        conversion = TestConversionBuilder.aConversion().build();
+    }
+
+    @Benchmark
+    public ConversionEntity convert() {
+        return converter.convert(KEY, conversion);
+    }
+}
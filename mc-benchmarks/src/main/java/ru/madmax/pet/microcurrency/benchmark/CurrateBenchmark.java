@@ -0,0 +1,89 @@
+package ru.madmax.pet.microcurrency.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import ru.madmax.pet.microcurrency.common.money.FixedPointMoney;
+import ru.madmax.pet.microcurrency.currate.exception.IllegalAmountException;
+import ru.madmax.pet.microcurrency.currate.exception.IllegalRateException;
+import ru.madmax.pet.microcurrency.currate.model.RemoteRatesResponse;
+import ru.madmax.pet.microcurrency.currate.model.RemoteResponse;
+import ru.madmax.pet.microcurrency.currate.service.ConversionService;
+import ru.madmax.pet.microcurrency.currate.service.ConversionServiceImpl;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/*
+// Горячий путь mc-remote-currate: разбор ответа currate.ru (RemoteConversionDeserializer
+// подключен к RemoteResponse через @JsonDeserialize) и пересчет суммы по курсу.
+// Ответ разбирается из байтов, как CurrateRateLoader разбирает его из буферов Netty
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CurrateBenchmark {
+    private static final byte[] RESPONSE_JSON =
+            "{\"status\":200,\"message\":\"rates\",\"data\":{\"USDRUB\":\"64.1824\"}}"
+                    .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RATES_RESPONSE_JSON =
+            "{\"status\":200,\"message\":\"rates\",\"data\":{\"USDRUB\":\"64.1824\",\"CADRUB\":\"47.3011\"}}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private ObjectReader responseReader;
+    private ObjectReader ratesResponseReader;
+    private ConversionService conversionService;
+    private BigDecimal amount;
+    private BigDecimal rate;
+    private BigDecimal crossRate;
+
+    @Setup
+    public void setUp() {
+        // ObjectMapper без настроек, как в MainConfig сервиса
+        var objectMapper = new ObjectMapper();
+        responseReader = objectMapper.readerFor(RemoteResponse.class);
+        ratesResponseReader = objectMapper.readerFor(RemoteRatesResponse.class);
+        conversionService = new ConversionServiceImpl();
+        amount = new BigDecimal("50000.00");
+        rate = new BigDecimal("64.1824");
+        // кросс-курс, посчитанный через третью валюту, точнее 4 знаков
+        crossRate = new BigDecimal("1.35687421");
+    }
+
+    @Benchmark
+    public RemoteResponse deserializeRemoteResponse() throws IOException {
+        return responseReader.readValue(RESPONSE_JSON);
+    }
+
+    @Benchmark
+    public RemoteRatesResponse deserializeRemoteRatesResponse() throws IOException {
+        return ratesResponseReader.readValue(RATES_RESPONSE_JSON);
+    }
+
+    @Benchmark
+    public BigDecimal covert() throws IllegalAmountException, IllegalRateException {
+        return conversionService.covert(amount, rate);
+    }
+
+    @Benchmark
+    public BigDecimal covertCrossRate() throws IllegalAmountException, IllegalRateException {
+        return conversionService.covert(amount, crossRate);
+    }
+
+    // то же деление целиком в BigDecimal, для сравнения с covert и covertCrossRate
+    @Benchmark
+    public BigDecimal covertBigDecimal() {
+        return amount.divide(rate, FixedPointMoney.SCALE, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal covertCrossRateBigDecimal() {
+        return amount.divide(crossRate, FixedPointMoney.SCALE, RoundingMode.HALF_UP);
+    }
+}
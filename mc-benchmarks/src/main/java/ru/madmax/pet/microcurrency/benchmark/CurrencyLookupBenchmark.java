@@ -0,0 +1,55 @@
+package ru.madmax.pet.microcurrency.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.currate.misc.RateMatrix;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+// Currency.getBy/decode вызываются на каждую валюту каждого ответа currate.ru,
+// RateMatrix читается на каждый запрос конвертации
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CurrencyLookupBenchmark {
+
+    // XXX - незарегистрированный код, промах по таблице
+    @Param({"RUB", "CAD", "XXX"})
+    String code;
+
+    private String pair;
+    private RateMatrix rateMatrix;
+
+    @Setup
+    public void setUp() {
+        pair = "USD" + code;
+        rateMatrix = RateMatrix.empty(Currency.RUB).withPivotRates(Map.of(
+                        Currency.USD, new BigDecimal("64.1824"),
+                        Currency.CAD, new BigDecimal("47.3011")),
+                Instant.now());
+    }
+
+    @Benchmark
+    public Currency getBy() {
+        return Currency.getBy(code);
+    }
+
+    // вторая половина пары, как в разборе блока data
+    @Benchmark
+    public Currency decodeFromPair() {
+        return Currency.decode(pair, 3);
+    }
+
+    @Benchmark
+    public BigDecimal rateMatrixLookup() {
+        return rateMatrix.rate(Currency.USD, Currency.CAD);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.madmax.pet.microcurrency.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import ru.madmax.pet.microcurrency.common.model.Conversion;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.model.MessageType;
+import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
+import ru.madmax.pet.microcurrency.common.serialization.MessageDTOBinaryDeserializer;
+import ru.madmax.pet.microcurrency.common.serialization.MessageDTOBinarySerializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.kafka.support.serializer.JsonDeserializer.TYPE_MAPPINGS;
+
+/*
+// Путь Conversion -> байты записи Kafka -> Conversion в обоих форматах app.message.format.
+// JSON повторяет CurrencyFacadeService.createMessage и KafkaConfiguration сервисов:
+// Conversion кодируется строкой в message, а MessageDTO еще раз кодирует JsonSerializer;
+// consumer разбирает MessageDTO JsonDeserializer-ом и затем message через readValue(Conversion).
+// BINARY - альтернатива из MessageDTOBinaryCodec, Conversion кодируется один раз.
+// Заголовки создаются на каждую операцию, как и у настоящей записи: JsonSerializer добавляет
+// в них тип, а JsonDeserializer его удаляет
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageCodecBenchmark {
+    private static final String TOPIC = "conversion-topic";
+
+    private ObjectMapper objectMapper;
+    private JsonSerializer<MessageDTO> jsonSerializer;
+    private JsonDeserializer<MessageDTO> jsonDeserializer;
+    private MessageDTOBinarySerializer binarySerializer;
+    private MessageDTOBinaryDeserializer binaryDeserializer;
+    private Conversion conversion;
+    private byte[] jsonRecord;
+    private Headers jsonRecordHeaders;
+    private byte[] binaryRecord;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = JacksonUtils.enhancedObjectMapper();
+        jsonSerializer = new JsonSerializer<>(objectMapper);
+        jsonDeserializer = new JsonDeserializer<>(objectMapper);
+        jsonDeserializer.configure(
+                Map.of(TYPE_MAPPINGS, MessageDTO.class.getName() + ":" + MessageDTO.class.getName()),
+                false);
+        binarySerializer = new MessageDTOBinarySerializer();
+        binaryDeserializer = new MessageDTOBinaryDeserializer();
+        conversion = TestConversionBuilder.aConversion().build();
+
+        jsonRecordHeaders = new RecordHeaders();
+        jsonRecord = jsonSerializer.serialize(TOPIC, jsonRecordHeaders, createJsonMessage());
+        binaryRecord = binarySerializer.serialize(TOPIC, createBinaryMessage());
+    }
+
+    @Benchmark
+    public byte[] produceJson() throws JsonProcessingException {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), createJsonMessage());
+    }
+
+    @Benchmark
+    public byte[] produceBinary() {
+        return binarySerializer.serialize(TOPIC, createBinaryMessage());
+    }
+
+    @Benchmark
+    public Conversion consumeJson() throws JsonProcessingException {
+        var message = jsonDeserializer.deserialize(
+                TOPIC,
+                new RecordHeaders(jsonRecordHeaders.toArray()),
+                jsonRecord);
+        return objectMapper.readValue(message.getMessage(), Conversion.class);
+    }
+
+    @Benchmark
+    public Conversion consumeBinary() {
+        return binaryDeserializer.deserialize(TOPIC, binaryRecord).getConversion();
+    }
+
+    private MessageDTO createJsonMessage() throws JsonProcessingException {
+        var message = new MessageDTO();
+        message.setType(MessageType.CURRENCY);
+        message.setConversion(conversion);
+        message.setMessage(objectMapper.writeValueAsString(conversion));
+        return message;
+    }
+
+    private MessageDTO createBinaryMessage() {
+        var message = new MessageDTO();
+        message.setType(MessageType.CURRENCY);
+        message.setConversion(conversion);
+        return message;
+    }
+}
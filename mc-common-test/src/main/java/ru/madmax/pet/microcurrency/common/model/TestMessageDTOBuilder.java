@@ -10,6 +10,7 @@ import lombok.With;
 public class TestMessageDTOBuilder implements TestBuilder<MessageDTO>{
     private MessageType type = MessageType.CURRENCY;
     private String message = "";
+    private Conversion conversion = null;
 
 
     @Override
@@ -17,6 +18,7 @@ public class TestMessageDTOBuilder implements TestBuilder<MessageDTO>{
         var messageDTO = new MessageDTO();
         messageDTO.setType(type);
         messageDTO.setMessage(message);
+        messageDTO.setConversion(conversion);
         return messageDTO;
     }
 }
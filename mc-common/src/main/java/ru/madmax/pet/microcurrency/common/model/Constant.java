@@ -3,6 +3,10 @@ package ru.madmax.pet.microcurrency.common.model;
 public class Constant {
     public static final String HEADER_REQUEST_GUID_KEY = "X-request-guid";
     public static final String HEADER_REQUEST_ERROR_KEY = "X-request-error";
+    // сколько миллисекунд вызывающий еще ждет ответа; относительное время не зависит от расхождения часов
+    public static final String HEADER_REQUEST_DEADLINE_KEY = "X-request-deadline";
+    public static final String HEADER_RATE_STALE_KEY = "X-request-rate-stale";
+    public static final String HEADER_ORIGIN_TIMESTAMP_KEY = "X-origin-timestamp";
 
     private Constant() {}
 }
@@ -1,25 +1,42 @@
 package ru.madmax.pet.microcurrency.common.model;
 
-import java.util.Arrays;
-import java.util.Map;
-import java.util.stream.Collectors;
-
-import static java.util.function.Function.identity;
-
 public enum Currency {
     RUB,
     USD,
     CAD;
 
-    private static final Map<String, Currency> map;
+    private static final int CODE_LENGTH = 3;
+    private static final int LETTERS = 26;
+    /*
+    // Таблица по всем трехбуквенным кодам (26^3 ссылок): код переводится в индекс арифметикой,
+    // без подстрок и хэширования. Коды ISO 4217 - всегда три латинские заглавные буквы
+     */
+    private static final Currency[] BY_CODE = new Currency[LETTERS * LETTERS * LETTERS];
     static {
-        map = Arrays.stream(Currency.values()).sequential().collect(Collectors.toMap(
-                Enum::name,
-                identity())
-        );
+        for (Currency currency : values())
+            BY_CODE[codeIndex(currency.name(), 0)] = currency;
     }
 
     public static Currency getBy(String str) {
-        return map.get(str);
+        if (str == null || str.length() != CODE_LENGTH)
+            return null;
+        return decode(str, 0);
+    }
+
+    // валюта по трем символам начиная с offset (например, половина пары "USDRUB"), null для неизвестного кода
+    public static Currency decode(CharSequence chars, int offset) {
+        int index = codeIndex(chars, offset);
+        return index < 0 ? null : BY_CODE[index];
+    }
+
+    private static int codeIndex(CharSequence chars, int offset) {
+        int index = 0;
+        for (int i = offset; i < offset + CODE_LENGTH; i++) {
+            int letter = chars.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS)
+                return -1;
+            index = index * LETTERS + letter;
+        }
+        return index;
     }
 }
@@ -1,9 +1,16 @@
 package ru.madmax.pet.microcurrency.common.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 @Data
 public class MessageDTO {
     private MessageType type;
     private String message;
+    /*
+    // Типизированный результат конвертации. В JSON не попадает (там результат лежит строкой в message),
+    // используется бинарным форматом, чтобы не кодировать Conversion дважды
+     */
+    @JsonIgnore
+    private Conversion conversion;
 }
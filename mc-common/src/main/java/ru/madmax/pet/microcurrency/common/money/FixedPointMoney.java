@@ -0,0 +1,155 @@
+package ru.madmax.pet.microcurrency.common.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+// Денежная арифметика с фиксированной точкой: сумма хранится в long, умноженной на 10^4,
+// то есть с тем же масштабом 4, что и колонки DECIMAL(12,4). Округление - точное HALF_UP,
+// как у BigDecimal.divide(x, 4, RoundingMode.HALF_UP), операции над long не создают объектов.
+// Переполнение не бросает исключений: результат тогда UNREPRESENTABLE, и он же распространяется
+// через все последующие операции. Методы над BigDecimal считают в long при любом масштабе аргументов
+// (курсы обычно точнее 4 знаков), если их цифры (unscaled) влезают в long и промежуточный результат
+// не переполняется, и иначе считают в BigDecimal. Цифры читаются без создания BigInteger
+ */
+public final class FixedPointMoney {
+    public static final int SCALE = 4;
+    public static final long ONE = 10_000L;
+    public static final long UNREPRESENTABLE = Long.MIN_VALUE;
+
+    // long вмещает любое 18-значное число
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private FixedPointMoney() {}
+
+    /*
+    // Точное значение с масштабом 4, либо UNREPRESENTABLE, если нужна потеря точности или значение не влезает в long.
+    // Отрицательный масштаб (например, 1E+3) точности не теряет: цифры домножаются на 10^(4 - scale)
+     */
+    public static long fromDecimal(BigDecimal value) {
+        int scale = value.scale();
+        if (scale > SCALE)
+            return UNREPRESENTABLE;
+        long unscaled = unscaledLong(value);
+        if (unscaled == UNREPRESENTABLE || unscaled == 0)
+            return unscaled;
+        long exponent = SCALE - (long) scale;
+        if (exponent > MAX_LONG_DIGITS)
+            return UNREPRESENTABLE;
+        return multiplyExact(unscaled, POWERS_OF_TEN[(int) exponent]);
+    }
+
+    public static BigDecimal toDecimal(long scaled) {
+        if (scaled == UNREPRESENTABLE)
+            throw new ArithmeticException("Value is not representable with scale " + SCALE);
+        return BigDecimal.valueOf(scaled, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        if (a == UNREPRESENTABLE || b == UNREPRESENTABLE)
+            return UNREPRESENTABLE;
+        long result = a + b;
+        return ((a ^ result) & (b ^ result)) < 0 ? UNREPRESENTABLE : result;
+    }
+
+    public static long subtract(long a, long b) {
+        if (a == UNREPRESENTABLE || b == UNREPRESENTABLE)
+            return UNREPRESENTABLE;
+        long result = a - b;
+        return ((a ^ b) & (a ^ result)) < 0 ? UNREPRESENTABLE : result;
+    }
+
+    public static long multiply(long a, long b) {
+        if (a == UNREPRESENTABLE || b == UNREPRESENTABLE)
+            return UNREPRESENTABLE;
+        long product = multiplyExact(a, b);
+        return product == UNREPRESENTABLE ? UNREPRESENTABLE : divideHalfUp(product, ONE);
+    }
+
+    public static long divide(long dividend, long divisor) {
+        if (dividend == UNREPRESENTABLE || divisor == UNREPRESENTABLE)
+            return UNREPRESENTABLE;
+        if (divisor == 0)
+            throw new ArithmeticException("Division by zero");
+        long numerator = multiplyExact(dividend, ONE);
+        return numerator == UNREPRESENTABLE ? UNREPRESENTABLE : divideHalfUp(numerator, divisor);
+    }
+
+    // то же, что dividend.divide(divisor, 4, RoundingMode.HALF_UP)
+    public static BigDecimal divide(BigDecimal dividend, BigDecimal divisor) {
+        long a = unscaledLong(dividend);
+        long b = unscaledLong(divisor);
+        if (a != UNREPRESENTABLE && b != UNREPRESENTABLE && b != 0) {
+            // a / 10^sa : b / 10^sb = a * 10^(sb - sa) / b, результат с масштабом 4
+            long result = scaleHalfUp(a, b, SCALE + (long) divisor.scale() - dividend.scale());
+            if (result != UNREPRESENTABLE)
+                return toDecimal(result);
+        }
+        return dividend.divide(divisor, SCALE, RoundingMode.HALF_UP);
+    }
+
+    // то же, что a.multiply(b).setScale(4, RoundingMode.HALF_UP)
+    public static BigDecimal multiply(BigDecimal a, BigDecimal b) {
+        long unscaledA = unscaledLong(a);
+        long unscaledB = unscaledLong(b);
+        if (unscaledA != UNREPRESENTABLE && unscaledB != UNREPRESENTABLE) {
+            long product = multiplyExact(unscaledA, unscaledB);
+            if (product != UNREPRESENTABLE) {
+                long result = scaleHalfUp(product, 1L, SCALE - (long) a.scale() - b.scale());
+                if (result != UNREPRESENTABLE)
+                    return toDecimal(result);
+            }
+        }
+        return a.multiply(b).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    /*
+    // Цифры значения без масштаба (unscaled) или UNREPRESENTABLE, если они не влезают в long.
+    // unscaledValue() создает BigInteger на каждый вызов, а у значения из не более 18 цифр
+    // они хранятся в long: movePointRight на весь масштаб дает значение с масштабом 0,
+    // и longValue() возвращает этот long как есть. Более длинные значения редки, их проверяем через BigInteger
+     */
+    private static long unscaledLong(BigDecimal value) {
+        if (value.precision() > MAX_LONG_DIGITS) {
+            var unscaled = value.unscaledValue();
+            return unscaled.bitLength() < Long.SIZE ? unscaled.longValue() : UNREPRESENTABLE;
+        }
+        int scale = value.scale();
+        return scale == 0 ? value.longValue() : value.movePointRight(scale).longValue();
+    }
+
+    // numerator * 10^exponent / denominator с округлением HALF_UP, либо UNREPRESENTABLE при переполнении
+    private static long scaleHalfUp(long numerator, long denominator, long exponent) {
+        if (Math.abs(exponent) > MAX_LONG_DIGITS)
+            return UNREPRESENTABLE;
+        if (exponent >= 0) {
+            long scaled = multiplyExact(numerator, POWERS_OF_TEN[(int) exponent]);
+            return scaled == UNREPRESENTABLE ? UNREPRESENTABLE : divideHalfUp(scaled, denominator);
+        }
+        long scaled = multiplyExact(denominator, POWERS_OF_TEN[(int) -exponent]);
+        return scaled == UNREPRESENTABLE ? UNREPRESENTABLE : divideHalfUp(numerator, scaled);
+    }
+
+    private static long multiplyExact(long a, long b) {
+        long result = a * b;
+        if (Math.multiplyHigh(a, b) != (result >> 63))
+            return UNREPRESENTABLE;
+        return result;
+    }
+
+    // деление с округлением HALF_UP: половина округляется от нуля
+    private static long divideHalfUp(long numerator, long denominator) {
+        long quotient = numerator / denominator;
+        long remainder = Math.abs(numerator % denominator);
+        if (remainder != 0 && remainder >= Math.abs(denominator) - remainder)
+            quotient += (numerator ^ denominator) < 0 ? -1 : 1;
+        return quotient;
+    }
+}
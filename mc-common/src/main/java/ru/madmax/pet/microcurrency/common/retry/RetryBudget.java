@@ -0,0 +1,78 @@
+package ru.madmax.pet.microcurrency.common.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+// Бюджет повторов на весь сервис (общий для всех запросов к вышестоящему сервису): token bucket,
+// который пополняется успешными вызовами. Каждый успех добавляет retry-ratio жетона, каждый повтор
+// забирает один жетон, в корзине не больше max-tokens. Так повторов не больше retry-ratio от
+// недавних успешных вызовов: когда вышестоящий сервис деградирует и успехов нет, корзина пустеет
+// и запросы завершаются первой ошибкой, а не умножают нагрузку. Полная корзина на старте
+// позволяет повторять единичные сбои сразу после запуска.
+// Жетоны хранятся в тысячных долях, чтобы обновлять их одним CAS над long.
+// jitter - доля случайного разброса задержки перед повтором, чтобы повторы разных запросов не шли залпом
+ */
+public class RetryBudget {
+    private static final long TOKEN = 1_000L;
+
+    private final AtomicLong milliTokens;
+    private final long depositPerSuccess;
+    private final long capacity;
+    private final double jitter;
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    public RetryBudget(double retryRatio, int maxTokens, double jitter) {
+        if (retryRatio < 0 || maxTokens < 1)
+            throw new IllegalArgumentException(
+                    "Retry ratio must be non-negative and max tokens positive: " + retryRatio + ", " + maxTokens);
+        if (jitter < 0 || jitter > 1)
+            throw new IllegalArgumentException("Jitter must be in [0, 1]: " + jitter);
+        this.depositPerSuccess = Math.round(retryRatio * TOKEN);
+        this.capacity = maxTokens * TOKEN;
+        this.milliTokens = new AtomicLong(capacity);
+        this.jitter = jitter;
+    }
+
+    public void recordSuccess() {
+        if (depositPerSuccess == 0)
+            return;
+        long current;
+        do {
+            current = milliTokens.get();
+            if (current >= capacity)
+                return;
+        } while (!milliTokens.compareAndSet(current, Math.min(capacity, current + depositPerSuccess)));
+    }
+
+    // true - повтор разрешен и жетон списан
+    public boolean tryRetry() {
+        long current;
+        do {
+            current = milliTokens.get();
+            if (current < TOKEN) {
+                denied.increment();
+                return false;
+            }
+        } while (!milliTokens.compareAndSet(current, current - TOKEN));
+        granted.increment();
+        return true;
+    }
+
+    public double getTokens() {
+        return (double) milliTokens.get() / TOKEN;
+    }
+
+    public long getGranted() {
+        return granted.sum();
+    }
+
+    public long getDenied() {
+        return denied.sum();
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+}
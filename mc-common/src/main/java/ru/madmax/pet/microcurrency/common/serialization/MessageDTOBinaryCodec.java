@@ -0,0 +1,173 @@
+package ru.madmax.pet.microcurrency.common.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import ru.madmax.pet.microcurrency.common.model.Conversion;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.model.MessageType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+// Бинарная схема MessageDTO, версия 1:
+//   byte    версия схемы
+//   byte    MessageType (ordinal)
+//   byte    вид полезной нагрузки: 0 - строка message, 1 - Conversion
+//   строка: int длина (-1 для null) + байты UTF-8
+//   Conversion: byte base, byte convert (ordinal Currency, -1 для null),
+//               decimal baseAmount, decimal conversionAmount, строка source
+//   decimal: byte длина unscaled-значения (0 для null) + его байты (BigInteger.toByteArray), int scale
+// Ordinal-ы пишутся ради компактности, поэтому новые значения Currency и MessageType
+// добавляются только в конец перечисления. Любое другое изменение схемы - новая версия
+ */
+public final class MessageDTOBinaryCodec {
+    public static final byte VERSION = 1;
+
+    private static final byte PAYLOAD_TEXT = 0;
+    private static final byte PAYLOAD_CONVERSION = 1;
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private MessageDTOBinaryCodec() {}
+
+    public static byte[] encode(MessageDTO message) {
+        if (message.getType() == null)
+            throw new SerializationException("MessageDTO type is not defined");
+
+        if (message.getConversion() != null) {
+            var conversion = message.getConversion();
+            var baseAmount = unscaledBytes(conversion.getBaseAmount());
+            var conversionAmount = unscaledBytes(conversion.getConversionAmount());
+            var source = utf8(conversion.getSource());
+            var buffer = ByteBuffer.allocate(3 + 2
+                    + decimalSize(baseAmount) + decimalSize(conversionAmount)
+                    + stringSize(source));
+            writeHeader(buffer, message.getType(), PAYLOAD_CONVERSION);
+            writeCurrency(buffer, conversion.getBase());
+            writeCurrency(buffer, conversion.getConvert());
+            writeDecimal(buffer, baseAmount, conversion.getBaseAmount());
+            writeDecimal(buffer, conversionAmount, conversion.getConversionAmount());
+            writeString(buffer, source);
+            return buffer.array();
+        }
+
+        var text = utf8(message.getMessage());
+        var buffer = ByteBuffer.allocate(3 + stringSize(text));
+        writeHeader(buffer, message.getType(), PAYLOAD_TEXT);
+        writeString(buffer, text);
+        return buffer.array();
+    }
+
+    public static MessageDTO decode(byte[] data) {
+        try {
+            var buffer = ByteBuffer.wrap(data);
+            var version = buffer.get();
+            if (version != VERSION)
+                throw new SerializationException("Unsupported MessageDTO schema version: " + version);
+
+            var message = new MessageDTO();
+            message.setType(readEnum(buffer, MESSAGE_TYPES));
+            var payload = buffer.get();
+            switch (payload) {
+                case PAYLOAD_TEXT -> message.setMessage(readString(buffer));
+                case PAYLOAD_CONVERSION -> message.setConversion(readConversion(buffer));
+                default -> throw new SerializationException("Unknown MessageDTO payload: " + payload);
+            }
+            return message;
+        } catch (BufferUnderflowException e) {
+            throw new SerializationException("Truncated MessageDTO record", e);
+        }
+    }
+
+    private static Conversion readConversion(ByteBuffer buffer) {
+        var conversion = new Conversion();
+        conversion.setBase(readEnum(buffer, CURRENCIES));
+        conversion.setConvert(readEnum(buffer, CURRENCIES));
+        conversion.setBaseAmount(readDecimal(buffer));
+        conversion.setConversionAmount(readDecimal(buffer));
+        conversion.setSource(readString(buffer));
+        return conversion;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, MessageType type, byte payload) {
+        buffer.put(VERSION);
+        buffer.put((byte) type.ordinal());
+        buffer.put(payload);
+    }
+
+    private static void writeCurrency(ByteBuffer buffer, Currency currency) {
+        buffer.put(currency == null ? -1 : (byte) currency.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer buffer, E[] values) {
+        var ordinal = buffer.get();
+        if (ordinal == -1)
+            return null;
+        if (ordinal < 0 || ordinal >= values.length)
+            throw new SerializationException("Unknown enum ordinal: " + ordinal);
+        return values[ordinal];
+    }
+
+    private static byte[] unscaledBytes(BigDecimal value) {
+        return value == null ? null : value.unscaledValue().toByteArray();
+    }
+
+    private static int decimalSize(byte[] unscaled) {
+        return unscaled == null ? 1 : 1 + unscaled.length + 4;
+    }
+
+    private static void writeDecimal(ByteBuffer buffer, byte[] unscaled, BigDecimal value) {
+        if (unscaled == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        if (unscaled.length > Byte.MAX_VALUE)
+            throw new SerializationException("Decimal value is too large: " + value);
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+        buffer.putInt(value.scale());
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer buffer) {
+        var length = buffer.get();
+        if (length == 0)
+            return null;
+        if (length < 0)
+            throw new SerializationException("Wrong decimal length: " + length);
+        var unscaled = new byte[length];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), buffer.getInt());
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] utf8) {
+        return 4 + (utf8 == null ? 0 : utf8.length);
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] utf8) {
+        if (utf8 == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(utf8.length);
+        buffer.put(utf8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var length = buffer.getInt();
+        if (length == -1)
+            return null;
+        if (length < 0 || length > buffer.remaining())
+            throw new SerializationException("Wrong string length: " + length);
+        var value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
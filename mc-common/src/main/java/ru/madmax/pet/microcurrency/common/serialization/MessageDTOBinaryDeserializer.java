@@ -0,0 +1,12 @@
+package ru.madmax.pet.microcurrency.common.serialization;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+
+public class MessageDTOBinaryDeserializer implements Deserializer<MessageDTO> {
+
+    @Override
+    public MessageDTO deserialize(String topic, byte[] data) {
+        return data == null ? null : MessageDTOBinaryCodec.decode(data);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.madmax.pet.microcurrency.common.serialization;
+
+import org.apache.kafka.common.serialization.Serializer;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+
+public class MessageDTOBinarySerializer implements Serializer<MessageDTO> {
+
+    @Override
+    public byte[] serialize(String topic, MessageDTO data) {
+        return data == null ? null : MessageDTOBinaryCodec.encode(data);
+    }
+}
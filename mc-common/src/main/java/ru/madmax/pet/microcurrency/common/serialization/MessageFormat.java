@@ -0,0 +1,10 @@
+package ru.madmax.pet.microcurrency.common.serialization;
+
+/*
+// Формат записей MessageDTO в топике. Задается свойством app.message.format
+// и должен совпадать у producer-а и всех consumer-ов
+ */
+public enum MessageFormat {
+    JSON,
+    BINARY
+}
@@ -0,0 +1,28 @@
+package ru.madmax.pet.microcurrency.common.serialization;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+// Значение заголовка Kafka X-origin-timestamp: время регистрации запроса в producer-е
+// (epoch millis) десятичной строкой ASCII, чтобы его можно было прочитать любым инструментом.
+// По нему consumer-ы считают сквозную задержку от POST /register до сохранения
+ */
+public final class OriginTimestampHeader {
+
+    private OriginTimestampHeader() {}
+
+    public static byte[] encode(long originTimestamp) {
+        return Long.toString(originTimestamp).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // null, если заголовка нет или он не разбирается: сквозная задержка такой записи не учитывается
+    public static Long decode(byte[] value) {
+        if (value == null || value.length == 0)
+            return null;
+        try {
+            return Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.madmax.pet.microcurrency.common.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.madmax.pet.microcurrency.common.money.FixedPointMoney.UNREPRESENTABLE;
+
+class FixedPointMoneyTest {
+    // свойства проверяются на случайных значениях с фиксированным seed, чтобы падение воспроизводилось
+    private static final int SAMPLES = 200_000;
+    private static final long SEED = 20231201L;
+
+    @Test
+    void divide_OnRandomAmountsAndRates_EqualsBigDecimalHalfUpDivision() {
+        var random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            var amount = randomDecimal(random);
+            var rate = randomDecimal(random);
+            if (rate.signum() == 0)
+                continue;
+
+            assertEquals(amount.divide(rate, 4, RoundingMode.HALF_UP),
+                    FixedPointMoney.divide(amount, rate),
+                    () -> amount + " / " + rate);
+        }
+    }
+
+    @Test
+    void divideAndMultiply_OnRandomValuesWithLongerScale_EqualBigDecimalResults() {
+        var random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            var amount = randomDecimal(random);
+            var rate = randomDecimal(random, 10);
+            if (rate.signum() == 0)
+                continue;
+
+            assertEquals(amount.divide(rate, 4, RoundingMode.HALF_UP),
+                    FixedPointMoney.divide(amount, rate),
+                    () -> amount + " / " + rate);
+            assertEquals(amount.multiply(rate).setScale(4, RoundingMode.HALF_UP),
+                    FixedPointMoney.multiply(amount, rate),
+                    () -> amount + " * " + rate);
+        }
+    }
+
+    @Test
+    void multiply_OnRandomValues_EqualsBigDecimalHalfUpProduct() {
+        var random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            var a = randomDecimal(random);
+            var b = randomDecimal(random);
+
+            assertEquals(a.multiply(b).setScale(4, RoundingMode.HALF_UP),
+                    FixedPointMoney.multiply(a, b),
+                    () -> a + " * " + b);
+        }
+    }
+
+    @Test
+    void addAndSubtract_OnRandomValues_EqualBigDecimalResults() {
+        var random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            var a = randomDecimal(random);
+            var b = randomDecimal(random);
+            if (!representable(a) || !representable(b))
+                continue;
+            long scaledA = FixedPointMoney.fromDecimal(a);
+            long scaledB = FixedPointMoney.fromDecimal(b);
+
+            assertScaledEquals(a.add(b), FixedPointMoney.add(scaledA, scaledB));
+            assertScaledEquals(a.subtract(b), FixedPointMoney.subtract(scaledA, scaledB));
+        }
+    }
+
+    @Test
+    void fromDecimal_OnRandomValues_IsExactOrUnrepresentable() {
+        var random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            var value = randomDecimal(random, 10);
+
+            assertScaledEquals(value, FixedPointMoney.fromDecimal(value));
+        }
+    }
+
+    @Test
+    void divide_OnHalfwayQuotients_RoundsAwayFromZero() {
+        assertEquals(new BigDecimal("0.0001"), FixedPointMoney.divide(new BigDecimal("0.0001"), new BigDecimal("2")));
+        assertEquals(new BigDecimal("-0.0001"), FixedPointMoney.divide(new BigDecimal("-0.0001"), new BigDecimal("2")));
+        assertEquals(new BigDecimal("0.6667"), FixedPointMoney.divide(new BigDecimal("2"), new BigDecimal("3")));
+        assertEquals(new BigDecimal("0.3333"), FixedPointMoney.divide(new BigDecimal("1"), new BigDecimal("3")));
+    }
+
+    @Test
+    void fromDecimal_WithLongerScaleOrHugeValue_IsUnrepresentable_AndDivideStillEqualsBigDecimal() {
+        var preciseRate = new BigDecimal("64.18245");
+        var hugeAmount = new BigDecimal("123456789012345678.9");
+        assertEquals(UNREPRESENTABLE, FixedPointMoney.fromDecimal(preciseRate));
+        assertEquals(UNREPRESENTABLE, FixedPointMoney.fromDecimal(hugeAmount));
+        assertEquals(1000 * FixedPointMoney.ONE, FixedPointMoney.fromDecimal(new BigDecimal("1E+3")));
+        assertEquals(-25 * FixedPointMoney.ONE, FixedPointMoney.fromDecimal(new BigDecimal("-2.5E+1")));
+        assertEquals(0L, FixedPointMoney.fromDecimal(new BigDecimal("0E+30")));
+        assertEquals(UNREPRESENTABLE, FixedPointMoney.fromDecimal(new BigDecimal("1E+15")));
+
+        assertEquals(new BigDecimal("50000").divide(preciseRate, 4, RoundingMode.HALF_UP),
+                FixedPointMoney.divide(new BigDecimal("50000"), preciseRate));
+        assertEquals(hugeAmount.divide(new BigDecimal("3"), 4, RoundingMode.HALF_UP),
+                FixedPointMoney.divide(hugeAmount, new BigDecimal("3")));
+    }
+
+    @Test
+    void overflow_IsReportedAsUnrepresentable_AndPropagates() {
+        long max = Long.MAX_VALUE;
+        assertEquals(UNREPRESENTABLE, FixedPointMoney.add(max, 1));
+        assertEquals(UNREPRESENTABLE, FixedPointMoney.subtract(-max, 2));
+        assertEquals(UNREPRESENTABLE, FixedPointMoney.multiply(max / 2, 3 * FixedPointMoney.ONE));
+        assertEquals(UNREPRESENTABLE, FixedPointMoney.divide(max / 2, FixedPointMoney.ONE / 2));
+        assertEquals(UNREPRESENTABLE, FixedPointMoney.add(UNREPRESENTABLE, 0));
+        assertThrows(ArithmeticException.class, () -> FixedPointMoney.toDecimal(UNREPRESENTABLE));
+        assertThrows(ArithmeticException.class, () -> FixedPointMoney.divide(FixedPointMoney.ONE, 0));
+    }
+
+    private static void assertScaledEquals(BigDecimal expected, long actual) {
+        if (representable(expected))
+            assertEquals(expected.setScale(4, RoundingMode.UNNECESSARY), FixedPointMoney.toDecimal(actual));
+        else
+            assertEquals(UNREPRESENTABLE, actual, () -> "overflow expected for " + expected);
+    }
+
+    // значение точно переводится в масштаб 4 и его цифры влезают в long
+    private static boolean representable(BigDecimal value) {
+        if (value.scale() > FixedPointMoney.SCALE)
+            return false;
+        var unscaled = value.setScale(FixedPointMoney.SCALE).unscaledValue();
+        return unscaled.bitLength() <= 63 && unscaled.longValue() != Long.MIN_VALUE;
+    }
+
+    // значения со случайными масштабом -3..4 (1E+3 и т.п.) и длиной, иногда слишком длинные для long
+    private static BigDecimal randomDecimal(SplittableRandom random) {
+        return randomDecimal(random, FixedPointMoney.SCALE);
+    }
+
+    private static BigDecimal randomDecimal(SplittableRandom random, int maxScale) {
+        int scale = random.nextInt(-3, maxScale + 1);
+        long bound = switch (random.nextInt(4)) {
+            case 0 -> 100L;
+            case 1 -> 100_000_000_000L;
+            case 2 -> 1_000_000_000_000_000L;
+            default -> Long.MAX_VALUE;
+        };
+        long unscaled = random.nextLong(bound);
+        return BigDecimal.valueOf(random.nextBoolean() ? unscaled : -unscaled, scale);
+    }
+}
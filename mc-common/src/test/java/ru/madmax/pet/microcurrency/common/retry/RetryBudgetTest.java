@@ -0,0 +1,73 @@
+package ru.madmax.pet.microcurrency.common.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+    @Test
+    void tryRetry_WhenNoSuccesses_AllowsOnlyInitialTokens_AndCountsDenied() {
+        var budget = new RetryBudget(0.1, 3, 0.5);
+
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+
+        assertEquals(3, budget.getGranted());
+        assertEquals(2, budget.getDenied());
+        assertEquals(0.0, budget.getTokens());
+    }
+
+    @Test
+    void recordSuccess_RefillsBudgetByRatio_AndNotAboveMaxTokens() {
+        var budget = new RetryBudget(0.1, 2, 0.5);
+        budget.tryRetry();
+        budget.tryRetry();
+
+        for (int i = 0; i < 9; i++)
+            budget.recordSuccess();
+        assertFalse(budget.tryRetry());
+
+        budget.recordSuccess();
+        assertTrue(budget.tryRetry());
+
+        for (int i = 0; i < 1000; i++)
+            budget.recordSuccess();
+        assertEquals(2.0, budget.getTokens());
+    }
+
+    @Test
+    void tryRetry_FromManyThreads_NeverGrantsMoreThanTokens() throws InterruptedException {
+        var budget = new RetryBudget(0.0, 100, 0.5);
+        var granted = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(8);
+        var done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++)
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++)
+                    if (budget.tryRetry())
+                        granted.incrementAndGet();
+                done.countDown();
+            });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(100, granted.get());
+        assertEquals(100, budget.getGranted());
+        assertEquals(7900, budget.getDenied());
+    }
+
+    @Test
+    void constructor_WithJitterOutOfRange_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget(0.1, 10, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget(-0.1, 10, 0.5));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.madmax.pet.microcurrency.common.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import ru.madmax.pet.microcurrency.common.model.Conversion;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.model.MessageType;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageDTOBinaryCodecTest {
+    private final MessageDTOBinarySerializer serializer = new MessageDTOBinarySerializer();
+    private final MessageDTOBinaryDeserializer deserializer = new MessageDTOBinaryDeserializer();
+
+    @Test
+    void conversionMessage_RoundTrip_KeepsAllFieldsAndScale() {
+        var conversion = new Conversion();
+        conversion.setBase(Currency.RUB);
+        conversion.setConvert(Currency.USD);
+        conversion.setBaseAmount(new BigDecimal("50000.00"));
+        conversion.setConversionAmount(new BigDecimal("546.5612345678901234567890123456789"));
+        conversion.setSource("currate");
+        var message = new MessageDTO();
+        message.setType(MessageType.CURRENCY);
+        message.setConversion(conversion);
+
+        var restored = deserializer.deserialize("topic", serializer.serialize("topic", message));
+
+        assertEquals(message, restored);
+        assertEquals(2, restored.getConversion().getBaseAmount().scale());
+        assertNull(restored.getMessage());
+    }
+
+    @Test
+    void errorMessage_RoundTrip_KeepsText() {
+        var message = new MessageDTO();
+        message.setType(MessageType.ERROR);
+        message.setMessage("class java.lang.RuntimeException: Ошибка");
+
+        assertEquals(message, deserializer.deserialize("topic", serializer.serialize("topic", message)));
+    }
+
+    @Test
+    void conversionMessage_WithNullFields_RoundTrip() {
+        var message = new MessageDTO();
+        message.setType(MessageType.CURRENCY);
+        message.setConversion(new Conversion());
+
+        assertEquals(message, deserializer.deserialize("topic", serializer.serialize("topic", message)));
+    }
+
+    @Test
+    void conversionMessage_IsSmallerThanDoubleEncodedJson() {
+        var conversion = new Conversion();
+        conversion.setBase(Currency.RUB);
+        conversion.setConvert(Currency.USD);
+        conversion.setBaseAmount(new BigDecimal("50000"));
+        conversion.setConversionAmount(new BigDecimal("546.56"));
+        conversion.setSource("currate");
+        var message = new MessageDTO();
+        message.setType(MessageType.CURRENCY);
+        message.setConversion(conversion);
+
+        assertTrue(serializer.serialize("topic", message).length < 40);
+    }
+
+    @Test
+    void decode_WithUnknownVersion_ThrowsSerializationException() {
+        var message = new MessageDTO();
+        message.setType(MessageType.ERROR);
+        var data = serializer.serialize("topic", message);
+        data[0] = 99;
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", data));
+    }
+
+    @Test
+    void decode_WithTruncatedRecord_ThrowsSerializationException() {
+        var message = new MessageDTO();
+        message.setType(MessageType.ERROR);
+        message.setMessage("error text");
+        var data = serializer.serialize("topic", message);
+
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("topic", Arrays.copyOf(data, data.length - 3)));
+    }
+}
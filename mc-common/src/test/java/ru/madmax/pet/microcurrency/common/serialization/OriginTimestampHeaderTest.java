@@ -0,0 +1,26 @@
+package ru.madmax.pet.microcurrency.common.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OriginTimestampHeaderTest {
+
+    @Test
+    void timestamp_RoundTrip_KeepsValue() {
+        long timestamp = 1_760_000_000_123L;
+        var encoded = OriginTimestampHeader.encode(timestamp);
+
+        assertEquals("1760000000123", new String(encoded, StandardCharsets.US_ASCII));
+        assertEquals(timestamp, OriginTimestampHeader.decode(encoded));
+    }
+
+    @Test
+    void absentOrMalformedHeader_DecodesToNull() {
+        assertNull(OriginTimestampHeader.decode(null));
+        assertNull(OriginTimestampHeader.decode(new byte[0]));
+        assertNull(OriginTimestampHeader.decode("not-a-number".getBytes(StandardCharsets.US_ASCII)));
+    }
+}
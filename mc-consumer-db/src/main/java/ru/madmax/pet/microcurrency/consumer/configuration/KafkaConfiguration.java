@@ -2,6 +2,7 @@ package ru.madmax.pet.microcurrency.consumer.configuration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
@@ -18,10 +19,17 @@ import org.springframework.kafka.config.KafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.JacksonUtils;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.util.backoff.FixedBackOff;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.serialization.MessageDTOBinaryDeserializer;
+import ru.madmax.pet.microcurrency.common.serialization.MessageFormat;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PartitionOffsets;
 
 import java.util.Collection;
 
@@ -33,6 +41,7 @@ import static org.springframework.kafka.support.serializer.JsonDeserializer.TYPE
 public class KafkaConfiguration {
 
     private final ConsumerBarrierReady consumerBarrierReady;
+    private final PartitionOffsets partitionOffsets;
     /*
     // Инициализацию ObjectMapper-а делаем в виде бина
     // и настраиваем здесь спеицичесике правила для преобразования,
@@ -45,48 +54,114 @@ public class KafkaConfiguration {
 
     @Bean
     public ConsumerFactory<String, MessageDTO> consumerFactory(
-            KafkaProperties kafkaProperties, ObjectMapper mapper) {
+            KafkaProperties kafkaProperties, ObjectMapper mapper,
+            @Value("${app.message.format:JSON}") MessageFormat messageFormat,
+            @Value("${app.consumer.poll.records:1}") Integer maxPollRecords,
+            @Value("${app.consumer.poll.interval:3000}") Integer maxPollInterval) {
         // props создается не пустой мапой, а уже наполенныеми свойствами из application.yml файла
         var props = kafkaProperties.buildConsumerProperties(null);
         // добавляем те свойства, которые точно не будут меняться от запуска к запуску
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-//      Свойство задающее десериализатору возможность работать именно с нашим классом
-        props.put(TYPE_MAPPINGS, "ru.madmax.pet.microcurrency.common.model.MessageDTO:ru.madmax.pet.microcurrency.common.model.MessageDTO");
-
-        // Размер буфера полученных сообщений, который вовзращается консьюмером
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1);
+        // формат значения выбирается app.message.format и должен совпадать с форматом producer-а
+        if (messageFormat == MessageFormat.BINARY) {
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MessageDTOBinaryDeserializer.class);
+        } else {
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+//          Свойство задающее десериализатору возможность работать именно с нашим классом
+            props.put(TYPE_MAPPINGS, "ru.madmax.pet.microcurrency.common.model.MessageDTO:ru.madmax.pet.microcurrency.common.model.MessageDTO");
+        }
+
+        // Размер буфера полученных сообщений, который вовзращается консьюмером.
+        // В batch-режиме именно столько записей листнер получает за один poll
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         // Максимальный временной интервал, в течение которого консьюмер должен выдавать poll.
         // Иначе брокер считает, что консьюмер отвалился
-        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 3_000);
+        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollInterval);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
 
 
 
         var kafkaConsumerFactory = new DefaultKafkaConsumerFactory<String, MessageDTO>(props);
-        kafkaConsumerFactory.setValueDeserializer(new JsonDeserializer<>(mapper));
+        kafkaConsumerFactory.setValueDeserializer(messageFormat == MessageFormat.BINARY ?
+                new MessageDTOBinaryDeserializer() :
+                new JsonDeserializer<>(mapper));
         return kafkaConsumerFactory;
 
     }
 
     @Bean("listenerContainerFactory")
     public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, MessageDTO>>
-    listenerContainerFactory(ConsumerFactory<String, MessageDTO> consumerFactory) {
+    listenerContainerFactory(ConsumerFactory<String, MessageDTO> consumerFactory,
+                             @Value("${app.consumer.concurrency:1}") Integer concurrency,
+                             @Value("${app.consumer.poll.idle:1000}") Long idleBetweenPolls) {
+        var factory = createContainerFactory(consumerFactory, concurrency, idleBetweenPolls, false);
+        // листнер сам подтверждает запись после сохранения в БД, причем не обязательно по порядку:
+        // при asyncAcks контейнер фиксирует смещение, только когда закрыт "разрыв" перед ним
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+
+    /*
+    // Фабрика для batch-листнера: за один poll листнер получает весь список записей
+    // (до app.consumer.poll.records штук) и передает его обработчику целиком.
+    // Если запись пакета не сохранилась из-за временного сбоя БД, листнер бросает
+    // BatchListenerFailedException с ее индексом: обработчик ошибок фиксирует смещения до нее
+    // и через паузу доставляет пакет повторно с нее же. Записи, которые повтором не сохранить
+    // (ошибки данных), ConsumeHandler логирует и пропускает сам, поэтому сюда они не доходят и
+    // пакет на них не зацикливается. Попытки не ограничены, иначе во время недоступности БД
+    // запись была бы пропущена и закоммичена несохраненной
+     */
+    @Bean("batchListenerContainerFactory")
+    public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, MessageDTO>>
+    batchListenerContainerFactory(ConsumerFactory<String, MessageDTO> consumerFactory,
+                                  @Value("${app.consumer.concurrency:1}") Integer concurrency,
+                                  @Value("${app.consumer.poll.idle:1000}") Long idleBetweenPolls,
+                                  @Value("${app.consumer.retry.backoff:1000}") Long retryBackoff) {
+        var factory = createContainerFactory(consumerFactory, concurrency, idleBetweenPolls, true);
+        factory.setCommonErrorHandler(
+                new DefaultErrorHandler(new FixedBackOff(retryBackoff, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+
+    /*
+    // Фабрика для обработки с порядком по ключу: batch-листнер раздает записи по дорожкам ключей,
+    // а смещения фиксирует сам (PartitionOffsets), поэтому контейнеру коммитить нечего.
+    // Idle-событие нужно, чтобы фиксировать смещения и тогда, когда новых записей нет
+     */
+    @Bean("keyOrderedListenerContainerFactory")
+    public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, MessageDTO>>
+    keyOrderedListenerContainerFactory(ConsumerFactory<String, MessageDTO> consumerFactory,
+                                       @Value("${app.consumer.concurrency:1}") Integer concurrency,
+                                       @Value("${app.consumer.poll.idle:1000}") Long idleBetweenPolls,
+                                       @Value("${app.consumer.key-ordered.commit-interval:1000}") Long commitInterval) {
+        var factory = createContainerFactory(consumerFactory, concurrency, idleBetweenPolls, true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setIdleEventInterval(commitInterval);
+        return factory;
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, MessageDTO> createContainerFactory(
+            ConsumerFactory<String, MessageDTO> consumerFactory,
+            Integer concurrency,
+            Long idleBetweenPolls,
+            boolean batchListener) {
         var factory = new ConcurrentKafkaListenerContainerFactory<String, MessageDTO>();
         factory.setConsumerFactory(consumerFactory);
-        // у нас один микросервис (не монолит), который слушает один топик, поэтому Concurrency = 1
-        // а так сколько дистнеров, такой и размер Concurrency
-        factory.setConcurrency(1);
+        factory.setBatchListener(batchListener);
+        // сколько консьюмеров (потоков) в группе внутри одного экземпляра сервиса.
+        // Больше, чем партиций в топике, задавать смысла нет - лишние будут простаивать
+        factory.setConcurrency(concurrency);
         // под капотом листнер у нас делает приодически poll из очереди сообщений,
         // и здесь мы задаем прпметр, который влияет на этот интервал
-        factory.getContainerProperties().setIdleBetweenPolls(1_000);
+        factory.getContainerProperties().setIdleBetweenPolls(idleBetweenPolls);
         // poll вызвался, но данных сейчас нет и мы ждем указанное время
         factory.getContainerProperties().setPollTimeout(1_000);
         factory.getContainerProperties().setConsumerRebalanceListener(appConsumerRebalanceListener());
         //Пул потоков (особенно для Concurrency>1), если его контролировать,
-        // а не использовать внутренний пул
+        // а не использовать внутренний пул. Каждому консьюмеру нужен свой поток
         var executor = new SimpleAsyncTaskExecutor("mw-consumer-");
-        executor.setConcurrencyLimit(1);
+        executor.setConcurrencyLimit(concurrency);
         var listenerTaskExecutor = new ConcurrentTaskExecutor(executor);
         factory.getContainerProperties().setListenerTaskExecutor(listenerTaskExecutor);
         return factory;
@@ -94,9 +169,12 @@ public class KafkaConfiguration {
 
     @Bean
     public ConsumerRebalanceListener appConsumerRebalanceListener() {
-        return new ConsumerRebalanceListener() {
+        return new ConsumerAwareRebalanceListener() {
             @Override
-            public void onPartitionsRevoked(Collection<TopicPartition> collection) {}
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> collection) {
+                // в режиме с порядком по ключу смещения фиксируются вручную; в остальных режимах трекеров нет
+                partitionOffsets.commitRevoked(consumer, collection);
+            }
 
             @Override
             public void onPartitionsAssigned(Collection<TopicPartition> collection) {
@@ -8,6 +8,7 @@ import org.springframework.data.relational.core.mapping.Table;
 import ru.madmax.pet.microcurrency.common.model.Currency;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 @Getter
 @Setter
@@ -16,7 +17,7 @@ import java.math.BigDecimal;
 @Table(name = "conversion", schema = "public")
 public class ConversionEntity {
 
-    private String id;
+    private UUID id;
     private Currency base;
     private Currency convert;
     private BigDecimal baseAmount;
@@ -6,12 +6,14 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.util.UUID;
+
 @Getter
 @Setter
 @NoArgsConstructor
 @EqualsAndHashCode
 @Table(name = "error", schema = "public")
 public class ErrorEntity {
-    private String id;
+    private UUID id;
     private String details;
 }
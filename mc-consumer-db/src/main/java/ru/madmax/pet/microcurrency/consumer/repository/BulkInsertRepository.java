@@ -0,0 +1,12 @@
+package ru.madmax.pet.microcurrency.consumer.repository;
+
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
+import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
+
+import java.util.List;
+
+public interface BulkInsertRepository {
+    Mono<Long> insertConversions(List<ConversionEntity> conversions);
+    Mono<Long> insertErrors(List<ErrorEntity> errors);
+}
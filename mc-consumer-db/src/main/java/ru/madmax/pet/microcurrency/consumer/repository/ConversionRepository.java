@@ -6,10 +6,12 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
 
+import java.util.UUID;
+
 @Repository
-public interface ConversionRepository extends ReactiveCrudRepository<ConversionEntity, String> {
+public interface ConversionRepository extends ReactiveCrudRepository<ConversionEntity, UUID> {
 
     @Override
     @Query("SELECT * FROM conversion WHERE id = :id")
-    Mono<ConversionEntity> findById(String id);
+    Mono<ConversionEntity> findById(UUID id);
 }
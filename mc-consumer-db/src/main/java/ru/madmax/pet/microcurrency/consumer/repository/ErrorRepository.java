@@ -6,10 +6,12 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
 
+import java.util.UUID;
+
 @Repository
-public interface ErrorRepository extends ReactiveCrudRepository<ErrorEntity, String> {
+public interface ErrorRepository extends ReactiveCrudRepository<ErrorEntity, UUID> {
     @Override
     @Query("SELECT * FROM error WHERE id = :id")
-    Mono<ErrorEntity> findById(String id);
+    Mono<ErrorEntity> findById(UUID id);
 
 }
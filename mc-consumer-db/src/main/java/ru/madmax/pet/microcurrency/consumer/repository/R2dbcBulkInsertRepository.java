@@ -0,0 +1,93 @@
+package ru.madmax.pet.microcurrency.consumer.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
+import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/*
+// Вставка пачки строк одним multi-row INSERT: один round trip и одна неявная транзакция
+// на всю пачку вместо отдельного запроса на каждую запись
+ */
+@Repository
+@RequiredArgsConstructor
+public class R2dbcBulkInsertRepository implements BulkInsertRepository {
+    private static final String CONVERSION_INSERT =
+            "INSERT INTO conversion (id, source_id, base, convert, base_amount, conversion_amount) VALUES ";
+    private static final String ERROR_INSERT =
+            "INSERT INTO error (id, details) VALUES ";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Long> insertConversions(List<ConversionEntity> conversions) {
+        if (conversions.isEmpty())
+            return Mono.just(0L);
+
+        var sql = new StringBuilder(CONVERSION_INSERT.length() + conversions.size() * 80)
+                .append(CONVERSION_INSERT);
+        for (int i = 0; i < conversions.size(); i++) {
+            if (i > 0)
+                sql.append(", ");
+            sql.append("(:id").append(i)
+                    .append(", :sourceId").append(i)
+                    .append(", :base").append(i)
+                    .append(", :convert").append(i)
+                    .append(", :baseAmount").append(i)
+                    .append(", :conversionAmount").append(i)
+                    .append(')');
+        }
+
+        var spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < conversions.size(); i++) {
+            var entity = conversions.get(i);
+            spec = bindNullable(spec, "id" + i, entity.getId(), UUID.class);
+            spec = bindNullable(spec, "sourceId" + i, entity.getSourceId(), Long.class);
+            spec = bindNullable(spec, "base" + i, currencyCode(entity.getBase()), String.class);
+            spec = bindNullable(spec, "convert" + i, currencyCode(entity.getConvert()), String.class);
+            spec = bindNullable(spec, "baseAmount" + i, entity.getBaseAmount(), BigDecimal.class);
+            spec = bindNullable(spec, "conversionAmount" + i, entity.getConversionAmount(), BigDecimal.class);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    @Override
+    public Mono<Long> insertErrors(List<ErrorEntity> errors) {
+        if (errors.isEmpty())
+            return Mono.just(0L);
+
+        var sql = new StringBuilder(ERROR_INSERT.length() + errors.size() * 24)
+                .append(ERROR_INSERT);
+        for (int i = 0; i < errors.size(); i++) {
+            if (i > 0)
+                sql.append(", ");
+            sql.append("(:id").append(i)
+                    .append(", :details").append(i)
+                    .append(')');
+        }
+
+        var spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < errors.size(); i++) {
+            var entity = errors.get(i);
+            spec = bindNullable(spec, "id" + i, entity.getId(), UUID.class);
+            spec = bindNullable(spec, "details" + i, entity.getDetails(), String.class);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static String currencyCode(Currency currency) {
+        return currency != null ? currency.name() : null;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(
+            DatabaseClient.GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+}
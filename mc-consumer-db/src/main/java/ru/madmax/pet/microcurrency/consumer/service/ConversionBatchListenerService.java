@@ -0,0 +1,10 @@
+package ru.madmax.pet.microcurrency.consumer.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+
+import java.util.List;
+
+public interface ConversionBatchListenerService {
+    void listen(List<ConsumerRecord<String, MessageDTO>> records);
+}
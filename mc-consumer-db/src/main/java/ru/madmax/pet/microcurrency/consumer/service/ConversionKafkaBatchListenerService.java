@@ -0,0 +1,38 @@
+package ru.madmax.pet.microcurrency.consumer.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.consumer.service.handler.ConsumeHandler;
+
+import java.util.List;
+
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.consumer.batch.enabled", havingValue = "true")
+public class ConversionKafkaBatchListenerService implements ConversionBatchListenerService {
+    private final ConsumeHandler consumeHandler;
+    private final LogService logService;
+
+    @Override
+    @KafkaListener(
+            topics = "${spring.kafka.topic.name}",
+            containerFactory = "batchListenerContainerFactory")
+    public void listen(List<ConsumerRecord<String, MessageDTO>> records) {
+        for (var consumerRecord : records) {
+            logService.success(consumerRecord.key(), LogService.RECEIVE_PATTERN,
+                    consumerRecord.value(),
+                    consumerRecord.partition(),
+                    consumerRecord.offset());
+        }
+        // смещения пакета фиксируются контейнером после возврата из метода,
+        // поэтому ждем, пока все записи пакета будут записаны в БД.
+        // Ошибка сохранения пробрасывается в контейнер (BatchListenerFailedException),
+        // и пакет с несохраненной записи доставляется повторно
+        consumeHandler.acceptAll(records).block();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.madmax.pet.microcurrency.consumer.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.stereotype.Service;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.consumer.service.handler.ConsumeHandler;
+import ru.madmax.pet.microcurrency.consumer.service.handler.ConsumeMetrics;
+import ru.madmax.pet.microcurrency.consumer.service.handler.InFlightWindow;
+import ru.madmax.pet.microcurrency.consumer.service.handler.KeyLanes;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PartitionOffsets;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PersistenceRetry;
+
+import java.util.List;
+
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnExpression("!${app.consumer.batch.enabled:false} and ${app.consumer.key-ordered.enabled:false}")
+public class ConversionKafkaKeyOrderedListenerService implements ConversionKeyOrderedListenerService {
+    public static final String LISTENER_ID = "keyOrderedConversionListener";
+    private final ConsumeHandler consumeHandler;
+    private final KeyLanes keyLanes;
+    private final PartitionOffsets partitionOffsets;
+    private final InFlightWindow inFlightWindow;
+    private final PersistenceRetry persistenceRetry;
+    private final LogService logService;
+
+    /*
+    // Записи poll-а раздаются по "дорожкам" ключей (guid) и обрабатываются пулом параллельно,
+    // порядок сохраняется только для записей одного ключа.
+    // Контейнер сам смещения не фиксирует: после каждого poll (и в простое) коммитится
+    // наибольшее смещение, перед которым все записи партиции уже сохранены.
+    // Запись считается завершенной только после успешного сохранения: при сбое БД она повторяется
+    // в своей дорожке, а граница коммита партиции стоит на ее смещении
+     */
+    @Override
+    @KafkaListener(
+            id = LISTENER_ID,
+            idIsGroup = false,
+            topics = "${spring.kafka.topic.name}",
+            containerFactory = "keyOrderedListenerContainerFactory")
+    public void listen(List<ConsumerRecord<String, MessageDTO>> records, Consumer<?, ?> consumer) {
+        for (var consumerRecord : records) {
+            logService.success(consumerRecord.key(), LogService.RECEIVE_PATTERN,
+                    consumerRecord.value(),
+                    consumerRecord.partition(),
+                    consumerRecord.offset());
+            partitionOffsets.register(consumerRecord);
+            inFlightWindow.acquire(LISTENER_ID);
+            keyLanes.submit(
+                    consumerRecord.key(),
+                    () -> persistenceRetry.untilPersisted(consumerRecord.key(), () -> consumeHandler.handle(
+                                    consumerRecord.key(),
+                                    consumerRecord.value(),
+                                    ConsumeMetrics.originTimestamp(consumerRecord.headers())))
+                            .doOnSuccess(persisted -> partitionOffsets.complete(consumerRecord)),
+                    () -> inFlightWindow.release(LISTENER_ID));
+        }
+        partitionOffsets.commit(consumer);
+    }
+
+    @Override
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        // событие публикуется в потоке консьюмера, поэтому коммитить здесь безопасно
+        partitionOffsets.commit(event.getConsumer());
+    }
+}
@@ -1,23 +1,43 @@
 package ru.madmax.pet.microcurrency.consumer.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 import ru.madmax.pet.microcurrency.consumer.service.handler.ConsumeHandler;
+import ru.madmax.pet.microcurrency.consumer.service.handler.InFlightWindow;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PersistenceRetry;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.serialization.OriginTimestampHeader;
+
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_ORIGIN_TIMESTAMP_KEY;
 
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnExpression("!${app.consumer.batch.enabled:false} and !${app.consumer.key-ordered.enabled:false}")
 public class ConversionKafkaListenerService implements ConversionListenerService {
+    public static final String LISTENER_ID = "conversionListener";
     private final ConsumeHandler consumeHandler;
+    private final InFlightWindow inFlightWindow;
+    private final PersistenceRetry persistenceRetry;
     private final LogService logService;
 
+    /*
+    // Сохранение идет асинхронно, а смещение подтверждается только после успешного сохранения.
+    // Подтверждения могут прийти не по порядку, контейнер (asyncAcks) фиксирует
+    // смещение лишь когда подтверждены все предыдущие записи партиции.
+    // При сбое БД запись повторяется (PersistenceRetry) и до сохранения не подтверждается
+     */
     @Override
     @KafkaListener(
+            id = LISTENER_ID,
+            idIsGroup = false,
             topics = "${spring.kafka.topic.name}",
             containerFactory = "listenerContainerFactory")
     public void listen(
@@ -25,11 +45,19 @@ public class ConversionKafkaListenerService implements ConversionListenerService
             @Header(name = KafkaHeaders.RECEIVED_KEY, required = false) String key,
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) Integer partition,
-            @Header(KafkaHeaders.OFFSET) Long offset) {
-        logService.info(key, String.format("Successful receive: %s%nMetadata: partition: %s, offset: %s",
-                message,
-                partition,
-                offset));
-        consumeHandler.accept(key, message);
+            @Header(KafkaHeaders.OFFSET) Long offset,
+            @Header(name = HEADER_ORIGIN_TIMESTAMP_KEY, required = false) byte[] originTimestamp,
+            Acknowledgment acknowledgment) {
+        logService.success(key, LogService.RECEIVE_PATTERN, message, partition, offset);
+        inFlightWindow.acquire(LISTENER_ID);
+        persistenceRetry.untilPersisted(key, () -> consumeHandler.handle(
+                        key,
+                        message,
+                        OriginTimestampHeader.decode(originTimestamp)))
+                .doOnSuccess(persisted -> acknowledgment.acknowledge())
+                .doFinally(signal -> inFlightWindow.release(LISTENER_ID))
+                .subscribe(
+                        null,
+                        error -> logService.error(key, "Error on consuming: " + error.getMessage()));
     }
 }
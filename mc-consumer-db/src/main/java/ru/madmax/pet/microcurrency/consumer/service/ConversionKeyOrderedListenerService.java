@@ -0,0 +1,14 @@
+package ru.madmax.pet.microcurrency.consumer.service;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+
+import java.util.List;
+
+public interface ConversionKeyOrderedListenerService {
+    void listen(List<ConsumerRecord<String, MessageDTO>> records, Consumer<?, ?> consumer);
+
+    void onIdle(ListenerContainerIdleEvent event);
+}
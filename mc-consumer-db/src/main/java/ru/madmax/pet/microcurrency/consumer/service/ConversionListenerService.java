@@ -1,5 +1,6 @@
 package ru.madmax.pet.microcurrency.consumer.service;
 
+import org.springframework.kafka.support.Acknowledgment;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
 
 public interface ConversionListenerService {
@@ -7,5 +8,7 @@ public interface ConversionListenerService {
                 String key,
                 String topic,
                 Integer partition,
-                Long offset);
+                Long offset,
+                byte[] originTimestamp,
+                Acknowledgment acknowledgment);
 }
@@ -1,6 +1,7 @@
 package ru.madmax.pet.microcurrency.consumer.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
@@ -8,6 +9,7 @@ import ru.madmax.pet.microcurrency.consumer.repository.ConversionRepository;
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.persistence.write-behind.enabled", havingValue = "false")
 public class ConversionPersistenceService implements ConversionPersistence {
     private final ConversionRepository repository;
     @Override
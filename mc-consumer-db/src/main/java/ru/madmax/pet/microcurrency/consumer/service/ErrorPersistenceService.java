@@ -0,0 +1,20 @@
+package ru.madmax.pet.microcurrency.consumer.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
+import ru.madmax.pet.microcurrency.consumer.repository.ErrorRepository;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.persistence.write-behind.enabled", havingValue = "false")
+public class ErrorPersistenceService implements ErrorPersistence {
+    private final ErrorRepository repository;
+    @Override
+    public Mono<ErrorEntity> saveError(ErrorEntity error) {
+        return repository.save(error);
+    }
+
+}
@@ -1,9 +1,34 @@
 package ru.madmax.pet.microcurrency.consumer.service;
 
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.function.Supplier;
+
 public interface LogService {
+    String RECEIVE_PATTERN = "Successful receive: {}" + System.lineSeparator() + "Metadata: partition: {}, offset: {}";
+
     void info(String key, String message);
     void warn(String message);
     void error(String key, String message);
     void error(Throwable throwable);
     void error(String message, Throwable throwable);
+
+    /*
+    // Сообщение в стиле SLF4J: {} заменяется очередным аргументом, аргумент-Supplier вычисляется при записи.
+    // Реализация по умолчанию собирает строку сразу, Slf4JLogService - только если INFO включен
+     */
+    default void info(String key, String pattern, Object... args) {
+        var resolved = new Object[args.length];
+        for (int i = 0; i < args.length; i++)
+            resolved[i] = args[i] instanceof Supplier<?> supplier ? supplier.get() : args[i];
+        info(key, MessageFormatter.arrayFormat(pattern, resolved).getMessage());
+    }
+
+    /*
+    // Высокочастотные события успешной обработки: Slf4JLogService пишет только долю
+    // app.logging.success-sample-rate из них
+     */
+    default void success(String key, String pattern, Object... args) {
+        info(key, pattern, args);
+    }
 }
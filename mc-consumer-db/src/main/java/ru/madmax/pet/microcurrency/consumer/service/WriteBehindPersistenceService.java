@@ -0,0 +1,111 @@
+package ru.madmax.pet.microcurrency.consumer.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
+import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
+import ru.madmax.pet.microcurrency.consumer.repository.BulkInsertRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+// Write-behind: строки копятся в буфере и сбрасываются одним multi-row INSERT,
+// как только набирается batch-size строк или истекает flush-window.
+// Mono, возвращаемый save/saveError, завершается только после того, как пачка записана в БД,
+// поэтому слушатель может фиксировать смещения Kafka лишь после надежной записи.
+// Если пачка не записалась целиком (например, одна строка нарушает ограничения таблицы),
+// строки пишутся по одной, чтобы ошибка досталась только виновной записи
+ */
+@Service
+@ConditionalOnProperty(name = "app.persistence.write-behind.enabled", havingValue = "true", matchIfMissing = true)
+public class WriteBehindPersistenceService implements ConversionPersistence, ErrorPersistence {
+    private final Sinks.Many<PendingWrite<ConversionEntity>> conversionSink;
+    private final Sinks.Many<PendingWrite<ErrorEntity>> errorSink;
+
+    public WriteBehindPersistenceService(
+            BulkInsertRepository bulkInsertRepository,
+            @Value("${app.persistence.write-behind.batch-size:500}") Integer batchSize,
+            @Value("${app.persistence.write-behind.flush-window:50}") Long flushWindow) {
+        this.conversionSink = Sinks.many().unicast().onBackpressureBuffer();
+        this.errorSink = Sinks.many().unicast().onBackpressureBuffer();
+        startPipeline(conversionSink, batchSize, flushWindow, bulkInsertRepository::insertConversions);
+        startPipeline(errorSink, batchSize, flushWindow, bulkInsertRepository::insertErrors);
+    }
+
+    @Override
+    public Mono<ConversionEntity> save(ConversionEntity entity) {
+        return Mono.create(sink -> emit(conversionSink, new PendingWrite<>(entity, sink)));
+    }
+
+    @Override
+    public Mono<ErrorEntity> saveError(ErrorEntity error) {
+        return Mono.create(sink -> emit(errorSink, new PendingWrite<>(error, sink)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // завершение sink'а сбрасывает в БД то, что осталось в буфере
+        synchronized (conversionSink) {
+            conversionSink.tryEmitComplete();
+        }
+        synchronized (errorSink) {
+            errorSink.tryEmitComplete();
+        }
+    }
+
+    private <T> void emit(Sinks.Many<PendingWrite<T>> sink, PendingWrite<T> write) {
+        Sinks.EmitResult result;
+        // unicast sink не допускает конкурентной эмиссии, а save вызывается из нескольких потоков
+        synchronized (sink) {
+            result = sink.tryEmitNext(write);
+        }
+        if (result.isFailure())
+            // буфер отказывает только при остановке сервиса: запись не сохранена и должна быть повторена
+            write.sink().error(new DataAccessResourceFailureException("Write-behind buffer rejected entity: " + result));
+    }
+
+    private static <T> void startPipeline(Sinks.Many<PendingWrite<T>> sink,
+                                          int batchSize,
+                                          long flushWindow,
+                                          Function<List<T>, Mono<Long>> bulkInsert) {
+        sink.asFlux()
+                .bufferTimeout(batchSize, Duration.ofMillis(flushWindow), true)
+                .concatMap(batch -> flush(batch, bulkInsert))
+                .subscribe();
+    }
+
+    private static <T> Mono<Void> flush(List<PendingWrite<T>> batch, Function<List<T>, Mono<Long>> bulkInsert) {
+        return bulkInsert.apply(batch.stream().map(PendingWrite::entity).toList())
+                .doOnSuccess(count -> batch.forEach(PendingWrite::complete))
+                .then()
+                .onErrorResume(error -> batch.size() == 1 ?
+                        Mono.fromRunnable(() -> batch.get(0).sink().error(error)) :
+                        flushOneByOne(batch, bulkInsert));
+    }
+
+    // ошибка записи уходит в sink ее вызывающему (save завершается ошибкой),
+    // а здесь гасится только для того, чтобы не остановить конвейер остальных записей
+    private static <T> Mono<Void> flushOneByOne(List<PendingWrite<T>> batch, Function<List<T>, Mono<Long>> bulkInsert) {
+        return Flux.fromIterable(batch)
+                .concatMap(write -> bulkInsert.apply(List.of(write.entity()))
+                        .doOnSuccess(count -> write.complete())
+                        .doOnError(error -> write.sink().error(error))
+                        .onErrorResume(error -> Mono.empty()))
+                .then();
+    }
+
+    private record PendingWrite<T>(T entity, MonoSink<T> sink) {
+        void complete() {
+            sink.success(entity);
+        }
+    }
+}
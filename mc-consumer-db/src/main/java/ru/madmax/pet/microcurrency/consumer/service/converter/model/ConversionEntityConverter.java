@@ -9,7 +9,7 @@ public class ConversionEntityConverter implements ModelConverter<String, Convers
     @Override
     public ConversionEntity convert(String key, Conversion model) {
         var entity = new ConversionEntity();
-        entity.setId(key);
+        entity.setId(toGuid(key));
         entity.setBase(model.getBase());
         entity.setConvert(model.getConvert());
         entity.setBaseAmount(model.getBaseAmount());
@@ -8,7 +8,7 @@ public class ErrorEntityConverter implements ModelConverter<String, String, Erro
     @Override
     public ErrorEntity convert(String key, String model) {
         var ed = new ErrorEntity();
-        ed.setId(key);
+        ed.setId(toGuid(key));
         ed.setDetails(model);
         return ed;
     }
@@ -1,5 +1,21 @@
 package ru.madmax.pet.microcurrency.consumer.service.converter.model;
 
+import ru.madmax.pet.microcurrency.consumer.exception.AppConsumerException;
+
+import java.util.UUID;
+
 public interface ModelConverter<K, M, D> {
     D convert (K key, M model);
+
+    /*
+    // Ключ записи (guid запроса) хранится в БД как uuid.
+    // Ключ, который не является UUID, - ошибка разбора записи, а не сохранения
+     */
+    default UUID toGuid(String key) {
+        try {
+            return UUID.fromString(key);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new AppConsumerException(e);
+        }
+    }
 }
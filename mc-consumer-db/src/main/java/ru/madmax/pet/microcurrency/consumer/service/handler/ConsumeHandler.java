@@ -3,7 +3,14 @@ package ru.madmax.pet.microcurrency.consumer.service.handler;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import ru.madmax.pet.microcurrency.consumer.service.stub.SourceCacheStub;
 import ru.madmax.pet.microcurrency.common.model.Conversion;
@@ -12,18 +19,21 @@ import ru.madmax.pet.microcurrency.consumer.exception.AppConsumerException;
 import ru.madmax.pet.microcurrency.consumer.exception.RemoteServiceException;
 import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
 import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
-import ru.madmax.pet.microcurrency.consumer.repository.ErrorRepository;
-import ru.madmax.pet.microcurrency.consumer.repository.ConversionRepository;
+import ru.madmax.pet.microcurrency.consumer.service.ConversionPersistence;
+import ru.madmax.pet.microcurrency.consumer.service.ErrorPersistence;
 import ru.madmax.pet.microcurrency.consumer.service.LogService;
 import ru.madmax.pet.microcurrency.consumer.service.converter.model.ModelConverter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
 
 @Component
 @RequiredArgsConstructor
 public class ConsumeHandler implements BiConsumer<String, MessageDTO> {
-    private final ConversionRepository conversionRepository;
-    private final ErrorRepository errorRepository;
+    private final ConversionPersistence conversionPersistence;
+    private final ErrorPersistence errorPersistence;
     private final ModelConverter<String, Conversion, ConversionEntity> currencyDomainConverter;
     private final ModelConverter<String, String, ErrorEntity> errorDomainConverter;
     private final ObjectMapper objectMapper;
@@ -32,53 +42,143 @@ public class ConsumeHandler implements BiConsumer<String, MessageDTO> {
     private final Hook<String> successfulCompletionHook;
     private final Hook<Throwable> errorCompletionHook;
     private final SourceCacheStub sourceCache;
+    private final ConsumeMetrics consumeMetrics;
 
     @Override
     public void accept(String key, MessageDTO messageDTO) {
+        // ошибка сохранения уже залогирована в consume
+        consume(key, messageDTO, null).onErrorComplete().subscribe();
+    }
+
+    /*
+    // Обработка всех записей, полученных за один poll.
+    // Ошибка разбора одной записи не должна приводить к повторной доставке всего пакета,
+    // поэтому такие записи отбрасываются с логированием, а остальные сохраняются одним потоком.
+    // Возвращаемый Mono завершается, когда все записи пакета сохранены или пропущены. Если какую-то запись
+    // не удалось сохранить из-за временного сбоя БД, он завершается BatchListenerFailedException
+    // с индексом первой такой записи:
+    // контейнер зафиксирует смещения до нее, а с нее пакет будет доставлен повторно
+     */
+    public Mono<Void> acceptAll(List<ConsumerRecord<String, MessageDTO>> records) {
+        List<Mono<Map.Entry<Integer, Throwable>>> persistingList = new ArrayList<>(records.size());
+        for (int index = 0; index < records.size(); index++) {
+            final int recordIndex = index;
+            var consumerRecord = records.get(index);
+            persistingList.add(handle(
+                    consumerRecord.key(),
+                    consumerRecord.value(),
+                    ConsumeMetrics.originTimestamp(consumerRecord.headers()))
+                    .then(Mono.<Map.Entry<Integer, Throwable>>empty())
+                    .onErrorResume(error -> Mono.just(Map.entry(recordIndex, error))));
+        }
+        return Flux.merge(persistingList)
+                .reduce((first, second) -> first.getKey() <= second.getKey() ? first : second)
+                .flatMap(failed -> Mono.error(new BatchListenerFailedException(
+                        "Persisting of batch record failed", failed.getValue(), failed.getKey())));
+    }
+
+    /*
+    // В отличие от accept, не подписывается сам, а возвращает Mono, который завершается
+    // после сохранения записи. Запись, которую не удалось разобрать или нельзя сохранить
+    // из-за самих данных, логируется и пропускается; запись, которая уже есть в БД
+    // (повторная доставка), считается сохраненной. Только временный сбой БД завершает Mono ошибкой,
+    // чтобы вызывающий не подтвердил смещение несохраненной записи и повторил ее
+     */
+    public Mono<Void> handle(String key, MessageDTO messageDTO) {
+        return handle(key, messageDTO, null);
+    }
+
+    // originTimestamp - время регистрации запроса из заголовка записи, по нему считается сквозная задержка
+    public Mono<Void> handle(String key, MessageDTO messageDTO, Long originTimestamp) {
+        try {
+            return consume(key, messageDTO, originTimestamp);
+        } catch (AppConsumerException e) {
+            failedOnConsuming(key, e);
+            return Mono.empty();
+        }
+    }
+
+    private Mono<Void> consume(String key, MessageDTO messageDTO, Long originTimestamp) {
         consumerHook.accept(key, messageDTO);
-        switch (messageDTO.getType()) {
-            case CURRENCY -> consumeCurrency(key, messageDTO.getMessage());
-            case ERROR -> consumeError(key, messageDTO.getMessage());
+        var stage = consumeMetrics.start(messageDTO.getType(), originTimestamp);
+        return switch (messageDTO.getType()) {
+            case CURRENCY -> consumeCurrency(key, messageDTO, stage);
+            case ERROR -> consumeError(key, messageDTO.getMessage(), stage);
             default -> wrongMessageType(key, messageDTO.getMessage());
-        }
+        };
     }
 
-    private void consumeCurrency(String key, String message) {
+    private Mono<Void> consumeCurrency(String key, MessageDTO messageDTO, ConsumeMetrics.Stage stage) {
         try {
-            var conversion = objectMapper.readValue(message, Conversion.class);
+            // в бинарном формате Conversion приходит уже разобранным, в JSON - строкой в message
+            var conversion = messageDTO.getConversion() != null ?
+                    messageDTO.getConversion() :
+                    objectMapper.readValue(messageDTO.getMessage(), Conversion.class);
             var conversionEntity = currencyDomainConverter.convert(key, conversion);
             conversionEntity.setSourceId(sourceCache.getIdBySource(
                     conversion.getSource()
             ));
-            conversionRepository.save(conversionEntity)
+            return conversionPersistence.save(conversionEntity)
                     .publishOn(Schedulers.boundedElastic())
-                    .doOnNext(wd -> conversionDataPersisting(key, message))
-                    .doOnError(error -> failedOnPersisting(key, error))
-                    .subscribe();
-
+                    .doOnNext(wd -> {
+                        stage.persisted();
+                        conversionDataPersisting(key,
+                                messageDTO.getMessage() != null ? messageDTO.getMessage() : conversion.toString());
+                    })
+                    .then()
+                    .onErrorResume(DuplicateKeyException.class, error -> alreadyPersisted(key))
+                    .doOnError(error -> {
+                        stage.failed();
+                        failedOnPersisting(key, error);
+                    })
+                    .onErrorResume(ConsumeHandler::isPermanent, error -> Mono.empty());
 
         } catch (JsonProcessingException e) {
             throw new AppConsumerException(e);
         }
     }
 
-    private void consumeError(String key, String message) {
-        errorRepository.save(
+    private Mono<Void> consumeError(String key, String message, ConsumeMetrics.Stage stage) {
+        return errorPersistence.saveError(
                 errorDomainConverter.convert(key, message)
         )
                 .publishOn(Schedulers.boundedElastic())
-                .doOnNext(wd -> errorDataPersisting(key, new RemoteServiceException(message)))
-                .doOnError(error -> failedOnPersisting(key, error))
-                .subscribe();
+                .doOnNext(wd -> {
+                    stage.persisted();
+                    errorDataPersisting(key, new RemoteServiceException(message));
+                })
+                .then()
+                .onErrorResume(DuplicateKeyException.class, error -> alreadyPersisted(key))
+                .doOnError(error -> {
+                    stage.failed();
+                    failedOnPersisting(key, error);
+                })
+                .onErrorResume(ConsumeHandler::isPermanent, error -> Mono.empty());
+    }
+
+    /*
+    // Повтор имеет смысл только при временном сбое БД (таймаут, потеря соединения, блокировка,
+    // БД недоступна). Прочие ошибки вызваны самой записью - например, сумма не влезает в DECIMAL(12,4)
+    // (SQLState 22003) или текст длиннее колонки (22001): повтор их не исправит, а только остановит
+    // партицию, поэтому такая запись логируется и пропускается
+     */
+    private static boolean isPermanent(Throwable error) {
+        return !(error instanceof TransientDataAccessException || error instanceof DataAccessResourceFailureException);
+    }
+
+    // guid записи - первичный ключ, поэтому дубликат значит, что запись уже сохранена прежней доставкой
+    private Mono<Void> alreadyPersisted(String key) {
+        logService.info(key, "Data is already persisted");
+        return Mono.empty();
     }
 
     private void conversionDataPersisting(String key, String message) {
-        logService.info(key, "Conversion data persists");
+        logService.success(key, "Conversion data persists");
         successfulCompletionHook.accept(key, message);
     }
 
     private void errorDataPersisting(String key, Throwable error) {
-        logService.info(key, "Error data persists");
+        logService.success(key, "Error data persists");
         errorCompletionHook.accept(key, error);
     }
 
@@ -91,12 +191,21 @@ public class ConsumeHandler implements BiConsumer<String, MessageDTO> {
         errorCompletionHook.accept(key, error);
     }
 
-    private void wrongMessageType (String key, String message) {
+    private void failedOnConsuming (String key, Throwable error) {
+        logService.error(key,
+                "Error on consuming: " +
+                        (error.getCause() != null ?
+                                error.getCause().getMessage() :
+                                error.getMessage()));
+        errorCompletionHook.accept(key, error);
+    }
+
+    private Mono<Void> wrongMessageType (String key, String message) {
         logService.error(key,
                 "Wrong message type. " + message);
         Throwable error = new AppConsumerException(new RuntimeException("Wrong message type. " + message));
         errorCompletionHook.accept(key, error);
-
+        return Mono.empty();
     }
 
 }
@@ -0,0 +1,105 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.stereotype.Component;
+import ru.madmax.pet.microcurrency.common.model.MessageType;
+import ru.madmax.pet.microcurrency.common.serialization.OriginTimestampHeader;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_ORIGIN_TIMESTAMP_KEY;
+
+/*
+// Таймеры обработки записи:
+//   mc.consumer.persist    - от начала разбора записи до сохранения в БД (или ошибки сохранения)
+//   mc.consumer.end-to-end - от регистрации запроса в producer-е (заголовок X-origin-timestamp)
+//                            до сохранения в БД; записи без заголовка сюда не попадают.
+// Сквозная задержка считается по часам разных хостов, поэтому отрицательные значения
+// (расхождение часов) записываются как ноль.
+// Значения тегов известны заранее (типы сообщений и unknown), поэтому таймеры регистрируются
+// один раз в конструкторе, а не на каждой записи
+ */
+@Component
+public class ConsumeMetrics {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TypeTimers> timers;
+
+    public ConsumeMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.timers = Stream.concat(
+                        Arrays.stream(MessageType.values()).map(ConsumeMetrics::tagOf),
+                        Stream.of(tagOf(null)))
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), TypeTimers::new));
+    }
+
+    public Stage start(MessageType type, Long originTimestamp) {
+        return new Stage(Timer.start(meterRegistry), timers.get(tagOf(type)), originTimestamp);
+    }
+
+    public static Long originTimestamp(Headers headers) {
+        var header = headers.lastHeader(HEADER_ORIGIN_TIMESTAMP_KEY);
+        return header != null ? OriginTimestampHeader.decode(header.value()) : null;
+    }
+
+    private Timer persistTimer(String type, String outcome) {
+        return Timer.builder("mc.consumer.persist")
+                .description("Consuming of a record until it is persisted")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Timer endToEndTimer(String type) {
+        return Timer.builder("mc.consumer.end-to-end")
+                .description("Registration in producer until the record is persisted")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static String tagOf(MessageType type) {
+        return type != null ? type.name().toLowerCase() : "unknown";
+    }
+
+    private class TypeTimers {
+        private final Timer persisted;
+        private final Timer failed;
+        private final Timer endToEnd;
+
+        private TypeTimers(String type) {
+            this.persisted = persistTimer(type, "success");
+            this.failed = persistTimer(type, "error");
+            this.endToEnd = endToEndTimer(type);
+        }
+    }
+
+    public class Stage {
+        private final Timer.Sample sample;
+        private final TypeTimers timers;
+        private final Long originTimestamp;
+
+        private Stage(Timer.Sample sample, TypeTimers timers, Long originTimestamp) {
+            this.sample = sample;
+            this.timers = timers;
+            this.originTimestamp = originTimestamp;
+        }
+
+        public void persisted() {
+            sample.stop(timers.persisted);
+            if (originTimestamp != null)
+                timers.endToEnd.record(
+                        Math.max(0, System.currentTimeMillis() - originTimestamp),
+                        TimeUnit.MILLISECONDS);
+        }
+
+        public void failed() {
+            sample.stop(timers.failed);
+        }
+    }
+}
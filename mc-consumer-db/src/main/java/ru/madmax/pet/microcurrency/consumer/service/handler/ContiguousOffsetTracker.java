@@ -0,0 +1,39 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import java.util.TreeSet;
+
+/*
+// Учет смещений одной партиции при обработке не по порядку.
+// Зафиксировать можно только смещение, перед которым обработаны все записи:
+// это наименьшее еще не завершенное смещение, а если незавершенных нет - следующее за последним полученным
+ */
+public class ContiguousOffsetTracker {
+    private final TreeSet<Long> inProgress = new TreeSet<>();
+    private long highestRegistered = -1;
+    private long lastCommitted = -1;
+
+    public synchronized void register(long offset) {
+        inProgress.add(offset);
+        highestRegistered = Math.max(highestRegistered, offset);
+    }
+
+    public synchronized void complete(long offset) {
+        inProgress.remove(offset);
+    }
+
+    /*
+    // Смещение для коммита (по соглашению Kafka - следующее за последним обработанным)
+    // или -1, если с прошлого коммита граница не сдвинулась
+     */
+    public synchronized long nextCommittable() {
+        long committable = inProgress.isEmpty() ? highestRegistered + 1 : inProgress.first();
+        if (committable <= lastCommitted || committable == 0)
+            return -1;
+        lastCommitted = committable;
+        return committable;
+    }
+
+    public synchronized int inProgress() {
+        return inProgress.size();
+    }
+}
@@ -0,0 +1,57 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.stereotype.Component;
+import ru.madmax.pet.microcurrency.consumer.service.LogService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+// Ограничение числа записей, которые уже получены из Kafka, но еще не сохранены в БД.
+// Когда окно заполнено, контейнер листнера ставится на паузу (partitions паузятся на консьюмере,
+// poll продолжается, поэтому брокер не считает консьюмер отвалившимся),
+// а когда в окне освобождается половина мест - снимается с паузы.
+// Верхняя граница в памяти - capacity плюс записи одного poll, уже переданные листнеру
+ */
+@Component
+public class InFlightWindow {
+    private final KafkaListenerEndpointRegistry registry;
+    private final LogService logService;
+    private final int capacity;
+    private final int resumeThreshold;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public InFlightWindow(KafkaListenerEndpointRegistry registry,
+                          LogService logService,
+                          @Value("${app.consumer.in-flight.capacity:256}") Integer capacity) {
+        this.registry = registry;
+        this.logService = logService;
+        this.capacity = capacity;
+        this.resumeThreshold = capacity / 2;
+    }
+
+    public void acquire(String listenerId) {
+        if (inFlight.incrementAndGet() >= capacity) {
+            var container = registry.getListenerContainer(listenerId);
+            if (container != null && !container.isPauseRequested()) {
+                container.pause();
+                logService.info(listenerId, "In-flight window is full, consumer paused: {}", inFlight.get());
+            }
+        }
+    }
+
+    public void release(String listenerId) {
+        if (inFlight.decrementAndGet() <= resumeThreshold) {
+            var container = registry.getListenerContainer(listenerId);
+            if (container != null && container.isPauseRequested()) {
+                container.resume();
+                logService.info(listenerId, "In-flight window is drained, consumer resumed: {}", inFlight.get());
+            }
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
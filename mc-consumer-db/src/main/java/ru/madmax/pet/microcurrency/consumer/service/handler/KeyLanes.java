@@ -0,0 +1,61 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+// Параллельная обработка с сохранением порядка только внутри ключа.
+// Для каждого ключа хранится "хвост" - завершение последней поставленной задачи;
+// новая задача с тем же ключом стартует только после него, задачи разных ключей
+// выполняются параллельно на пуле mw-key-worker. Хвост удаляется, когда задача ключа
+// была последней, поэтому память зависит от числа ключей в работе, а не от их общего числа.
+// onDone вызывается при любом завершении задачи; то, что допустимо только после успеха
+// (например, завершение смещения записи), задача делает сама
+ */
+@Component
+public class KeyLanes {
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final Scheduler workers;
+
+    public KeyLanes(@Value("${app.consumer.key-ordered.workers:16}") Integer workers) {
+        this.workers = Schedulers.newBoundedElastic(workers, Integer.MAX_VALUE, "mw-key-worker");
+    }
+
+    public void submit(String key, Supplier<Mono<Void>> task, Runnable onDone) {
+        var done = new CompletableFuture<Void>();
+        // запись без ключа ни с чем не упорядочивается
+        var previous = key == null ? null : tails.put(key, done);
+        Runnable start = () -> Mono.defer(task)
+                .subscribeOn(workers)
+                .doFinally(signal -> {
+                    if (key != null)
+                        tails.remove(key, done);
+                    onDone.run();
+                    done.complete(null);
+                })
+                .onErrorComplete()
+                .subscribe();
+        if (previous == null)
+            start.run();
+        else
+            previous.whenComplete((result, error) -> start.run());
+    }
+
+    public int activeKeys() {
+        return tails.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.dispose();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+import ru.madmax.pet.microcurrency.consumer.service.LogService;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+// Трекеры смещений всех партиций, записи которых обрабатываются не по порядку.
+// Коммит выполняется только из потока консьюмера (Consumer не потокобезопасен)
+// и только для партиций, назначенных этому консьюмеру
+ */
+@Component
+public class PartitionOffsets {
+    private static final String LOG_KEY = "offsets";
+    private final Map<TopicPartition, ContiguousOffsetTracker> trackers = new ConcurrentHashMap<>();
+    private final LogService logService;
+
+    public PartitionOffsets(LogService logService) {
+        this.logService = logService;
+    }
+
+    public void register(ConsumerRecord<?, ?> consumerRecord) {
+        trackers.computeIfAbsent(
+                new TopicPartition(consumerRecord.topic(), consumerRecord.partition()),
+                partition -> new ContiguousOffsetTracker())
+                .register(consumerRecord.offset());
+    }
+
+    public void complete(ConsumerRecord<?, ?> consumerRecord) {
+        var tracker = trackers.get(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()));
+        // партицию могли отозвать, пока запись обрабатывалась
+        if (tracker != null)
+            tracker.complete(consumerRecord.offset());
+    }
+
+    public void commit(Consumer<?, ?> consumer) {
+        var offsets = committable(consumer.assignment());
+        if (!offsets.isEmpty())
+            consumer.commitAsync(offsets, (committed, error) -> {
+                if (error != null)
+                    logService.error(LOG_KEY, "Offsets commit failed: " + error.getMessage());
+            });
+    }
+
+    /*
+    // Перед отзывом партиций фиксируем все, что уже можно, и забываем их трекеры.
+    // Записи, которые еще обрабатываются, после ребалансировки придут повторно (at-least-once)
+     */
+    public void commitRevoked(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        var offsets = committable(partitions);
+        partitions.forEach(trackers::remove);
+        if (!offsets.isEmpty())
+            consumer.commitSync(offsets);
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (var partition : partitions) {
+            var tracker = trackers.get(partition);
+            if (tracker == null)
+                continue;
+            long offset = tracker.nextCommittable();
+            if (offset >= 0)
+                offsets.put(partition, new OffsetAndMetadata(offset));
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,41 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ru.madmax.pet.microcurrency.consumer.service.LogService;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/*
+// Повтор сохранения записи, пока БД недоступна. Смещение записи подтверждается только после
+// успешного сохранения, поэтому при сбое БД запись не теряется, а ждет: окно InFlightWindow
+// тем временем заполняется и ставит контейнер на паузу.
+// Ошибки, которые повтором не исправить, ConsumeHandler обрабатывает сам (логирует и пропускает запись),
+// сюда доходят только временные сбои БД, поэтому число попыток не ограничено.
+// nack() в режиме asyncAcks не поддерживается, а seek вернул бы и уже сохраненные следующие записи,
+// поэтому запись повторяется здесь же
+ */
+@Component
+public class PersistenceRetry {
+    private final LogService logService;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+
+    public PersistenceRetry(LogService logService,
+                            @Value("${app.consumer.retry.backoff:1000}") Long backoff,
+                            @Value("${app.consumer.retry.max-backoff:30000}") Long maxBackoff) {
+        this.logService = logService;
+        this.backoff = Duration.ofMillis(backoff);
+        this.maxBackoff = Duration.ofMillis(maxBackoff);
+    }
+
+    public Mono<Void> untilPersisted(String key, Supplier<Mono<Void>> persisting) {
+        return Mono.defer(persisting)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, backoff)
+                        .maxBackoff(maxBackoff)
+                        .doBeforeRetry(retry -> logService.info(key, "Retrying persisting, {}", retry.totalRetries())));
+    }
+}
@@ -19,3 +19,14 @@ CREATE TABLE IF NOT EXISTS error (
   CONSTRAINT pk_error PRIMARY KEY (id)
 );
 
+
+-- changeset id:uuid_primary_keys dbms:postgresql
+-- comment: guid хранится как native uuid (16 байт вместо 37), ключи UUIDv7 дописываются в правый край индекса
+
+ALTER TABLE conversion ALTER COLUMN id TYPE uuid USING id::uuid;
+ALTER TABLE error ALTER COLUMN id TYPE uuid USING id::uuid;
+
+-- changeset id:uuid_primary_keys_h2 dbms:h2
+
+ALTER TABLE conversion ALTER COLUMN id SET DATA TYPE UUID;
+ALTER TABLE error ALTER COLUMN id SET DATA TYPE UUID;
@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +34,7 @@ import ru.madmax.pet.microcurrency.consumer.service.handler.Hook;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -67,7 +69,7 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
     @Value("${spring.kafka.topic.name}")
     String testTopic;
 
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @MockBean(name="successfulCompletionHook")
@@ -92,7 +94,7 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
     void receiveConversionMessage_SaveToDB_ThenReadFromDB_AndCheckConversion_AndCountLogs()
             throws InterruptedException, JsonProcessingException, ExecutionException {
         var conversion = TestConversionBuilder.aConversion().build();
-        var key = "integration-test-consumer-1";
+        var key = UUID.randomUUID().toString();
 
         var messageDTO = TestMessageDTOBuilder.aMessageDTO()
                 .withMessage(objectMapper.writeValueAsString(conversion))
@@ -110,10 +112,10 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
 
         var task = createKafkaSenderTask(testTopic, key, messageDTO, processBarrier);
         service.submit(task).get();
-        Mono<ConversionEntity> currencyDBMono = conversionRepository.findById(key);
+        Mono<ConversionEntity> currencyDBMono = conversionRepository.findById(UUID.fromString(key));
         StepVerifier.create(currencyDBMono)
                 .assertNext(element -> {
-                    assertThat(element.getId()).isEqualTo(key);
+                    assertThat(element.getId()).isEqualTo(UUID.fromString(key));
                     assertThat(element.getSourceId()).isEqualTo(1L);
                     assertThat(element.getBase()).isEqualTo(conversion.getBase());
                     assertThat(element.getConvert()).isEqualTo(conversion.getConvert());
@@ -131,7 +133,7 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
     @Test
     void receiveErrorMessage_SaveToDB_ThenReadFromDB_AndCheckError_AndCountLogs()
             throws ExecutionException, InterruptedException {
-        var key = "integration-test-consumer-2";
+        var key = UUID.randomUUID().toString();
         var errorDetails = "error details";
 
         var messageDTO = TestMessageDTOBuilder.aMessageDTO()
@@ -150,10 +152,10 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
 
         var task = createKafkaSenderTask(testTopic, key, messageDTO, processBarrier);
         service.submit(task).get();
-        Mono<ErrorEntity> errorDBMono = errorRepository.findById(key);
+        Mono<ErrorEntity> errorDBMono = errorRepository.findById(UUID.fromString(key));
         StepVerifier.create(errorDBMono)
                 .assertNext(element -> {
-                    assertThat(element.getId()).isEqualTo(key);
+                    assertThat(element.getId()).isEqualTo(UUID.fromString(key));
                     assertThat(element.getDetails()).isEqualTo(errorDetails);
                 })
                 .expectComplete()
@@ -166,10 +168,10 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
     }
 
     @Test
-    void receiveConversionMessage_WithVeryLongKeyValue_TryToSaveToDB_ThenCantReadFromDB_AndCountLogs()
+    void receiveConversionMessage_WithKeyThatIsNotUuid_AndNothingIsSaved_AndCountLogs()
             throws InterruptedException, JsonProcessingException, ExecutionException {
         var conversion = TestConversionBuilder.aConversion().build();
-        var key = "integration-test-consumer-3___________________________________________________________________________________________________________________________________________";
+        var key = "integration-test-consumer-3";
 
         var messageDTO = TestMessageDTOBuilder.aMessageDTO()
                 .withMessage(objectMapper.writeValueAsString(conversion))
@@ -187,19 +189,15 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
         var task = createKafkaSenderTask(testTopic, key, messageDTO, processBarrier);
         service.submit(task).get();
 
-        Mono<ConversionEntity> currencyDBMono = conversionRepository.findById(key);
-        StepVerifier.create(currencyDBMono)
-                .expectComplete()
-                .verify();
-
         verify(logService, times(1)).info(anyString(), stringCaptor.capture());
         verify(logService, times(1)).error(anyString(), stringCaptor.capture());
+        assertThat(stringCaptor.getValue()).startsWith("Error on consuming");
         stringCaptor.getAllValues().forEach(System.out::println);
     }
 
     @Test
-    void receiveErrorMessage__WithVeryLongKeyValue_TryToSaveToDB_ThenCantReadFromDB_AndCountLogs() throws ExecutionException, InterruptedException {
-        var key = "integration-test-consumer-4___________________________________________________________________________________________________________________________________________";
+    void receiveErrorMessage_WithKeyThatIsNotUuid_AndNothingIsSaved_AndCountLogs() throws ExecutionException, InterruptedException {
+        var key = "integration-test-consumer-4";
         var errorDetails = "error details";
 
         var messageDTO = TestMessageDTOBuilder.aMessageDTO()
@@ -219,20 +217,18 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
         var task = createKafkaSenderTask(testTopic, key, messageDTO, processBarrier);
         service.submit(task).get();
 
-        Mono<ErrorEntity> errorDBMono = errorRepository.findById(key);
-        StepVerifier.create(errorDBMono)
-                .expectComplete()
-                .verify();
-
         verify(logService, times(1)).info(anyString(), stringCaptor.capture());
         verify(logService, times(1)).error(anyString(), stringCaptor.capture());
+        assertThat(stringCaptor.getValue()).startsWith("Error on consuming");
         stringCaptor.getAllValues().forEach(System.out::println);
     }
 
     @Test
     void concurrency() throws JsonProcessingException, InterruptedException {
         var concurrency = 100;
-        var keyPrefix = "concurrency-integration-";
+        List<String> keys = IntStream.range(0, concurrency)
+                .mapToObj(i -> UUID.randomUUID().toString())
+                .toList();
         doNothing().when(logService).info(anyString(), anyString());
         doNothing().when(logService).error(anyString(), anyString());
         CountDownLatch senderBarrier = new CountDownLatch(concurrency);
@@ -253,14 +249,14 @@ class ConsumerServiceContainersIT extends AbstractContainersIntegrationTest {
                     .withMessage(objectMapper.writeValueAsString(conversion))
                     .build();
 
-            taskList.add(createKafkaSenderTask(testTopic, keyPrefix + i, messageDTO, senderBarrier));
+            taskList.add(createKafkaSenderTask(testTopic, keys.get(i), messageDTO, senderBarrier));
         }
         List<Future<SendResult<String, MessageDTO>>> futures = service.invokeAll(taskList);
         assertThat(futures).hasSize(concurrency);
 
         Flux<ConversionEntity> currencies = Flux.concat(IntStream.range(0, concurrency)
                 .boxed()
-                .map(i -> conversionRepository.findById(keyPrefix + i))
+                .map(i -> conversionRepository.findById(UUID.fromString(keys.get(i))))
                 .collect(Collectors.toList()));
 
         StepVerifier.create(currencies)
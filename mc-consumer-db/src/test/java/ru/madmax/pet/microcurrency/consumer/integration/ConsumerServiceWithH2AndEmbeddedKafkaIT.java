@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +35,7 @@ import ru.madmax.pet.microcurrency.consumer.service.handler.Hook;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -79,7 +81,7 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
     @Value("${spring.kafka.topic.name}")
     String testTopic;
 
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @MockBean(name="successfulCompletionHook")
@@ -102,7 +104,7 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
     void receiveConversionMessage_SaveToDB_ThenReadFromDB_AndCheckConversion_AndCountLogs()
             throws InterruptedException, JsonProcessingException, ExecutionException {
         var conversion = TestConversionBuilder.aConversion().build();
-        var key = "integration-test-consumer-1";
+        var key = UUID.randomUUID().toString();
 
         var messageDTO = TestMessageDTOBuilder.aMessageDTO()
                 .withMessage(objectMapper.writeValueAsString(conversion))
@@ -120,10 +122,10 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
 
         var task = createKafkaSenderTask(testTopic, key, messageDTO, processBarrier);
         service.submit(task).get();
-        Mono<ConversionEntity> currencyDBMono = conversionRepository.findById(key);
+        Mono<ConversionEntity> currencyDBMono = conversionRepository.findById(UUID.fromString(key));
         StepVerifier.create(currencyDBMono)
                 .assertNext(element -> {
-                    assertThat(element.getId()).isEqualTo(key);
+                    assertThat(element.getId()).isEqualTo(UUID.fromString(key));
                     assertThat(element.getSourceId()).isEqualTo(1L);
                     assertThat(element.getBase()).isEqualTo(conversion.getBase());
                     assertThat(element.getConvert()).isEqualTo(conversion.getConvert());
@@ -141,7 +143,7 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
     @Test
     void receiveErrorMessage_SaveToDB_ThenReadFromDB_AndCheckError_AndCountLogs()
             throws ExecutionException, InterruptedException {
-        var key = "integration-test-consumer-2";
+        var key = UUID.randomUUID().toString();
         var errorDetails = "error details";
 
         var messageDTO = TestMessageDTOBuilder.aMessageDTO()
@@ -160,10 +162,10 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
 
         var task = createKafkaSenderTask(testTopic, key, messageDTO, processBarrier);
         service.submit(task).get();
-        Mono<ErrorEntity> errorDBMono = errorRepository.findById(key);
+        Mono<ErrorEntity> errorDBMono = errorRepository.findById(UUID.fromString(key));
         StepVerifier.create(errorDBMono)
                 .assertNext(element -> {
-                    assertThat(element.getId()).isEqualTo(key);
+                    assertThat(element.getId()).isEqualTo(UUID.fromString(key));
                     assertThat(element.getDetails()).isEqualTo(errorDetails);
                 })
                 .expectComplete()
@@ -176,10 +178,10 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
     }
 
     @Test
-    void receiveConversionMessage_WithVeryLongKeyValue_TryToSaveToDB_ThenCantReadFromDB_AndCountLogs()
+    void receiveConversionMessage_WithKeyThatIsNotUuid_AndNothingIsSaved_AndCountLogs()
             throws InterruptedException, JsonProcessingException, ExecutionException {
         var conversion = TestConversionBuilder.aConversion().build();
-        var key = "integration-test-consumer-3___________________________________________________________________________________________________________________________________________";
+        var key = "integration-test-consumer-3";
 
         var messageDTO = TestMessageDTOBuilder.aMessageDTO()
                 .withMessage(objectMapper.writeValueAsString(conversion))
@@ -197,19 +199,15 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
         var task = createKafkaSenderTask(testTopic, key, messageDTO, processBarrier);
         service.submit(task).get();
 
-        Mono<ConversionEntity> currencyDBMono = conversionRepository.findById(key);
-        StepVerifier.create(currencyDBMono)
-                .expectComplete()
-                .verify();
-
         verify(logService, times(1)).info(anyString(), stringCaptor.capture());
         verify(logService, times(1)).error(anyString(), stringCaptor.capture());
+        assertThat(stringCaptor.getValue()).startsWith("Error on consuming");
         stringCaptor.getAllValues().forEach(System.out::println);
     }
 
     @Test
-    void receiveErrorMessage__WithVeryLongKeyValue_TryToSaveToDB_ThenCantReadFromDB_AndCountLogs() throws ExecutionException, InterruptedException {
-        var key = "integration-test-consumer-4___________________________________________________________________________________________________________________________________________";
+    void receiveErrorMessage_WithKeyThatIsNotUuid_AndNothingIsSaved_AndCountLogs() throws ExecutionException, InterruptedException {
+        var key = "integration-test-consumer-4";
         var errorDetails = "error details";
 
         var messageDTO = TestMessageDTOBuilder.aMessageDTO()
@@ -229,20 +227,18 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
         var task = createKafkaSenderTask(testTopic, key, messageDTO, processBarrier);
         service.submit(task).get();
 
-        Mono<ErrorEntity> errorDBMono = errorRepository.findById(key);
-        StepVerifier.create(errorDBMono)
-                .expectComplete()
-                .verify();
-
         verify(logService, times(1)).info(anyString(), stringCaptor.capture());
         verify(logService, times(1)).error(anyString(), stringCaptor.capture());
+        assertThat(stringCaptor.getValue()).startsWith("Error on consuming");
         stringCaptor.getAllValues().forEach(System.out::println);
     }
 
     @Test
     void concurrency() throws JsonProcessingException, InterruptedException {
         var concurrency = 100;
-        var keyPrefix = "concurrency-integration-";
+        List<String> keys = IntStream.range(0, concurrency)
+                .mapToObj(i -> UUID.randomUUID().toString())
+                .toList();
         doNothing().when(logService).info(anyString(), anyString());
         doNothing().when(logService).error(anyString(), anyString());
         CountDownLatch senderBarrier = new CountDownLatch(concurrency);
@@ -263,14 +259,14 @@ class ConsumerServiceWithH2AndEmbeddedKafkaIT {
                     .withMessage(objectMapper.writeValueAsString(conversion))
                     .build();
 
-            taskList.add(createKafkaSenderTask(testTopic, keyPrefix + i, messageDTO, senderBarrier));
+            taskList.add(createKafkaSenderTask(testTopic, keys.get(i), messageDTO, senderBarrier));
         }
         List<Future<SendResult<String, MessageDTO>>> futures = service.invokeAll(taskList);
         assertThat(futures).hasSize(concurrency);
 
         Flux<ConversionEntity> currencies = Flux.concat(IntStream.range(0, concurrency)
                 .boxed()
-                .map(i -> conversionRepository.findById(keyPrefix + i))
+                .map(i -> conversionRepository.findById(UUID.fromString(keys.get(i))))
                 .collect(Collectors.toList()));
 
         StepVerifier.create(currencies)
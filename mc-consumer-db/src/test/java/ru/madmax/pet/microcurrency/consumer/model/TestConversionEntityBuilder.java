@@ -8,12 +8,13 @@ import ru.madmax.pet.microcurrency.common.model.TestBuilder;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.UUID;
 
 @AllArgsConstructor
 @NoArgsConstructor(staticName = "aConversionEntity")
 @With
 public class TestConversionEntityBuilder implements TestBuilder<ConversionEntity> {
-    private String id = "test_domain_key";
+    private UUID id = UUID.fromString("0190a3b4-5c6d-7e8f-9a0b-1c2d3e4f5a6b");
     private Currency base = Currency.RUB;
     private Currency convert = Currency.USD;
     private BigDecimal baseAmount = new BigDecimal(10000);
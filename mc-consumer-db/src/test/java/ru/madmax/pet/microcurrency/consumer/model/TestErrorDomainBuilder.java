@@ -5,11 +5,13 @@ import lombok.NoArgsConstructor;
 import lombok.With;
 import ru.madmax.pet.microcurrency.common.model.TestBuilder;
 
+import java.util.UUID;
+
 @AllArgsConstructor
 @NoArgsConstructor(staticName = "anErrorDomain")
 @With
 public class TestErrorDomainBuilder implements TestBuilder<ErrorEntity> {
-    private String id = "test_domain_key";
+    private UUID id = UUID.fromString("0190a3b4-5c6d-7e8f-9a0b-1c2d3e4f5a6b");
     private String details = "error";
     @Override
     public ErrorEntity build() {
@@ -13,6 +13,9 @@ import reactor.test.StepVerifier;
 import ru.madmax.pet.microcurrency.consumer.model.TestConversionEntityBuilder;
 import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
 
+import java.math.BigDecimal;
+import java.util.UUID;
+
 import static org.assertj.core.api.Assertions.*;
 
 @DataR2dbcTest
@@ -25,7 +28,7 @@ class ConversionRepositoryTest {
     @Test
     void saveConversion_AndFindIt() {
         ConversionEntity conversionEntity = TestConversionEntityBuilder.aConversionEntity()
-                .withId("key_" + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID()).build();
         ConversionEntity conversionDB = conversionRepository.save(conversionEntity).block();
 
         assertThat(conversionDB).isNotNull();
@@ -50,7 +53,7 @@ class ConversionRepositoryTest {
     @Test
     void saveTwoConversions_withSameKeys_AndGetDuplicateKeyException() {
         ConversionEntity conversionEntity1 = TestConversionEntityBuilder.aConversionEntity()
-                .withId("key_" + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID()).build();
         ConversionEntity conversionEntity2 = TestConversionEntityBuilder.aConversionEntity()
                 .withId(conversionEntity1.getId()).build();
 
@@ -63,8 +66,8 @@ class ConversionRepositoryTest {
     @Test
     void saveConversion_withTooLongFields_InH2DB_AndGetUncategorizedR2dbcException() {
         ConversionEntity conversionEntity1 = TestConversionEntityBuilder.aConversionEntity()
-                .withId("__________________________________________________________________________________key_"
-                        + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID())
+                .withBaseAmount(new BigDecimal("1000000000000")).build();
         var currency1Mono = conversionRepository.save(conversionEntity1);
         assertThatThrownBy(currency1Mono::block).isInstanceOf(UncategorizedR2dbcException.class);
 
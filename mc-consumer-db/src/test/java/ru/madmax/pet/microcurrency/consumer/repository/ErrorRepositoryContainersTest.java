@@ -13,6 +13,8 @@ import ru.madmax.pet.microcurrency.consumer.AbstractContainersIntegrationTest;
 import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
 import ru.madmax.pet.microcurrency.consumer.model.TestErrorDomainBuilder;
 
+import java.util.UUID;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -25,7 +27,7 @@ class ErrorRepositoryContainersTest extends AbstractContainersIntegrationTest {
     @Test
     void saveError_AndFindIt() {
         ErrorEntity errorEntity = TestErrorDomainBuilder.anErrorDomain()
-                .withId("key_" + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID()).build();
         ErrorEntity error = errorRepository.save(errorEntity).block();
 
         assertThat(error).isNotNull();
@@ -44,7 +46,7 @@ class ErrorRepositoryContainersTest extends AbstractContainersIntegrationTest {
     @Test
     void saveTwoErrors_withSameKeys_AndGetDuplicateKeyException() {
         ErrorEntity testError1 = TestErrorDomainBuilder.anErrorDomain()
-                .withId("key_" + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID()).build();
         ErrorEntity testError2 = TestErrorDomainBuilder.anErrorDomain()
                 .withId(testError1.getId()).build();
 
@@ -57,8 +59,8 @@ class ErrorRepositoryContainersTest extends AbstractContainersIntegrationTest {
     @Test
     void saveConversion_withTooLongFields_InPostgreSQLDB_AndGetBadSqlGrammarException() {
         ErrorEntity testError1 = TestErrorDomainBuilder.anErrorDomain()
-                .withId("__________________________________________________________________________________key_"
-                        + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID())
+                .withDetails("_".repeat(5000)).build();
         var error1Mono = errorRepository.save(testError1);
         assertThatThrownBy(error1Mono::block).isInstanceOf(BadSqlGrammarException.class);
 
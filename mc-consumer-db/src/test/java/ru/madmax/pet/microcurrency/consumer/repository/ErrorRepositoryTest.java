@@ -13,6 +13,8 @@ import reactor.test.StepVerifier;
 import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
 import ru.madmax.pet.microcurrency.consumer.model.TestErrorDomainBuilder;
 
+import java.util.UUID;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -26,7 +28,7 @@ class ErrorRepositoryTest {
     @Test
     void saveError_AndFindIt() {
         ErrorEntity errorEntity = TestErrorDomainBuilder.anErrorDomain()
-                .withId("key_" + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID()).build();
         ErrorEntity error = errorRepository.save(errorEntity).block();
 
         assertThat(error).isNotNull();
@@ -45,7 +47,7 @@ class ErrorRepositoryTest {
     @Test
     void saveTwoErrors_withSameKeys_AndGetDuplicateKeyException() {
         ErrorEntity testError1 = TestErrorDomainBuilder.anErrorDomain()
-                .withId("key_" + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID()).build();
         ErrorEntity testError2 = TestErrorDomainBuilder.anErrorDomain()
                 .withId(testError1.getId()).build();
 
@@ -58,8 +60,8 @@ class ErrorRepositoryTest {
     @Test
     void saveError_withTooLongFields_InH2DB_AndGetUncategorizedR2dbcException() {
         ErrorEntity testError1 = TestErrorDomainBuilder.anErrorDomain()
-                .withId("__________________________________________________________________________________key_"
-                        + System.currentTimeMillis()).build();
+                .withId(UUID.randomUUID())
+                .withDetails("_".repeat(5000)).build();
         var error1Mono = errorRepository.save(testError1);
         assertThatThrownBy(error1Mono::block).isInstanceOf(UncategorizedR2dbcException.class);
 
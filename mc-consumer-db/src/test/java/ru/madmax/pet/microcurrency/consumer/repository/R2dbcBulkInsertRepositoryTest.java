@@ -0,0 +1,114 @@
+package ru.madmax.pet.microcurrency.consumer.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
+import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
+import ru.madmax.pet.microcurrency.consumer.model.TestConversionEntityBuilder;
+import ru.madmax.pet.microcurrency.consumer.model.TestErrorDomainBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataR2dbcTest
+@ActiveProfiles("test")
+@Import(R2dbcBulkInsertRepository.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Tag("EmbeddedKafka+H2")
+class R2dbcBulkInsertRepositoryTest {
+    final BulkInsertRepository bulkInsertRepository;
+    final ConversionRepository conversionRepository;
+    final ErrorRepository errorRepository;
+
+    @Test
+    void insertConversions_AndFindThemAll() {
+        List<ConversionEntity> conversions = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            conversions.add(TestConversionEntityBuilder.aConversionEntity()
+                    .withId(UUID.randomUUID())
+                    .withBaseAmount(new BigDecimal(i + 1))
+                    .build());
+
+        StepVerifier.create(bulkInsertRepository.insertConversions(conversions))
+                .expectNext(10L)
+                .expectComplete()
+                .verify();
+
+        for (var conversion : conversions) {
+            var conversionDB = conversionRepository.findById(conversion.getId()).block();
+            assertThat(conversionDB).isNotNull();
+            assertThat(conversionDB.getBase()).isEqualTo(conversion.getBase());
+            assertThat(conversionDB.getConvert()).isEqualTo(conversion.getConvert());
+            assertThat(conversionDB.getBaseAmount()).isEqualByComparingTo(conversion.getBaseAmount());
+            assertThat(conversionDB.getConversionAmount()).isEqualByComparingTo(conversion.getConversionAmount());
+            assertThat(conversionDB.getSourceId()).isEqualTo(conversion.getSourceId());
+        }
+    }
+
+    @Test
+    void insertErrors_AndFindThemAll() {
+        List<ErrorEntity> errors = List.of(
+                TestErrorDomainBuilder.anErrorDomain().withId(UUID.randomUUID()).build(),
+                TestErrorDomainBuilder.anErrorDomain().withId(UUID.randomUUID()).build());
+
+        StepVerifier.create(bulkInsertRepository.insertErrors(errors))
+                .expectNext(2L)
+                .expectComplete()
+                .verify();
+
+        assertThat(errorRepository.findById(errors.get(0).getId()).block()).isEqualTo(errors.get(0));
+        assertThat(errorRepository.findById(errors.get(1).getId()).block()).isEqualTo(errors.get(1));
+    }
+
+    @Test
+    void insertConversions_withDuplicateKeyInBatch_AndGetDuplicateKeyException_AndNothingInserted() {
+        var key = UUID.randomUUID();
+        var uniqueKey = UUID.randomUUID();
+        var conversions = List.of(
+                TestConversionEntityBuilder.aConversionEntity().withId(uniqueKey).build(),
+                TestConversionEntityBuilder.aConversionEntity().withId(key).build(),
+                TestConversionEntityBuilder.aConversionEntity().withId(key).build());
+
+        var insertMono = bulkInsertRepository.insertConversions(conversions);
+        assertThatThrownBy(insertMono::block).isInstanceOf(DuplicateKeyException.class);
+        assertThat(conversionRepository.findById(uniqueKey).block()).isNull();
+    }
+
+    @Test
+    void insertConversions_withAmountTooLargeForColumn_AndGetNonTransientException() {
+        // 10 000 000 USD -> RUB не влезает в conversion_amount DECIMAL(12,4)
+        var conversion = TestConversionEntityBuilder.aConversionEntity()
+                .withId(UUID.randomUUID())
+                .withBaseAmount(new BigDecimal("10000000"))
+                .withConvertAmount(new BigDecimal("641824000.0000"))
+                .build();
+
+        var insertMono = bulkInsertRepository.insertConversions(List.of(conversion));
+        assertThatThrownBy(insertMono::block)
+                .isInstanceOf(NonTransientDataAccessException.class)
+                .isNotInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(conversionRepository.findById(conversion.getId()).block()).isNull();
+    }
+
+    @Test
+    void insertEmptyList_AndGetZero() {
+        StepVerifier.create(bulkInsertRepository.insertConversions(List.of()))
+                .expectNext(0L)
+                .expectComplete()
+                .verify();
+    }
+}
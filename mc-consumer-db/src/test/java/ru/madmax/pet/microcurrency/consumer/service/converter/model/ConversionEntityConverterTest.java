@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import ru.madmax.pet.microcurrency.consumer.model.TestConversionEntityBuilder;
 import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
 
+import java.util.UUID;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class ConversionEntityConverterTest {
@@ -18,11 +20,12 @@ class ConversionEntityConverterTest {
     @Test
     void checkConvert() {
         var conversion = TestConversionBuilder.aConversion().build();
+        var key = UUID.randomUUID();
         var exceptedConversionEntity = TestConversionEntityBuilder.aConversionEntity()
-                .withId("test-key")
+                .withId(key)
                 .build();
 
-        var convertedConversionDomain = conversionEntityConverter.convert("test-key", conversion);
+        var convertedConversionDomain = conversionEntityConverter.convert(key.toString(), conversion);
         assertThat(convertedConversionDomain).isNotNull();
 
         assertThat(convertedConversionDomain.getId()).isEqualTo(exceptedConversionEntity.getId());
@@ -2,9 +2,13 @@ package ru.madmax.pet.microcurrency.consumer.service.converter.model;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.madmax.pet.microcurrency.consumer.exception.AppConsumerException;
 import ru.madmax.pet.microcurrency.consumer.model.TestErrorDomainBuilder;
 
+import java.util.UUID;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ErrorEntityConverterTest {
     ErrorEntityConverter errorEntityConverter;
@@ -17,11 +21,18 @@ class ErrorEntityConverterTest {
     @Test
     void checkConvert() {
         var error = "Error presentation";
-        var key = "error-key";
+        var key = UUID.randomUUID();
         var exceptedErrorDomain = TestErrorDomainBuilder.anErrorDomain().withId(key).withDetails(error).build();
 
-        var convertedErrorDomain = errorEntityConverter.convert(key, error);
+        var convertedErrorDomain = errorEntityConverter.convert(key.toString(), error);
         assertThat(convertedErrorDomain).isNotNull();
         assertThat(convertedErrorDomain).usingRecursiveComparison().isEqualTo(exceptedErrorDomain);
     }
-}
\ No newline at end of file
+
+    @Test
+    void convert_WithKeyThatIsNotUuid_AndGetAppConsumerException() {
+        assertThatThrownBy(() -> errorEntityConverter.convert("error-key", "Error presentation"))
+                .isInstanceOf(AppConsumerException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+}
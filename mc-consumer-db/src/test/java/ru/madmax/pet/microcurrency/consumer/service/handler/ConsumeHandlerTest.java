@@ -3,12 +3,22 @@ package ru.madmax.pet.microcurrency.consumer.service.handler;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.R2dbcBadGrammarException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.r2dbc.BadSqlGrammarException;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 import ru.madmax.pet.microcurrency.common.model.Conversion;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
 import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
@@ -19,14 +29,18 @@ import ru.madmax.pet.microcurrency.consumer.model.ErrorEntity;
 import ru.madmax.pet.microcurrency.consumer.model.TestErrorDomainBuilder;
 import ru.madmax.pet.microcurrency.consumer.model.TestConversionEntityBuilder;
 import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
-import ru.madmax.pet.microcurrency.consumer.repository.ErrorRepository;
-import ru.madmax.pet.microcurrency.consumer.repository.ConversionRepository;
+import ru.madmax.pet.microcurrency.consumer.service.ConversionPersistence;
+import ru.madmax.pet.microcurrency.consumer.service.ErrorPersistence;
 import ru.madmax.pet.microcurrency.consumer.service.LogService;
 import ru.madmax.pet.microcurrency.consumer.service.converter.model.ModelConverter;
 
+import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.*;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -39,10 +53,10 @@ class ConsumeHandlerTest {
     ConsumeHandler consumeHandler;
 
     @Mock
-    ConversionRepository conversionRepository;
+    ConversionPersistence conversionPersistence;
 
     @Mock
-    ErrorRepository errorRepository;
+    ErrorPersistence errorPersistence;
 
     @Mock
     ModelConverter<String, Conversion, ConversionEntity> conversionEntityConverter;
@@ -59,22 +73,24 @@ class ConsumeHandlerTest {
     @Mock
     SourceCacheStub sourceCache;
 
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-    @Mock
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @Mock
     ObjectMapper objectMapper;
 
 
-    final String CURRENCY_KEY = "test_handler_currency_key";
-    final String ERROR_KEY = "test_handler_error_key";
+    final String CURRENCY_KEY = "0190a3b4-5c6d-7e8f-9a0b-000000000001";
+    final String ERROR_KEY = "0190a3b4-5c6d-7e8f-9a0b-000000000002";
 
     @BeforeEach
     void setUp() {
         consumeHandler = new ConsumeHandler(
-                conversionRepository,
-                errorRepository,
+                conversionPersistence,
+                errorPersistence,
                 conversionEntityConverter,
                 errorEntityConverter,
                 objectMapper,
@@ -82,16 +98,17 @@ class ConsumeHandlerTest {
                 consumerHook,
                 successfulCompletionHook,
                 errorCompletionHook,
-                sourceCache
+                sourceCache,
+                new ConsumeMetrics(meterRegistry)
         );
     }
 
     @Test
     void handleCurrencyType_AndRepositoryAndConverterInvokes_AndCheckLog()
             throws InterruptedException, JsonProcessingException {
-        var conversionEntity = TestConversionEntityBuilder.aConversionEntity().withId(CURRENCY_KEY).build();
+        var conversionEntity = TestConversionEntityBuilder.aConversionEntity().withId(UUID.fromString(CURRENCY_KEY)).build();
         when(conversionEntityConverter.convert(anyString(), any(Conversion.class))).thenReturn(conversionEntity);
-        when(conversionRepository.save(conversionEntity)).thenAnswer(invocation ->
+        when(conversionPersistence.save(conversionEntity)).thenAnswer(invocation ->
                 Mono.just(conversionEntity).delayElement(Duration.ofMillis(50)));
         when(sourceCache.getIdBySource(anyString())).thenReturn(5L);
 
@@ -110,7 +127,7 @@ class ConsumeHandlerTest {
 
         consumeHandler.accept(CURRENCY_KEY, message);
 
-        verify(conversionRepository, times(1)).save(any(ConversionEntity.class));
+        verify(conversionPersistence, times(1)).save(any(ConversionEntity.class));
         verify(errorEntityConverter, never()).convert(anyString(), anyString());
         verify(consumerHook, times(1)).accept(CURRENCY_KEY, message);
         verify(sourceCache, times(1)).getIdBySource(conversion.getSource());
@@ -119,17 +136,62 @@ class ConsumeHandlerTest {
         if (!handleSuccess)
             throw new AppConsumerException(new RuntimeException("Can't handle result"));
         verify(conversionEntityConverter, times(1)).convert(eq(CURRENCY_KEY), any(Conversion.class));
-        verify(errorRepository, never()).save(any(ErrorEntity.class));
+        verify(errorPersistence, never()).saveError(any(ErrorEntity.class));
 
         verify(successfulCompletionHook, times(1)).accept(eq(CURRENCY_KEY), anyString());
         verify(errorCompletionHook, never()).accept(anyString(), any());
     }
 
+    @Test
+    void handleCurrencyType_WithTypedConversion_AndSkipJsonParsing() throws InterruptedException, JsonProcessingException {
+        var conversionEntity = TestConversionEntityBuilder.aConversionEntity().withId(UUID.fromString(CURRENCY_KEY)).build();
+        var conversion = TestConversionBuilder.aConversion().build();
+        when(conversionEntityConverter.convert(CURRENCY_KEY, conversion)).thenReturn(conversionEntity);
+        when(conversionPersistence.save(conversionEntity)).thenReturn(Mono.just(conversionEntity));
+        when(sourceCache.getIdBySource(anyString())).thenReturn(5L);
+
+        var message = TestMessageDTOBuilder.aMessageDTO()
+                .withType(CURRENCY)
+                .withMessage(null)
+                .withConversion(conversion)
+                .build();
+        CountDownLatch handlerBarrier = new CountDownLatch(1);
+        doAnswer(inv -> {
+            handlerBarrier.countDown();
+            return null;
+        }).when(successfulCompletionHook).accept(CURRENCY_KEY, conversion.toString());
+
+        consumeHandler.handle(CURRENCY_KEY, message).block();
+
+        assertThat(handlerBarrier.await(1, TimeUnit.SECONDS)).isTrue();
+        verify(objectMapper, never()).readValue(anyString(), any(Class.class));
+        verify(conversionPersistence, times(1)).save(conversionEntity);
+    }
+
+    @Test
+    void handleWithOriginTimestamp_AfterPersisting_RecordsPersistAndEndToEndTimers() {
+        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(UUID.fromString(ERROR_KEY)).build();
+        when(errorEntityConverter.convert(anyString(), anyString())).thenReturn(errorDomain);
+        when(errorPersistence.saveError(errorDomain)).thenReturn(Mono.just(errorDomain));
+
+        var message = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
+        consumeHandler.handle(ERROR_KEY, message, System.currentTimeMillis() - 5000).block();
+
+        var persistTimer = meterRegistry.get("mc.consumer.persist")
+                .tag("type", "error")
+                .tag("outcome", "success")
+                .timer();
+        assertThat(persistTimer.count()).isEqualTo(1);
+        var endToEndTimer = meterRegistry.get("mc.consumer.end-to-end").tag("type", "error").timer();
+        assertThat(endToEndTimer.count()).isEqualTo(1);
+        assertThat(endToEndTimer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5000);
+    }
+
     @Test
     void handleErrorType_AndRepositoryAndConverterInvokes_AndCheckLog() throws InterruptedException {
-        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(ERROR_KEY).build();
+        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(UUID.fromString(ERROR_KEY)).build();
         when(errorEntityConverter.convert(anyString(), anyString())).thenReturn(errorDomain);
-        when(errorRepository.save(errorDomain)).thenAnswer(invocation ->
+        when(errorPersistence.saveError(errorDomain)).thenAnswer(invocation ->
                 Mono.just(errorDomain).delayElement(Duration.ofMillis(50)));
 
         CountDownLatch handlerBarrier = new CountDownLatch(1);
@@ -141,7 +203,7 @@ class ConsumeHandlerTest {
         var  message = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
         consumeHandler.accept(ERROR_KEY, message);
 
-        verify(conversionRepository, never()).save(any(ConversionEntity.class));
+        verify(conversionPersistence, never()).save(any(ConversionEntity.class));
         verify(errorEntityConverter, times(1)).convert(anyString(), anyString());
         verify(consumerHook, times(1)).accept(ERROR_KEY, message);
 
@@ -150,7 +212,7 @@ class ConsumeHandlerTest {
             throw new AppConsumerException(new RuntimeException("Can't handle result"));
 
         verify(conversionEntityConverter, never()).convert(eq(CURRENCY_KEY), any(Conversion.class));
-        verify(errorRepository, times(1)).save(any(ErrorEntity.class));
+        verify(errorPersistence, times(1)).saveError(any(ErrorEntity.class));
 
         verify(successfulCompletionHook, never()).accept(anyString(), anyString());
         verify(errorCompletionHook, times(1)).accept(eq(ERROR_KEY), any());
@@ -172,4 +234,188 @@ class ConsumeHandlerTest {
         verify(errorCompletionHook, never()).accept(eq(CURRENCY_KEY), any(JsonParseException.class));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void handle_WithWrongCurrencyStructure_CompletesEmpty_AndLogsError() throws JsonProcessingException {
+        doThrow(new JsonParseException("test-error")).when(objectMapper).readValue(anyString(), any(Class.class));
+
+        var  message = TestMessageDTOBuilder.aMessageDTO().withType(CURRENCY).build();
+        StepVerifier.create(consumeHandler.handle(CURRENCY_KEY, message))
+                .expectComplete()
+                .verify();
+
+        verify(conversionPersistence, never()).save(any(ConversionEntity.class));
+        verify(successfulCompletionHook, never()).accept(anyString(), anyString());
+        verify(errorCompletionHook, times(1)).accept(eq(CURRENCY_KEY), any(AppConsumerException.class));
+        verify(logService, times(1)).error(eq(CURRENCY_KEY), anyString());
+    }
+
+    @Test
+    void handle_WithPersistenceError_PropagatesError() {
+        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(UUID.fromString(ERROR_KEY)).build();
+        when(errorEntityConverter.convert(anyString(), anyString())).thenReturn(errorDomain);
+        when(errorPersistence.saveError(errorDomain)).thenReturn(Mono.error(new DataAccessResourceFailureException("test-error")));
+
+        var message = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
+        StepVerifier.create(consumeHandler.handle(ERROR_KEY, message))
+                .expectError(DataAccessResourceFailureException.class)
+                .verify();
+
+        verify(errorCompletionHook, times(1)).accept(eq(ERROR_KEY), any(DataAccessResourceFailureException.class));
+    }
+
+    @Test
+    void handle_WithAmountTooLargeForColumn_CompletesEmpty_AndReportsError() throws JsonProcessingException {
+        var conversionEntity = TestConversionEntityBuilder.aConversionEntity()
+                .withId(UUID.fromString(CURRENCY_KEY))
+                .withBaseAmount(new BigDecimal("10000000"))
+                .withConvertAmount(new BigDecimal("641824000.0000"))
+                .build();
+        when(conversionEntityConverter.convert(anyString(), any(Conversion.class))).thenReturn(conversionEntity);
+        when(objectMapper.readValue(anyString(), any(Class.class))).thenReturn(TestConversionBuilder.aConversion().build());
+        // так r2dbc-postgresql и Spring переводят SQLState 22003 (numeric value out of range)
+        when(conversionPersistence.save(conversionEntity)).thenReturn(Mono.error(new BadSqlGrammarException(
+                "insert", "INSERT INTO conversion", new R2dbcBadGrammarException("numeric field overflow", "22003"))));
+
+        var message = TestMessageDTOBuilder.aMessageDTO().withType(CURRENCY).build();
+        StepVerifier.create(consumeHandler.handle(CURRENCY_KEY, message))
+                .expectComplete()
+                .verify();
+
+        verify(successfulCompletionHook, never()).accept(anyString(), anyString());
+        verify(errorCompletionHook, times(1)).accept(eq(CURRENCY_KEY), any(BadSqlGrammarException.class));
+        verify(logService, times(1)).error(eq(CURRENCY_KEY), anyString());
+    }
+
+    @Test
+    void handle_WithTransientPersistenceError_PropagatesError() {
+        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(UUID.fromString(ERROR_KEY)).build();
+        when(errorEntityConverter.convert(anyString(), anyString())).thenReturn(errorDomain);
+        when(errorPersistence.saveError(errorDomain)).thenReturn(Mono.error(new QueryTimeoutException("test-error")));
+
+        var message = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
+        StepVerifier.create(consumeHandler.handle(ERROR_KEY, message))
+                .expectError(QueryTimeoutException.class)
+                .verify();
+    }
+
+    @Test
+    void handle_WithDuplicateKey_CompletesEmpty_AsAlreadyPersisted() {
+        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(UUID.fromString(ERROR_KEY)).build();
+        when(errorEntityConverter.convert(anyString(), anyString())).thenReturn(errorDomain);
+        when(errorPersistence.saveError(errorDomain)).thenReturn(Mono.error(new DuplicateKeyException("test-error")));
+
+        var message = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
+        StepVerifier.create(consumeHandler.handle(ERROR_KEY, message))
+                .expectComplete()
+                .verify();
+
+        verify(errorCompletionHook, never()).accept(anyString(), any());
+        verify(logService, never()).error(anyString(), anyString());
+    }
+
+    @Test
+    void handleBatch_WithPersistenceError_FailsWithIndexOfFailedRecord() {
+        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(UUID.fromString(ERROR_KEY)).build();
+        when(errorEntityConverter.convert(anyString(), anyString())).thenReturn(errorDomain);
+        when(errorPersistence.saveError(errorDomain))
+                .thenReturn(Mono.just(errorDomain))
+                .thenReturn(Mono.error(new DataAccessResourceFailureException("test-error")))
+                .thenReturn(Mono.just(errorDomain));
+
+        var errorMessage = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
+        StepVerifier.create(consumeHandler.acceptAll(List.of(
+                        new ConsumerRecord<>("test-topic", 0, 0L, ERROR_KEY, errorMessage),
+                        new ConsumerRecord<>("test-topic", 0, 1L, ERROR_KEY, errorMessage),
+                        new ConsumerRecord<>("test-topic", 0, 2L, ERROR_KEY, errorMessage))))
+                .expectErrorSatisfies(error -> {
+                    assertThat(error).isInstanceOf(BatchListenerFailedException.class);
+                    assertThat(((BatchListenerFailedException) error).getIndex()).isEqualTo(1);
+                    assertThat(error.getCause()).isInstanceOf(DataAccessResourceFailureException.class);
+                })
+                .verify(Duration.ofSeconds(1));
+
+        verify(errorPersistence, times(3)).saveError(any(ErrorEntity.class));
+    }
+
+    @Test
+    void handleBatch_WithRecordTooLargeForColumn_SkipsIt_AndCompletesWithoutRedelivery() {
+        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(UUID.fromString(ERROR_KEY)).build();
+        when(errorEntityConverter.convert(anyString(), anyString())).thenReturn(errorDomain);
+        when(errorPersistence.saveError(errorDomain))
+                .thenReturn(Mono.just(errorDomain))
+                .thenReturn(Mono.error(new BadSqlGrammarException("insert", "INSERT INTO error",
+                        new R2dbcBadGrammarException("value too long for type character varying(4096)", "22001"))))
+                .thenReturn(Mono.just(errorDomain));
+
+        var errorMessage = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
+        StepVerifier.create(consumeHandler.acceptAll(List.of(
+                        new ConsumerRecord<>("test-topic", 0, 0L, ERROR_KEY, errorMessage),
+                        new ConsumerRecord<>("test-topic", 0, 1L, ERROR_KEY, errorMessage),
+                        new ConsumerRecord<>("test-topic", 0, 2L, ERROR_KEY, errorMessage))))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        verify(errorPersistence, times(3)).saveError(any(ErrorEntity.class));
+        verify(errorCompletionHook, times(1)).accept(eq(ERROR_KEY), any(BadSqlGrammarException.class));
+    }
+
+    @Test
+    void handleBatch_WithCurrencyErrorAndWrongRecords_PersistsValidRecords_AndSkipsWrongOne()
+            throws InterruptedException, JsonProcessingException {
+        var conversionEntity = TestConversionEntityBuilder.aConversionEntity().withId(UUID.fromString(CURRENCY_KEY)).build();
+        when(conversionEntityConverter.convert(anyString(), any(Conversion.class))).thenReturn(conversionEntity);
+        when(conversionPersistence.save(conversionEntity)).thenAnswer(invocation ->
+                Mono.just(conversionEntity).delayElement(Duration.ofMillis(50)));
+        when(sourceCache.getIdBySource(anyString())).thenReturn(5L);
+
+        var errorDomain = TestErrorDomainBuilder.anErrorDomain().withId(UUID.fromString(ERROR_KEY)).build();
+        when(errorEntityConverter.convert(anyString(), anyString())).thenReturn(errorDomain);
+        when(errorPersistence.saveError(errorDomain)).thenAnswer(invocation ->
+                Mono.just(errorDomain).delayElement(Duration.ofMillis(50)));
+
+        var conversion = TestConversionBuilder.aConversion().build();
+        final String wrongMessage = "wrong-structure";
+        when(objectMapper.readValue(anyString(), any(Class.class))).thenAnswer(invocation -> {
+            if (wrongMessage.equals(invocation.getArgument(0)))
+                throw new JsonParseException("test-error");
+            return conversion;
+        });
+
+        var currencyMessage = TestMessageDTOBuilder.aMessageDTO().withType(CURRENCY).build();
+        var errorMessage = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
+        var wrongCurrencyMessage = TestMessageDTOBuilder.aMessageDTO()
+                .withType(CURRENCY)
+                .withMessage(wrongMessage)
+                .build();
+
+        CountDownLatch handlerBarrier = new CountDownLatch(3);
+        doAnswer(inv -> {
+            handlerBarrier.countDown();
+            return null;
+        }).when(successfulCompletionHook).accept(anyString(), anyString());
+        doAnswer(inv -> {
+            handlerBarrier.countDown();
+            return null;
+        }).when(errorCompletionHook).accept(anyString(), any());
+
+        consumeHandler.acceptAll(List.of(
+                new ConsumerRecord<>("test-topic", 0, 0L, CURRENCY_KEY, currencyMessage),
+                new ConsumerRecord<>("test-topic", 0, 1L, "wrong_key", wrongCurrencyMessage),
+                new ConsumerRecord<>("test-topic", 0, 2L, ERROR_KEY, errorMessage)))
+                .block(Duration.ofSeconds(1));
+
+        var handleSuccess = handlerBarrier.await(1, TimeUnit.SECONDS);
+        if (!handleSuccess)
+            throw new AppConsumerException(new RuntimeException("Can't handle result"));
+
+        verify(consumerHook, times(3)).accept(anyString(), any(MessageDTO.class));
+        verify(conversionPersistence, times(1)).save(any(ConversionEntity.class));
+        verify(errorPersistence, times(1)).saveError(any(ErrorEntity.class));
+
+        verify(successfulCompletionHook, times(1)).accept(eq(CURRENCY_KEY), anyString());
+        verify(errorCompletionHook, times(1)).accept(eq(ERROR_KEY), any());
+        verify(errorCompletionHook, times(1)).accept(eq("wrong_key"), any(AppConsumerException.class));
+        verify(logService, times(1)).error(eq("wrong_key"), anyString());
+    }
+}
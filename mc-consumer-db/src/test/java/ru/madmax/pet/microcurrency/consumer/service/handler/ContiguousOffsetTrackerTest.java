@@ -0,0 +1,48 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContiguousOffsetTrackerTest {
+
+    @Test
+    void nextCommittable_WithGap_StopsBeforeLowestIncompleteOffset() {
+        var tracker = new ContiguousOffsetTracker();
+        for (long offset = 10; offset < 15; offset++)
+            tracker.register(offset);
+
+        tracker.complete(10);
+        tracker.complete(12);
+        tracker.complete(13);
+
+        assertThat(tracker.nextCommittable()).isEqualTo(11);
+        assertThat(tracker.inProgress()).isEqualTo(2);
+    }
+
+    @Test
+    void nextCommittable_WhenGapIsClosed_MovesToNextAfterHighestOffset() {
+        var tracker = new ContiguousOffsetTracker();
+        tracker.register(0);
+        tracker.register(1);
+        tracker.register(2);
+        tracker.complete(2);
+        tracker.complete(1);
+
+        assertThat(tracker.nextCommittable()).isEqualTo(-1);
+
+        tracker.complete(0);
+        assertThat(tracker.nextCommittable()).isEqualTo(3);
+    }
+
+    @Test
+    void nextCommittable_WithoutProgress_ReturnsMinusOne() {
+        var tracker = new ContiguousOffsetTracker();
+        assertThat(tracker.nextCommittable()).isEqualTo(-1);
+
+        tracker.register(5);
+        tracker.complete(5);
+        assertThat(tracker.nextCommittable()).isEqualTo(6);
+        assertThat(tracker.nextCommittable()).isEqualTo(-1);
+    }
+}
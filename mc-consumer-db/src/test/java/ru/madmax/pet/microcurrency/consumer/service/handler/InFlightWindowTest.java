@@ -0,0 +1,75 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import ru.madmax.pet.microcurrency.consumer.service.LogService;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class})
+class InFlightWindowTest {
+    static final String LISTENER_ID = "test-listener";
+
+    @Mock
+    KafkaListenerEndpointRegistry registry;
+    @Mock
+    MessageListenerContainer container;
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    LogService logService;
+
+    InFlightWindow inFlightWindow;
+    final AtomicBoolean paused = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        inFlightWindow = new InFlightWindow(registry, logService, 4);
+        lenient().when(registry.getListenerContainer(LISTENER_ID)).thenReturn(container);
+        lenient().when(container.isPauseRequested()).thenAnswer(inv -> paused.get());
+        lenient().doAnswer(inv -> {
+            paused.set(true);
+            return null;
+        }).when(container).pause();
+        lenient().doAnswer(inv -> {
+            paused.set(false);
+            return null;
+        }).when(container).resume();
+    }
+
+    @Test
+    void acquireUpToCapacity_AndPauseContainerOnce() {
+        for (int i = 0; i < 3; i++)
+            inFlightWindow.acquire(LISTENER_ID);
+        verify(container, never()).pause();
+
+        inFlightWindow.acquire(LISTENER_ID);
+        inFlightWindow.acquire(LISTENER_ID);
+
+        assertThat(inFlightWindow.inFlight()).isEqualTo(5);
+        verify(container, times(1)).pause();
+    }
+
+    @Test
+    void releaseDownToHalfCapacity_AndResumeContainer() {
+        for (int i = 0; i < 4; i++)
+            inFlightWindow.acquire(LISTENER_ID);
+
+        inFlightWindow.release(LISTENER_ID);
+        verify(container, never()).resume();
+
+        inFlightWindow.release(LISTENER_ID);
+        assertThat(inFlightWindow.inFlight()).isEqualTo(2);
+        verify(container, times(1)).resume();
+
+        inFlightWindow.release(LISTENER_ID);
+        verify(container, times(1)).resume();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.madmax.pet.microcurrency.consumer.service.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyLanesTest {
+    KeyLanes keyLanes = new KeyLanes(8);
+
+    @AfterEach
+    void tearDown() {
+        keyLanes.shutdown();
+    }
+
+    @Test
+    void submit_WithSameKey_RunsTasksInSubmissionOrder() throws InterruptedException {
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        var done = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            final int number = i;
+            // первая задача самая долгая: без упорядочивания она завершилась бы последней
+            keyLanes.submit("key",
+                    () -> Mono.delay(Duration.ofMillis(50L - number * 10L))
+                            .doOnNext(tick -> executed.add(number))
+                            .then(),
+                    done::countDown);
+        }
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).containsExactly(0, 1, 2, 3, 4);
+        assertThat(keyLanes.activeKeys()).isZero();
+    }
+
+    @Test
+    void submit_WithDifferentKeys_RunsTasksInParallel() throws InterruptedException {
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            keyLanes.submit("key-" + i,
+                    () -> Mono.fromRunnable(() -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                            .then(Mono.delay(Duration.ofMillis(200)))
+                            .doFinally(signal -> running.decrementAndGet())
+                            .then(),
+                    done::countDown);
+        }
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isGreaterThan(1);
+    }
+
+    @Test
+    void submit_WhenTaskFails_NextTaskOfKeyStillRuns() throws InterruptedException {
+        var done = new CountDownLatch(2);
+        var secondExecuted = new AtomicInteger();
+
+        keyLanes.submit("key", () -> Mono.error(new RuntimeException("test")), done::countDown);
+        keyLanes.submit("key", () -> Mono.fromRunnable(secondExecuted::incrementAndGet), done::countDown);
+
+        assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(secondExecuted.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,186 @@
+package ru.madmax.pet.microcurrency.consumer.service.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.mockito.Answers;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
+import ru.madmax.pet.microcurrency.common.model.TestMessageDTOBuilder;
+import ru.madmax.pet.microcurrency.consumer.configuration.ConsumerBarrierReady;
+import ru.madmax.pet.microcurrency.consumer.configuration.KafkaConfiguration;
+import ru.madmax.pet.microcurrency.consumer.exception.AppConsumerException;
+import ru.madmax.pet.microcurrency.consumer.service.ConversionBatchListenerService;
+import ru.madmax.pet.microcurrency.consumer.service.ConversionKafkaBatchListenerService;
+import ru.madmax.pet.microcurrency.consumer.service.ConversionKafkaListenerService;
+import ru.madmax.pet.microcurrency.consumer.service.LogService;
+import ru.madmax.pet.microcurrency.consumer.service.handler.ConsumeHandler;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PartitionOffsets;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({SpringExtension.class, MockitoExtension.class})
+@ActiveProfiles("test")
+@EnableConfigurationProperties
+@TestPropertySource(properties = {
+        "spring.kafka.properties.isolation.level=read_committed",
+        "spring.kafka.client-id=consumer-batch-tester",
+        "spring.kafka.topic.name=test-batch-topic",
+        "spring.kafka.replication.factor=1",
+        "spring.kafka.partition.number=1",
+        "spring.kafka.consumer.group-id=mw-group-db-batch",
+        "app.consumer.batch.enabled=true",
+        "app.consumer.poll.records=50",
+        "app.consumer.poll.idle=0",
+        "app.consumer.retry.backoff=50"
+})
+@ContextConfiguration(classes = {
+        ObjectMapper.class,
+        ConsumerBarrierReady.class,
+        KafkaProperties.class,
+        KafkaConfiguration.class,
+        PartitionOffsets.class,
+        ConversionKafkaProducerTestConfiguration.class,
+        ConsumeHandler.class,
+        ConversionKafkaListenerService.class,
+        ConversionKafkaBatchListenerService.class
+})
+@EmbeddedKafka(
+        bootstrapServersProperty = "${spring.kafka.bootstrap-servers}",
+        topics = "${spring.kafka.topic.name}"
+)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Tag("EmbeddedKafka+H2")
+class ConversionKafkaBatchListenerServiceTest {
+    @Value("${spring.kafka.topic.name}")
+    String testTopic;
+
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
+    LogService logService;
+
+    @MockBean
+    ConsumeHandler consumeHandler;
+
+    final ObjectMapper objectMapper;
+    final KafkaTemplate<String, MessageDTO> kafkaTemplate;
+    final ConversionBatchListenerService conversionBatchListenerService;
+    final ObjectProvider<ConversionKafkaListenerService> recordListenerService;
+    final ConsumerBarrierReady consumerBarrierReady;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        var waitingResult = consumerBarrierReady.await(30, TimeUnit.SECONDS);
+        if (!waitingResult)
+            throw new AppConsumerException(new RuntimeException("Kafka is not ready"));
+    }
+
+    @Test
+    void sendManyMessages_AndConsumeThemInBatches_AndCheckAllRecordsPassedToHandler_AndCountLogs()
+            throws JsonProcessingException, InterruptedException {
+        assertThat(recordListenerService.getIfAvailable()).isNull();
+
+        var count = 100;
+        var keyPrefix = "batch-test-consumer-";
+        doNothing().when(logService).info(anyString(), anyString());
+
+        Set<String> receivedKeys = ConcurrentHashMap.newKeySet();
+        AtomicInteger batchCount = new AtomicInteger();
+        CountDownLatch receiveBarrier = new CountDownLatch(count);
+        doAnswer(inv -> {
+            List<ConsumerRecord<String, MessageDTO>> records = inv.getArgument(0);
+            batchCount.incrementAndGet();
+            records.forEach(consumerRecord -> {
+                receivedKeys.add(consumerRecord.key());
+                receiveBarrier.countDown();
+            });
+            return Mono.empty();
+        }).when(consumeHandler).acceptAll(anyList());
+
+        for (int i = 0; i < count; i++) {
+            var conversion = TestConversionBuilder.aConversion()
+                    .withBaseAmount(new BigDecimal(i + 1))
+                    .build();
+            var messageDTO = TestMessageDTOBuilder.aMessageDTO()
+                    .withMessage(objectMapper.writeValueAsString(conversion))
+                    .build();
+            kafkaTemplate.send(testTopic, keyPrefix + i, messageDTO);
+        }
+        kafkaTemplate.flush();
+
+        var receiveSuccess = receiveBarrier.await(10, TimeUnit.SECONDS);
+        assertThat(receiveSuccess).isTrue();
+
+        var expectedKeys = new HashSet<String>();
+        for (int i = 0; i < count; i++)
+            expectedKeys.add(keyPrefix + i);
+        assertThat(receivedKeys).isEqualTo(expectedKeys);
+        assertThat(batchCount.get()).isLessThan(count);
+
+        verify(consumeHandler, never()).accept(anyString(), any());
+        verify(logService, times(count)).info(anyString(), anyString());
+        verify(logService, never()).error(anyString(), anyString());
+    }
+
+    @Test
+    void failOnPersistingBatchRecord_AndCheckBatchIsRedeliveredFromFailedRecord()
+            throws JsonProcessingException, InterruptedException {
+        var key = "batch-test-failed-consumer";
+        AtomicInteger deliveries = new AtomicInteger();
+        CountDownLatch redeliveryBarrier = new CountDownLatch(2);
+        doAnswer(inv -> {
+            List<ConsumerRecord<String, MessageDTO>> records = inv.getArgument(0);
+            for (int i = 0; i < records.size(); i++) {
+                if (!key.equals(records.get(i).key()))
+                    continue;
+                var firstDelivery = deliveries.getAndIncrement() == 0;
+                redeliveryBarrier.countDown();
+                if (firstDelivery)
+                    return Mono.error(new BatchListenerFailedException("test-error",
+                            new DataAccessResourceFailureException("Database is unavailable"), i));
+            }
+            return Mono.empty();
+        }).when(consumeHandler).acceptAll(anyList());
+
+        var messageDTO = TestMessageDTOBuilder.aMessageDTO()
+                .withMessage(objectMapper.writeValueAsString(TestConversionBuilder.aConversion().build()))
+                .build();
+        kafkaTemplate.send(testTopic, key, messageDTO);
+        kafkaTemplate.flush();
+
+        // несохраненная запись не подтверждается и доставляется повторно
+        assertThat(redeliveryBarrier.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(deliveries.get()).isEqualTo(2);
+    }
+}
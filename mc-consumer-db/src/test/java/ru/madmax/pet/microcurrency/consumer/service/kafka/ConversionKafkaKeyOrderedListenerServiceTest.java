@@ -0,0 +1,208 @@
+package ru.madmax.pet.microcurrency.consumer.service.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
+import ru.madmax.pet.microcurrency.common.model.TestMessageDTOBuilder;
+import ru.madmax.pet.microcurrency.consumer.configuration.ConsumerBarrierReady;
+import ru.madmax.pet.microcurrency.consumer.configuration.KafkaConfiguration;
+import ru.madmax.pet.microcurrency.consumer.exception.AppConsumerException;
+import ru.madmax.pet.microcurrency.consumer.service.LogService;
+import ru.madmax.pet.microcurrency.consumer.service.Slf4JLogService;
+import ru.madmax.pet.microcurrency.consumer.service.ConversionKafkaKeyOrderedListenerService;
+import ru.madmax.pet.microcurrency.consumer.service.handler.ConsumeHandler;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PartitionOffsets;
+import ru.madmax.pet.microcurrency.consumer.service.handler.InFlightWindow;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PersistenceRetry;
+import ru.madmax.pet.microcurrency.consumer.service.handler.KeyLanes;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({SpringExtension.class, MockitoExtension.class})
+@ActiveProfiles("test")
+@EnableConfigurationProperties
+@TestPropertySource(properties = {
+        "spring.kafka.properties.isolation.level=read_committed",
+        "spring.kafka.client-id=consumer-tester",
+        "spring.kafka.topic.name=key-ordered-test-topic",
+        "spring.kafka.replication.factor=1",
+        "spring.kafka.partition.number=1",
+        "spring.kafka.consumer.group-id=mw-group-db-key-ordered",
+        "app.consumer.batch.enabled=false",
+        "app.consumer.key-ordered.enabled=true",
+        "app.consumer.key-ordered.commit-interval=200",
+        "app.consumer.retry.backoff=50"
+})
+@ContextConfiguration(classes = {
+        ObjectMapper.class,
+        ConsumerBarrierReady.class,
+        KafkaProperties.class,
+        KafkaConfiguration.class,
+        PartitionOffsets.class,
+        Slf4JLogService.class,
+        ConversionKafkaProducerTestConfiguration.class,
+        ConsumeHandler.class,
+        InFlightWindow.class,
+        PersistenceRetry.class,
+        KeyLanes.class,
+        ConversionKafkaKeyOrderedListenerService.class
+})
+@AutoConfigureWebTestClient
+@EmbeddedKafka(
+        bootstrapServersProperty = "${spring.kafka.bootstrap-servers}",
+        topics = "key-ordered-test-topic"
+)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Tag("EmbeddedKafka+H2")
+class ConversionKafkaKeyOrderedListenerServiceTest {
+    @Value("${spring.kafka.topic.name}")
+    String testTopic;
+
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
+    LogService logService;
+
+    @MockBean
+    ConsumeHandler consumeHandler;
+
+    @Captor
+    ArgumentCaptor<MessageDTO> messageCaptor;
+
+    final ObjectMapper objectMapper;
+    final KafkaTemplate<String, MessageDTO> kafkaTemplate;
+    final ConsumerFactory<String, MessageDTO> consumerFactory;
+    final ConsumerBarrierReady consumerBarrierReady;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        var waitingResult = consumerBarrierReady.await(30, TimeUnit.SECONDS);
+        if (!waitingResult)
+            throw new AppConsumerException(new RuntimeException("Kafka is not ready"));
+    }
+
+    @Test
+    void sendMessagesWithSameKey_AndCheckOrderPerKey_AndCommittedOffset()
+            throws JsonProcessingException, ExecutionException, InterruptedException, TimeoutException {
+        var count = 5;
+        var key = "key-ordered-consumer";
+        CountDownLatch handlerBarrier = new CountDownLatch(count);
+        AtomicInteger delay = new AtomicInteger(count);
+        doAnswer(inv -> {
+            // первые записи обрабатываются дольше последующих
+            return Mono.delay(java.time.Duration.ofMillis(delay.getAndDecrement() * 20L))
+                    .doFinally(signal -> handlerBarrier.countDown())
+                    .then();
+        }).when(consumeHandler).handle(anyString(), any(), any());
+
+        RecordMetadata lastMetadata = null;
+        for (int i = 0; i < count; i++) {
+            var conversion = TestConversionBuilder.aConversion()
+                    .withBaseAmount(new BigDecimal(i + 1))
+                    .build();
+            var messageDTO = TestMessageDTOBuilder.aMessageDTO()
+                    .withMessage(objectMapper.writeValueAsString(conversion))
+                    .build();
+            lastMetadata = kafkaTemplate.send(testTopic, key, messageDTO).get(5, TimeUnit.SECONDS)
+                    .getRecordMetadata();
+        }
+
+        assertThat(handlerBarrier.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(consumeHandler, times(count)).handle(eq(key), messageCaptor.capture(), any());
+        var amounts = messageCaptor.getAllValues().stream()
+                .map(MessageDTO::getMessage)
+                .toList();
+        for (int i = 0; i < count; i++)
+            assertThat(amounts.get(i)).contains("\"baseAmount\":" + (i + 1));
+
+        // все записи одного ключа лежат в одной партиции
+        var partition = new TopicPartition(testTopic, lastMetadata.partition());
+        final long expectedOffset = lastMetadata.offset() + 1;
+        try (var consumer = consumerFactory.createConsumer("mw-group-db-key-ordered", "offset-checker")) {
+            long deadline = System.currentTimeMillis() + 5_000;
+            OffsetAndMetadata committed = null;
+            while (System.currentTimeMillis() < deadline) {
+                committed = consumer.committed(Set.of(partition)).get(partition);
+                if (committed != null && committed.offset() == expectedOffset)
+                    break;
+                Thread.sleep(100);
+            }
+            assertThat(committed).isNotNull();
+            assertThat(committed.offset()).isEqualTo(expectedOffset);
+        }
+    }
+
+    @Test
+    void failOnPersisting_AndCheckRecordIsRetried_AndOffsetCommittedOnlyAfterSuccess()
+            throws JsonProcessingException, ExecutionException, InterruptedException, TimeoutException {
+        var key = "key-ordered-failed-consumer";
+        CountDownLatch handlerBarrier = new CountDownLatch(2);
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(inv -> {
+            handlerBarrier.countDown();
+            if (attempts.getAndIncrement() == 0)
+                return Mono.error(new DataAccessResourceFailureException("Database is unavailable"));
+            return Mono.empty();
+        }).when(consumeHandler).handle(eq(key), any(), any());
+
+        var messageDTO = TestMessageDTOBuilder.aMessageDTO()
+                .withMessage(objectMapper.writeValueAsString(TestConversionBuilder.aConversion().build()))
+                .build();
+        var metadata = kafkaTemplate.send(testTopic, key, messageDTO).get(5, TimeUnit.SECONDS)
+                .getRecordMetadata();
+
+        assertThat(handlerBarrier.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(consumeHandler, times(2)).handle(eq(key), any(), any());
+
+        // после повторного успешного сохранения запись коммитится
+        var partition = new TopicPartition(testTopic, metadata.partition());
+        final long expectedOffset = metadata.offset() + 1;
+        try (var consumer = consumerFactory.createConsumer("mw-group-db-key-ordered", "failed-offset-checker")) {
+            long deadline = System.currentTimeMillis() + 5_000;
+            OffsetAndMetadata committed = null;
+            while (System.currentTimeMillis() < deadline) {
+                committed = consumer.committed(Set.of(partition)).get(partition);
+                if (committed != null && committed.offset() == expectedOffset)
+                    break;
+                Thread.sleep(100);
+            }
+            assertThat(committed).isNotNull();
+            assertThat(committed.offset()).isEqualTo(expectedOffset);
+        }
+    }
+}
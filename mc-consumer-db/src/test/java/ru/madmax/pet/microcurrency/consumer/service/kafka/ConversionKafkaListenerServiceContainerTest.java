@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -20,6 +21,7 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.test.context.*;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
 import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
 import ru.madmax.pet.microcurrency.common.model.TestMessageDTOBuilder;
@@ -32,6 +34,9 @@ import ru.madmax.pet.microcurrency.consumer.service.Slf4JLogService;
 import ru.madmax.pet.microcurrency.consumer.service.ConversionKafkaListenerService;
 import ru.madmax.pet.microcurrency.consumer.service.ConversionListenerService;
 import ru.madmax.pet.microcurrency.consumer.service.handler.ConsumeHandler;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PartitionOffsets;
+import ru.madmax.pet.microcurrency.consumer.service.handler.InFlightWindow;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PersistenceRetry;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -61,9 +66,12 @@ import static org.mockito.Mockito.times;
         ConsumerBarrierReady.class,
         KafkaProperties.class,
         KafkaConfiguration.class,
+        PartitionOffsets.class,
         Slf4JLogService.class,
         ConversionKafkaProducerTestConfiguration.class,
         ConsumeHandler.class,
+        InFlightWindow.class,
+        PersistenceRetry.class,
         ConversionKafkaListenerService.class
 })
 @AutoConfigureWebTestClient
@@ -73,7 +81,7 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
     @Value("${spring.kafka.topic.name}")
     String testTopic;
 
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @MockBean
@@ -114,14 +122,14 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
         CountDownLatch senderBarrier = new CountDownLatch(1);
         doAnswer(inv -> {
             senderBarrier.countDown();
-            return null;
-        }).when(consumeHandler).accept(anyString(), any());
+            return Mono.empty();
+        }).when(consumeHandler).handle(anyString(), any(), any());
 
         var task = createKafkaSenderTask(testTopic, key, messageDTO, senderBarrier);
         service.submit(task).get();
 
 
-        verify(consumeHandler, times(1)).accept(keyCaptor.capture(), messageCaptor.capture());
+        verify(consumeHandler, times(1)).handle(keyCaptor.capture(), messageCaptor.capture(), any());
         assertThat(keyCaptor.getValue()).isEqualTo(key);
         assertThat(messageCaptor.getValue()).isEqualTo(messageDTO);
 
@@ -143,8 +151,8 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
         CountDownLatch senderBarrier = new CountDownLatch(1);
         doAnswer(inv -> {
             senderBarrier.countDown();
-            return null;
-        }).when(consumeHandler).accept(anyString(), any());
+            return Mono.empty();
+        }).when(consumeHandler).handle(anyString(), any(), any());
 
 
         var task = createKafkaSenderTask("wrong-topic", key, messageDTO, senderBarrier);
@@ -154,7 +162,7 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
 
         verify(logService, never()).info(anyString(), anyString());
         verify(logService, never()).error(anyString(), anyString());
-        verify(consumeHandler, never()).accept(keyCaptor.capture(), messageCaptor.capture());
+        verify(consumeHandler, never()).handle(keyCaptor.capture(), messageCaptor.capture(), any());
     }
 
     @Test
@@ -167,8 +175,8 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
         CountDownLatch senderBarrier = new CountDownLatch(concurrency);
         doAnswer(inv -> {
             senderBarrier.countDown();
-            return null;
-        }).when(consumeHandler).accept(anyString(), any());
+            return Mono.empty();
+        }).when(consumeHandler).handle(anyString(), any(), any());
 
 
         List<Callable<SendResult<String, MessageDTO>>> taskList = new ArrayList<>();
@@ -189,7 +197,7 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
         verify(logService, times(concurrency)).info(anyString(), anyString());
         verify(logService, never()).error(anyString(), anyString());
 
-        verify(consumeHandler, times(concurrency)).accept(keyCaptor.capture(), messageCaptor.capture());
+        verify(consumeHandler, times(concurrency)).handle(keyCaptor.capture(), messageCaptor.capture(), any());
 
         assertThat(new HashSet<>(keyCaptor.getAllValues())).hasSize(concurrency);
         assertThat(new HashSet<>(messageCaptor.getAllValues())).hasSize(concurrency);
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -23,6 +24,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
 import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
 import ru.madmax.pet.microcurrency.common.model.TestMessageDTOBuilder;
@@ -34,6 +36,9 @@ import ru.madmax.pet.microcurrency.consumer.service.Slf4JLogService;
 import ru.madmax.pet.microcurrency.consumer.service.ConversionKafkaListenerService;
 import ru.madmax.pet.microcurrency.consumer.service.ConversionListenerService;
 import ru.madmax.pet.microcurrency.consumer.service.handler.ConsumeHandler;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PartitionOffsets;
+import ru.madmax.pet.microcurrency.consumer.service.handler.InFlightWindow;
+import ru.madmax.pet.microcurrency.consumer.service.handler.PersistenceRetry;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -60,9 +65,12 @@ import static org.mockito.Mockito.*;
         ConsumerBarrierReady.class,
         KafkaProperties.class,
         KafkaConfiguration.class,
+        PartitionOffsets.class,
         Slf4JLogService.class,
         ConversionKafkaProducerTestConfiguration.class,
         ConsumeHandler.class,
+        InFlightWindow.class,
+        PersistenceRetry.class,
         ConversionKafkaListenerService.class
 })
 @AutoConfigureWebTestClient
@@ -76,7 +84,7 @@ class ConversionKafkaListenerServiceTest {
     @Value("${spring.kafka.topic.name}")
     String testTopic;
 
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @MockBean
@@ -117,14 +125,14 @@ class ConversionKafkaListenerServiceTest {
         CountDownLatch senderBarrier = new CountDownLatch(1);
         doAnswer(inv -> {
             senderBarrier.countDown();
-            return null;
-        }).when(consumeHandler).accept(anyString(), any());
+            return Mono.empty();
+        }).when(consumeHandler).handle(anyString(), any(), any());
 
         var task = createKafkaSenderTask(testTopic, key, messageDTO, senderBarrier);
         service.submit(task).get();
 
 
-        verify(consumeHandler, times(1)).accept(keyCaptor.capture(), messageCaptor.capture());
+        verify(consumeHandler, times(1)).handle(keyCaptor.capture(), messageCaptor.capture(), any());
         assertThat(keyCaptor.getValue()).isEqualTo(key);
         assertThat(messageCaptor.getValue()).isEqualTo(messageDTO);
 
@@ -146,8 +154,8 @@ class ConversionKafkaListenerServiceTest {
         CountDownLatch senderBarrier = new CountDownLatch(1);
         doAnswer(inv -> {
             senderBarrier.countDown();
-            return null;
-        }).when(consumeHandler).accept(anyString(), any());
+            return Mono.empty();
+        }).when(consumeHandler).handle(anyString(), any(), any());
 
 
         var task = createKafkaSenderTask("wrong-topic", key, messageDTO, senderBarrier);
@@ -157,7 +165,7 @@ class ConversionKafkaListenerServiceTest {
 
         verify(logService, never()).info(anyString(), anyString());
         verify(logService, never()).error(anyString(), anyString());
-        verify(consumeHandler, never()).accept(keyCaptor.capture(), messageCaptor.capture());
+        verify(consumeHandler, never()).handle(keyCaptor.capture(), messageCaptor.capture(), any());
     }
 
     @Test
@@ -170,8 +178,8 @@ class ConversionKafkaListenerServiceTest {
         CountDownLatch senderBarrier = new CountDownLatch(concurrency);
         doAnswer(inv -> {
             senderBarrier.countDown();
-            return null;
-        }).when(consumeHandler).accept(anyString(), any());
+            return Mono.empty();
+        }).when(consumeHandler).handle(anyString(), any(), any());
 
 
         List<Callable<SendResult<String, MessageDTO>>> taskList = new ArrayList<>();
@@ -192,7 +200,7 @@ class ConversionKafkaListenerServiceTest {
         verify(logService, times(concurrency)).info(anyString(), anyString());
         verify(logService, never()).error(anyString(), anyString());
 
-        verify(consumeHandler, times(concurrency)).accept(keyCaptor.capture(), messageCaptor.capture());
+        verify(consumeHandler, times(concurrency)).handle(keyCaptor.capture(), messageCaptor.capture(), any());
 
         assertThat(new HashSet<>(keyCaptor.getAllValues())).hasSize(concurrency);
         assertThat(new HashSet<>(messageCaptor.getAllValues())).hasSize(concurrency);
@@ -0,0 +1,113 @@
+package ru.madmax.pet.microcurrency.consumer.service.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.madmax.pet.microcurrency.consumer.model.ConversionEntity;
+import ru.madmax.pet.microcurrency.consumer.model.TestConversionEntityBuilder;
+import ru.madmax.pet.microcurrency.consumer.model.TestErrorDomainBuilder;
+import ru.madmax.pet.microcurrency.consumer.repository.BulkInsertRepository;
+import ru.madmax.pet.microcurrency.consumer.service.WriteBehindPersistenceService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class})
+class WriteBehindPersistenceServiceTest {
+    @Mock
+    BulkInsertRepository bulkInsertRepository;
+
+    WriteBehindPersistenceService persistenceService;
+
+    @AfterEach
+    void tearDown() {
+        if (persistenceService != null)
+            persistenceService.shutdown();
+    }
+
+    @Test
+    void saveConversions_UpToBatchSize_AndFlushOneMultiRowInsert() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(bulkInsertRepository.insertConversions(anyList())).thenAnswer(invocation -> {
+            List<ConversionEntity> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            return Mono.just((long) batch.size());
+        });
+        persistenceService = new WriteBehindPersistenceService(bulkInsertRepository, 10, 10_000L);
+
+        var saved = Flux.range(0, 10)
+                .flatMap(i -> persistenceService.save(
+                        TestConversionEntityBuilder.aConversionEntity().withId(UUID.randomUUID()).build()))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        assertThat(saved).hasSize(10);
+        assertThat(batchSizes).containsExactly(10);
+    }
+
+    @Test
+    void saveConversion_BelowBatchSize_AndFlushAfterWindow() {
+        when(bulkInsertRepository.insertConversions(anyList())).thenAnswer(invocation ->
+                Mono.just((long) invocation.<List<?>>getArgument(0).size()));
+        persistenceService = new WriteBehindPersistenceService(bulkInsertRepository, 500, 50L);
+
+        var conversion = TestConversionEntityBuilder.aConversionEntity().build();
+        StepVerifier.create(persistenceService.save(conversion))
+                .expectNext(conversion)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        verify(bulkInsertRepository, times(1)).insertConversions(List.of(conversion));
+    }
+
+    @Test
+    void saveConversions_WhenBatchFails_AndRetryRowByRow_AndFailOnlyWrongRow() {
+        var valid = TestConversionEntityBuilder.aConversionEntity().withId(UUID.randomUUID()).build();
+        var wrong = TestConversionEntityBuilder.aConversionEntity().withId(UUID.randomUUID()).build();
+        when(bulkInsertRepository.insertConversions(anyList())).thenAnswer(invocation -> {
+            List<ConversionEntity> batch = invocation.getArgument(0);
+            return batch.contains(wrong) ?
+                    Mono.error(new DuplicateKeyException("test-error")) :
+                    Mono.just((long) batch.size());
+        });
+        persistenceService = new WriteBehindPersistenceService(bulkInsertRepository, 2, 10_000L);
+
+        var validMono = persistenceService.save(valid).cache();
+        var wrongMono = persistenceService.save(wrong).cache();
+        validMono.subscribe(e -> {}, e -> {});
+        wrongMono.subscribe(e -> {}, e -> {});
+
+        StepVerifier.create(validMono)
+                .expectNext(valid)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        StepVerifier.create(wrongMono)
+                .expectError(DuplicateKeyException.class)
+                .verify(Duration.ofSeconds(2));
+        verify(bulkInsertRepository, times(3)).insertConversions(anyList());
+    }
+
+    @Test
+    void saveError_AndFlushThroughErrorInsert() {
+        when(bulkInsertRepository.insertErrors(anyList())).thenReturn(Mono.just(1L));
+        persistenceService = new WriteBehindPersistenceService(bulkInsertRepository, 500, 50L);
+
+        var error = TestErrorDomainBuilder.anErrorDomain().build();
+        StepVerifier.create(persistenceService.saveError(error))
+                .expectNext(error)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        verify(bulkInsertRepository, never()).insertConversions(anyList());
+    }
+}
@@ -22,6 +22,8 @@ import org.springframework.kafka.support.JacksonUtils;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.serialization.MessageDTOBinaryDeserializer;
+import ru.madmax.pet.microcurrency.common.serialization.MessageFormat;
 
 import java.util.Collection;
 
@@ -45,14 +47,20 @@ public class KafkaConfiguration {
 
     @Bean
     public ConsumerFactory<String, MessageDTO> consumerFactory(
-            KafkaProperties kafkaProperties, ObjectMapper mapper) {
+            KafkaProperties kafkaProperties, ObjectMapper mapper,
+            @Value("${app.message.format:JSON}") MessageFormat messageFormat) {
         // props создается не пустой мапой, а уже наполенныеми свойствами из application.yml файла
         var props = kafkaProperties.buildConsumerProperties(null);
         // добавляем те свойства, которые точно не будут меняться от запуска к запуску
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-//      Свойство задающее десериализатору возможность работать именно с нашим классом
-        props.put(TYPE_MAPPINGS, "ru.madmax.pet.microcurrency.common.model.MessageDTO:ru.madmax.pet.microcurrency.common.model.MessageDTO");
+        // формат значения выбирается app.message.format и должен совпадать с форматом producer-а
+        if (messageFormat == MessageFormat.BINARY) {
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MessageDTOBinaryDeserializer.class);
+        } else {
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+//          Свойство задающее десериализатору возможность работать именно с нашим классом
+            props.put(TYPE_MAPPINGS, "ru.madmax.pet.microcurrency.common.model.MessageDTO:ru.madmax.pet.microcurrency.common.model.MessageDTO");
+        }
 
         // Размер буфера полученных сообщений, который вовзращается консьюмером
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1);
@@ -64,19 +72,22 @@ public class KafkaConfiguration {
 
 
         var kafkaConsumerFactory = new DefaultKafkaConsumerFactory<String, MessageDTO>(props);
-        kafkaConsumerFactory.setValueDeserializer(new JsonDeserializer<>(mapper));
+        kafkaConsumerFactory.setValueDeserializer(messageFormat == MessageFormat.BINARY ?
+                new MessageDTOBinaryDeserializer() :
+                new JsonDeserializer<>(mapper));
         return kafkaConsumerFactory;
 
     }
 
     @Bean("listenerContainerFactory")
     public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, MessageDTO>>
-    listenerContainerFactory(ConsumerFactory<String, MessageDTO> consumerFactory) {
+    listenerContainerFactory(ConsumerFactory<String, MessageDTO> consumerFactory,
+                             @Value("${app.consumer.concurrency:1}") Integer concurrency) {
         var factory = new ConcurrentKafkaListenerContainerFactory<String, MessageDTO>();
         factory.setConsumerFactory(consumerFactory);
-        // у нас один микросервис (не монолит), который слушает один топик, поэтому Concurrency = 1
-        // а так сколько дистнеров, такой и размер Concurrency
-        factory.setConcurrency(1);
+        // сколько консьюмеров (потоков) в группе внутри одного экземпляра сервиса.
+        // Больше, чем партиций в топике, задавать смысла нет - лишние будут простаивать
+        factory.setConcurrency(concurrency);
         // под капотом листнер у нас делает приодически poll из очереди сообщений,
         // и здесь мы задаем прпметр, который влияет на этот интервал
         factory.getContainerProperties().setIdleBetweenPolls(1_000);
@@ -86,7 +97,7 @@ public class KafkaConfiguration {
         //Пул потоков (особенно для Concurrency>1), если его контролировать,
         // а не использовать внутренний пул
         var executor = new SimpleAsyncTaskExecutor("mw-consumer-second-");
-        executor.setConcurrencyLimit(1);
+        executor.setConcurrencyLimit(concurrency);
         var listenerTaskExecutor = new ConcurrentTaskExecutor(executor);
         factory.getContainerProperties().setListenerTaskExecutor(listenerTaskExecutor);
         return factory;
@@ -7,8 +7,11 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.serialization.OriginTimestampHeader;
 import ru.madmax.pet.microcurrency.conslogger.service.handler.ConsumeHandler;
 
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_ORIGIN_TIMESTAMP_KEY;
+
 
 @Service
 @RequiredArgsConstructor
@@ -25,11 +28,9 @@ public class ConversionKafkaListenerService implements ConversionListenerService
             @Header(name = KafkaHeaders.RECEIVED_KEY, required = false) String key,
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) Integer partition,
-            @Header(KafkaHeaders.OFFSET) Long offset) {
-        logService.info(key, String.format("Successful receive: %s%nMetadata: partition: %s, offset: %s",
-                message,
-                partition,
-                offset));
-        consumeHandler.accept(key, message);
+            @Header(KafkaHeaders.OFFSET) Long offset,
+            @Header(name = HEADER_ORIGIN_TIMESTAMP_KEY, required = false) byte[] originTimestamp) {
+        logService.success(key, LogService.RECEIVE_PATTERN, message, partition, offset);
+        consumeHandler.handle(key, message, OriginTimestampHeader.decode(originTimestamp));
     }
 }
@@ -7,5 +7,6 @@ public interface ConversionListenerService {
                 String key,
                 String topic,
                 Integer partition,
-                Long offset);
+                Long offset,
+                byte[] originTimestamp);
 }
@@ -1,14 +1,55 @@
 package ru.madmax.pet.microcurrency.conslogger.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/*
+// Сообщения не форматируются заранее: SLF4J подставляет аргументы, только если уровень включен,
+// а само событие уходит в AsyncAppender (logback-spring.xml), не блокируя поток обработки.
+// Ключ (guid) пишется и в текст, и отдельным полем key - его видят структурные (JSON) энкодеры
+ */
 @Slf4j
 @Service
 public class Slf4JLogService implements LogService {
+    private static final String KEY_FIELD = "key";
+    private static final String KEY_PREFIX = "[{}]: ";
+    private static final String KEY_MESSAGE = KEY_PREFIX + "{}";
+    private final double successSampleRate;
+
+    public Slf4JLogService(@Value("${app.logging.success-sample-rate:1.0}") Double successSampleRate) {
+        this.successSampleRate = successSampleRate;
+    }
+
     @Override
     public void info(String key, String message) {
-        log.info(String.format("[%s]: %s", key, message));
+        log.atInfo()
+                .addKeyValue(KEY_FIELD, key)
+                .log(KEY_MESSAGE, key, message);
+    }
+
+    @Override
+    public void info(String key, String pattern, Object... args) {
+        if (!log.isInfoEnabled())
+            return;
+        var event = log.atInfo()
+                .addKeyValue(KEY_FIELD, key)
+                .setMessage(KEY_PREFIX + pattern)
+                .addArgument(key);
+        for (var arg : args)
+            addArgument(event, arg);
+        event.log();
+    }
+
+    @Override
+    public void success(String key, String pattern, Object... args) {
+        if (successSampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= successSampleRate)
+            return;
+        info(key, pattern, args);
     }
 
     @Override
@@ -18,7 +59,9 @@ public class Slf4JLogService implements LogService {
 
     @Override
     public void error(String key, String message) {
-        log.error(String.format("[%s]: %s", key, message));
+        log.atError()
+                .addKeyValue(KEY_FIELD, key)
+                .log(KEY_MESSAGE, key, message);
     }
 
     @Override
@@ -30,4 +73,11 @@ public class Slf4JLogService implements LogService {
     public void error(String message, Throwable throwable) {
         log.error(message, throwable);
     }
+
+    private static void addArgument(LoggingEventBuilder event, Object arg) {
+        if (arg instanceof Supplier<?> supplier)
+            event.addArgument(supplier);
+        else
+            event.addArgument(arg);
+    }
 }
@@ -16,12 +16,22 @@ public class ConsumeHandler implements BiConsumer<String, MessageDTO> {
     private final Hook<MessageDTO> consumerHook;
     private final Hook<Throwable> errorCompletionHook;
     private final Hook<String> successfulCompletionHook;
+    private final ConsumeMetrics consumeMetrics;
+
+    // originTimestamp - время регистрации запроса из заголовка записи, по нему считается сквозная задержка
+    public void handle(String key, MessageDTO messageDTO, Long originTimestamp) {
+        var stage = consumeMetrics.start(messageDTO.getType(), originTimestamp);
+        accept(key, messageDTO);
+        stage.completed();
+    }
 
     @Override
     public void accept(String key, MessageDTO messageDTO) {
         consumerHook.accept(key, messageDTO);
         switch (messageDTO.getType()) {
-            case CURRENCY -> consumeCurrency(key, messageDTO.getMessage());
+            case CURRENCY -> consumeCurrency(key, messageDTO.getMessage() != null ?
+                    messageDTO.getMessage() :
+                    String.valueOf(messageDTO.getConversion()));
             case ERROR -> consumeError(key, messageDTO.getMessage());
             default -> wrongMessageType(key, messageDTO.getMessage());
         }
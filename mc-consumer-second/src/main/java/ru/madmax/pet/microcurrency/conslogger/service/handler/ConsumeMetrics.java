@@ -0,0 +1,89 @@
+package ru.madmax.pet.microcurrency.conslogger.service.handler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.madmax.pet.microcurrency.common.model.MessageType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+// Таймеры обработки записи:
+//   mc.consumer.consume    - обработка записи consumer-ом
+//   mc.consumer.end-to-end - от регистрации запроса в producer-е (заголовок X-origin-timestamp)
+//                            до окончания обработки; записи без заголовка сюда не попадают.
+// Сквозная задержка считается по часам разных хостов, поэтому отрицательные значения
+// (расхождение часов) записываются как ноль.
+// Значения тегов известны заранее (типы сообщений и unknown), поэтому таймеры регистрируются
+// один раз в конструкторе, а не на каждой записи
+ */
+@Component
+public class ConsumeMetrics {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TypeTimers> timers;
+
+    public ConsumeMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.timers = Stream.concat(
+                        Arrays.stream(MessageType.values()).map(ConsumeMetrics::tagOf),
+                        Stream.of(tagOf(null)))
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), TypeTimers::new));
+    }
+
+    public Stage start(MessageType type, Long originTimestamp) {
+        return new Stage(Timer.start(meterRegistry), timers.get(tagOf(type)), originTimestamp);
+    }
+
+    private Timer consumeTimer(String type) {
+        return Timer.builder("mc.consumer.consume")
+                .description("Consuming of a record")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private Timer endToEndTimer(String type) {
+        return Timer.builder("mc.consumer.end-to-end")
+                .description("Registration in producer until the record is consumed")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static String tagOf(MessageType type) {
+        return type != null ? type.name().toLowerCase() : "unknown";
+    }
+
+    private class TypeTimers {
+        private final Timer consume;
+        private final Timer endToEnd;
+
+        private TypeTimers(String type) {
+            this.consume = consumeTimer(type);
+            this.endToEnd = endToEndTimer(type);
+        }
+    }
+
+    public class Stage {
+        private final Timer.Sample sample;
+        private final TypeTimers timers;
+        private final Long originTimestamp;
+
+        private Stage(Timer.Sample sample, TypeTimers timers, Long originTimestamp) {
+            this.sample = sample;
+            this.timers = timers;
+            this.originTimestamp = originTimestamp;
+        }
+
+        public void completed() {
+            sample.stop(timers.consume);
+            if (originTimestamp != null)
+                timers.endToEnd.record(
+                        Math.max(0, System.currentTimeMillis() - originTimestamp),
+                        TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -3,9 +3,11 @@ package ru.madmax.pet.microcurrency.conslogger.service.handler;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
@@ -16,6 +18,7 @@ import ru.madmax.pet.microcurrency.conslogger.service.LogService;
 
 import java.util.concurrent.*;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -33,12 +36,14 @@ class ConsumeHandlerTest {
     Hook<String> successfulCompletionHook;
     @Mock
     Hook<Throwable> errorCompletionHook;
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @Mock
     ObjectMapper objectMapper;
 
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
 
     final String CURRENCY_KEY = "test_handler_currency_key";
     final String ERROR_KEY = "test_handler_error_key";
@@ -49,7 +54,8 @@ class ConsumeHandlerTest {
                 logService,
                 consumerHook,
                 errorCompletionHook,
-                successfulCompletionHook
+                successfulCompletionHook,
+                new ConsumeMetrics(meterRegistry)
         );
     }
 
@@ -102,4 +108,17 @@ class ConsumeHandlerTest {
 
     }
 
+    @Test
+    void handleWithOriginTimestamp_RecordsConsumeAndEndToEndTimers() {
+        var  message = TestMessageDTOBuilder.aMessageDTO().withType(ERROR).build();
+        consumeHandler.handle(ERROR_KEY, message, System.currentTimeMillis() - 5000);
+
+        verify(errorCompletionHook, times(1)).accept(eq(ERROR_KEY), any());
+        assertThat(meterRegistry.get("mc.consumer.consume").tag("type", "error").timer().count())
+                .isEqualTo(1);
+        var endToEndTimer = meterRegistry.get("mc.consumer.end-to-end").tag("type", "error").timer();
+        assertThat(endToEndTimer.count()).isEqualTo(1);
+        assertThat(endToEndTimer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5000);
+    }
+
 }
\ No newline at end of file
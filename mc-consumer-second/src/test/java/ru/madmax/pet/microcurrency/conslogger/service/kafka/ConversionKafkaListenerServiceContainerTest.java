@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -75,7 +76,7 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
     @Value("${spring.kafka.topic.name}")
     String testTopic;
 
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @MockBean
@@ -120,7 +121,7 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
                 message,
                 partition,
                 offset));
-        consumeHandler.accept(key, message);
+        consumeHandler.handle(key, message, null);
     }
 
     @Test
@@ -139,13 +140,13 @@ class ConversionKafkaListenerServiceContainerTest extends AbstractContainersInte
         doAnswer(inv -> {
             senderBarrier.countDown();
             return null;
-        }).when(consumeHandler).accept(anyString(), any());
+        }).when(consumeHandler).handle(anyString(), any(), any());
 
         var task = createKafkaSenderTask(testTopic, key, messageDTO, senderBarrier);
         service.submit(task).get();
 
 
-        verify(consumeHandler, times(2)).accept(keyCaptor.capture(), messageCaptor.capture());
+        verify(consumeHandler, times(2)).handle(keyCaptor.capture(), messageCaptor.capture(), any());
         List<String> allKeys = keyCaptor.getAllValues();
         for (String receivedKey : allKeys) {
             assertThat(receivedKey).isEqualTo(key);
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -81,7 +82,7 @@ class ConversionKafkaListenerServiceTest {
     @Value("${spring.kafka.topic.name}")
     String testTopic;
 
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @MockBean
@@ -126,7 +127,7 @@ class ConversionKafkaListenerServiceTest {
                 message,
                 partition,
                 offset));
-        consumeHandler.accept(key, message);
+        consumeHandler.handle(key, message, null);
     }
 
     @Test
@@ -145,13 +146,13 @@ class ConversionKafkaListenerServiceTest {
         doAnswer(inv -> {
             senderBarrier.countDown();
             return null;
-        }).when(consumeHandler).accept(anyString(), any());
+        }).when(consumeHandler).handle(anyString(), any(), any());
 
         var task = createKafkaSenderTask(testTopic, key, messageDTO, senderBarrier);
         service.submit(task).get();
 
 
-        verify(consumeHandler, times(2)).accept(keyCaptor.capture(), messageCaptor.capture());
+        verify(consumeHandler, times(2)).handle(keyCaptor.capture(), messageCaptor.capture(), any());
         List<String> allKeys = keyCaptor.getAllValues();
         for (String receivedKey : allKeys) {
             assertThat(receivedKey).isEqualTo(key);
@@ -0,0 +1,44 @@
+package ru.madmax.pet.microcurrency.producer.configuration;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+import ru.madmax.pet.microcurrency.common.model.Conversion;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/*
+// Партиционирование по валютной паре вместо случайного guid:
+// все результаты конвертации одной пары попадают в одну партицию и обрабатываются по порядку
+// одним консьюмером группы. Хеш считается от имен валют, поэтому одинаков на всех экземплярах producer-а.
+// Сообщения без Conversion (ошибки) распределяются по ключу, как у стандартного партиционера.
+// Включается явно (app.kafka.partitioner=currency-pair): занятых партиций не больше, чем валютных пар,
+// и нагрузка на них неравномерна, поэтому по умолчанию используется партиционирование по ключу
+ */
+public class CurrencyPairPartitioner implements Partitioner {
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int numPartitions = cluster.partitionCountForTopic(topic);
+        if (numPartitions <= 1)
+            return 0;
+        if (value instanceof MessageDTO message && message.getConversion() != null)
+            return partitionForPair(message.getConversion(), numPartitions);
+        if (keyBytes != null)
+            return Utils.toPositive(Utils.murmur2(keyBytes)) % numPartitions;
+        return 0;
+    }
+
+    static int partitionForPair(Conversion conversion, int numPartitions) {
+        var pair = String.valueOf(conversion.getBase()) + '/' + conversion.getConvert();
+        return Utils.toPositive(Utils.murmur2(pair.getBytes(StandardCharsets.UTF_8))) % numPartitions;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void configure(Map<String, ?> configs) {}
+}
@@ -15,8 +15,11 @@ import java.util.stream.Collectors;
 @ConfigurationProperties(prefix = "app")
 public class CurrencyRemoteServicesListBuilder {
     private Map<String, URL> map;
+    private Map<String, List<String>> equivalents = Map.of();
+    private List<RemoteServiceUrl> services = List.of();
 
     public void setServices(List<RemoteServiceUrl> services) {
+        this.services = List.copyOf(services);
         map = services.stream().collect(Collectors.toMap(
                 RemoteServiceUrl::id,
                 element -> {
@@ -31,9 +34,35 @@ public class CurrencyRemoteServicesListBuilder {
                     }
                 },
                 (e1,e2) -> {throw new AppProducerException("Duplicate service id in configuration");}));
+        equivalents = services.stream()
+                .filter(service -> service.group() != null)
+                .collect(Collectors.toMap(
+                        RemoteServiceUrl::id,
+                        service -> services.stream()
+                                .filter(other -> service.group().equals(other.group()) && !service.id().equals(other.id()))
+                                .map(RemoteServiceUrl::id)
+                                .toList()));
     }
 
-    public record RemoteServiceUrl(String id, String host, String path) {}
+    /*
+    // group - необязательная группа равнозначных источников (отдают одни и те же курсы):
+    // в режиме хеджирования запрос к одному из них может быть продублирован в другой
+     */
+    public record RemoteServiceUrl(String id, String host, String path, Pool pool, String group) {}
+
+    /*
+    // Настройки пула соединений удаленного сервиса. Незаданные значения берутся по умолчанию из Reactor Netty
+     */
+    public record Pool(Integer maxConnections, Integer pendingAcquireMaxCount, Long maxIdleTime) {}
+
+    public List<RemoteServiceUrl> getServices() {
+        return services;
+    }
+
+    // другие источники той же группы, в порядке конфигурации
+    public List<String> getEquivalentSources(String key) {
+        return equivalents.getOrDefault(key, List.of());
+    }
 
     public URL getURLByKey(String key) {
         return Optional.ofNullable(map.get(key))
@@ -0,0 +1,23 @@
+package ru.madmax.pet.microcurrency.producer.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class DispatchSchedulerConfiguration {
+
+    /*
+    // Отдельный ограниченный пул для отложенной работы после ответа удаленного сервиса:
+    // логирование и отправка в Kafka (KafkaTemplate.send может блокироваться до max.block.ms).
+    // Потоки Netty при этом не блокируются, а общий ForkJoinPool не используется вовсе
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler dispatchScheduler(
+            @Value("${app.dispatch.thread-cap:16}") Integer threadCap,
+            @Value("${app.dispatch.queued-task-cap:10000}") Integer queuedTaskCap) {
+        return Schedulers.newBoundedElastic(threadCap, queuedTaskCap, "remote-dispatch");
+    }
+}
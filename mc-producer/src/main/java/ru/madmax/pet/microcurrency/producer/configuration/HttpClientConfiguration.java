@@ -23,8 +23,11 @@ public class HttpClientConfiguration {
 
     @Bean
     public HttpClient httpClient() {
-        return HttpClient
-                .create()
+        return withTimeouts(HttpClient.create(), requestTimeout);
+    }
+
+    public static HttpClient withTimeouts(HttpClient httpClient, Integer requestTimeout) {
+        return httpClient
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, requestTimeout)
                 .doOnConnected(connection -> {
                     connection.addHandlerLast(
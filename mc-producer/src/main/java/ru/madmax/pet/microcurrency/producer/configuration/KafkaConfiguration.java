@@ -15,6 +15,8 @@ import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.JacksonUtils;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.serialization.MessageDTOBinarySerializer;
+import ru.madmax.pet.microcurrency.common.serialization.MessageFormat;
 
 @Configuration
 @EnableKafka
@@ -32,12 +34,25 @@ public class KafkaConfiguration {
 
     @Bean
     public ProducerFactory<String, MessageDTO> producerFactory(
-            KafkaProperties kafkaProperties, ObjectMapper mapper
+            KafkaProperties kafkaProperties, ObjectMapper mapper,
+            @Value("${app.message.format:JSON}") MessageFormat messageFormat,
+            @Value("${app.kafka.partitioner:key}") String partitioner
     ) {
         //props создается не пустой мапой, а уже наполенныеми свойствами из application.yml файла
         var props = kafkaProperties.buildProducerProperties(null);
         //добавляем те свойства, которые точно не будут меняться от запуска к запуску
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        if ("currency-pair".equals(partitioner))
+            props.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, CurrencyPairPartitioner.class);
+        // формат значения выбирается app.message.format и должен совпадать с форматом consumer-ов
+        if (messageFormat == MessageFormat.BINARY) {
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, MessageDTOBinarySerializer.class);
+            return new DefaultKafkaProducerFactory<>(
+                    props,
+                    new StringSerializer(),
+                    new MessageDTOBinarySerializer()
+            );
+        }
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
 
         return new DefaultKafkaProducerFactory<>(
@@ -3,12 +3,14 @@ package ru.madmax.pet.microcurrency.producer.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.producer.exception.AdmissionRejectedException;
 import ru.madmax.pet.microcurrency.producer.exception.WrongSourceException;
 
 import java.util.stream.Collectors;
@@ -65,6 +67,17 @@ public class ExceptionHandlerController {
         return Mono.just(responseEntity);
     }
 
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public Mono<ResponseEntity<Void>> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+
+        ResponseEntity<Void> responseEntity = ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HEADER_REQUEST_ERROR_KEY, ex.getMessage())
+                .body(null);
+
+        return Mono.just(responseEntity);
+    }
+
     @ExceptionHandler(Exception.class)
     public Mono<ResponseEntity<Void>> handleExceptions(Exception ex) {
 
@@ -0,0 +1,7 @@
+package ru.madmax.pet.microcurrency.producer.exception;
+
+public class AdmissionRejectedException extends RuntimeException {
+    public AdmissionRejectedException(int limit) {
+        super(String.format("Too many requests in flight (limit %d)", limit));
+    }
+}
@@ -0,0 +1,7 @@
+package ru.madmax.pet.microcurrency.producer.exception;
+
+public class CircuitBreakerOpenException extends RemoteServiceException {
+    public CircuitBreakerOpenException(String source) {
+        super("Circuit breaker is open for source " + source);
+    }
+}
@@ -10,4 +10,5 @@ import java.net.URL;
 public class RequestParams {
     private final URL url;
     private final String guid;
+    private final String source;
 }
@@ -0,0 +1,11 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+public interface AdmissionLimiter {
+    boolean tryAcquire();
+
+    void release(long latencyNanos, boolean overloaded);
+
+    int getLimit();
+
+    int getInFlight();
+}
@@ -0,0 +1,76 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+// Ограничение числа регистраций "в полете" с адаптивным лимитом (AIMD).
+// Каждая завершенная регистрация сообщает длительность полного цикла (удаленный вызов + отправка в Kafka):
+// - быстрый успешный ответ при загруженном лимите увеличивает лимит на 1 (additive increase);
+// - перегрузка (таймаут, 5xx, отказ circuit breaker'а) или ответ дольше latency-threshold умножают лимит
+//   на backoff-ratio (multiplicative decrease), но не чаще одного раза за время ответа: регистрации,
+//   начатые до последнего уменьшения, уже учтены им, иначе N одновременных отказов дали бы backoff-ratio^N.
+// Лимит не выходит за пределы [min-limit, max-limit]
+ */
+@Service
+public class AimdAdmissionLimiter implements AdmissionLimiter {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private volatile double limit;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    public AimdAdmissionLimiter(@Value("${app.admission.initial-limit:100}") Integer initialLimit,
+                                @Value("${app.admission.min-limit:10}") Integer minLimit,
+                                @Value("${app.admission.max-limit:1000}") Integer maxLimit,
+                                @Value("${app.admission.latency-threshold:1000}") Long latencyThreshold,
+                                @Value("${app.admission.backoff-ratio:0.9}") Double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThreshold);
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit())
+                return false;
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    @Override
+    public void release(long latencyNanos, boolean overloaded) {
+        int current = inFlight.getAndDecrement();
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (overloaded || latencyNanos > latencyThresholdNanos) {
+                if (now - latencyNanos >= lastDecreaseNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (current * 2 >= limit)
+                // лимит растет, только если он действительно использовался хотя бы наполовину
+                limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -2,21 +2,24 @@ package ru.madmax.pet.microcurrency.producer.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder;
+import ru.madmax.pet.microcurrency.producer.exception.AdmissionRejectedException;
 import ru.madmax.pet.microcurrency.producer.model.RequestParams;
 import ru.madmax.pet.microcurrency.producer.model.ClientRequest;
+import ru.madmax.pet.microcurrency.common.model.Conversion;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
 import ru.madmax.pet.microcurrency.common.model.MessageType;
-
-import java.util.concurrent.CompletableFuture;
+import ru.madmax.pet.microcurrency.common.serialization.MessageFormat;
 
 import static ru.madmax.pet.microcurrency.common.model.MessageType.*;
 
 @Service
-@AllArgsConstructor
 public class CurrencyFacadeService implements CurrencyService {
     private final UUIDGeneratorService uuidGeneratorService;
     private final CurrencyRequestService requestService;
@@ -24,58 +27,126 @@ public class CurrencyFacadeService implements CurrencyService {
     private final CurrencyRemoteServicesListBuilder servicesBuilder;
     private final LogService logService;
     private final ObjectMapper objectMapper;
+    private final Scheduler dispatchScheduler;
+    private final AdmissionLimiter admissionLimiter;
+    private final MessageFormat messageFormat;
+    private final MeterRegistry meterRegistry;
+    private final Timer registrationSuccessTimer;
+    private final Timer registrationErrorTimer;
+    private final Timer registrationRejectedTimer;
+
+    public CurrencyFacadeService(UUIDGeneratorService uuidGeneratorService,
+                                 CurrencyRequestService requestService,
+                                 CurrencyProducerService producerService,
+                                 CurrencyRemoteServicesListBuilder servicesBuilder,
+                                 LogService logService,
+                                 ObjectMapper objectMapper,
+                                 Scheduler dispatchScheduler,
+                                 AdmissionLimiter admissionLimiter,
+                                 @Value("${app.message.format:JSON}") MessageFormat messageFormat,
+                                 MeterRegistry meterRegistry) {
+        this.uuidGeneratorService = uuidGeneratorService;
+        this.requestService = requestService;
+        this.producerService = producerService;
+        this.servicesBuilder = servicesBuilder;
+        this.logService = logService;
+        this.objectMapper = objectMapper;
+        this.dispatchScheduler = dispatchScheduler;
+        this.admissionLimiter = admissionLimiter;
+        this.messageFormat = messageFormat;
+        this.meterRegistry = meterRegistry;
+        this.registrationSuccessTimer = registrationTimer("success");
+        this.registrationErrorTimer = registrationTimer("error");
+        this.registrationRejectedTimer = registrationTimer("rejected");
+    }
 
+    /*
+    // Регистрация целиком реактивная и выполняется на потоке, который подписался (event loop Netty):
+    // GUID генерируется лениво, удаленный вызов запускается без ожидания результата,
+    // а обработка ответа (лог + сообщение в Kafka) переносится на dispatchScheduler.
+    // Если регистраций "в полете" больше, чем разрешает admissionLimiter, запрос сразу отклоняется.
+    // Таймер mc.producer.registration меряет путь от регистрации до передачи сообщения в Kafka,
+    // а время регистрации уходит с сообщением, чтобы consumer-ы посчитали сквозную задержку
+     */
     @Override
     public Mono<String> registerRequest(ClientRequest request) {
-        CompletableFuture<String> cf = CompletableFuture.supplyAsync(() -> {
-            final String guid = uuidGeneratorService.randomGenerate();
-            logService.info(
-                    guid,
-                    String.format("Register request: %s", request.toString()));
-            RequestParams params = buildRequestParams (guid, request);
-            var monoResponse = requestService.sendRequest(request, params);
-            monoResponse
-                    .subscribe(
-                            currency -> {
-                                logService.info(guid, "Get response");
-                                produceMessage(guid, CURRENCY, currency);
-                            },
-                            error -> {
-                                logService.error(
-                                        guid,
-                                        String.format("Error response: %s:%s",
-                                                error.getClass().getName(),
-                                                error.getMessage()));
-                                produceMessage(guid, ERROR, error);
-                            }
-                    );
-            return guid;
-        });
-        return Mono.fromFuture(cf);
+        return Mono.fromCallable(uuidGeneratorService::randomGenerate)
+                .doOnNext(guid -> logService.info(guid, "Register request: {}", request))
+                .doOnNext(guid -> dispatch(guid, request));
+    }
+
+    private void dispatch(String guid, ClientRequest request) {
+        final long originTimestamp = System.currentTimeMillis();
+        var sample = Timer.start(meterRegistry);
+        RequestParams params = buildRequestParams (guid, request);
+        if (!admissionLimiter.tryAcquire()) {
+            logService.info(guid, "Rejected by admission control");
+            sample.stop(registrationRejectedTimer);
+            throw new AdmissionRejectedException(admissionLimiter.getLimit());
+        }
+        final long startTime = System.nanoTime();
+        requestService.sendRequest(request, params)
+                .publishOn(dispatchScheduler)
+                .doOnNext(currency -> {
+                    logService.info(guid, "Get response");
+                    produceMessage(guid, CURRENCY, currency, originTimestamp);
+                    sample.stop(registrationSuccessTimer);
+                })
+                .doOnError(error -> {
+                    logService.error(
+                            guid,
+                            String.format("Error response: %s:%s",
+                                    error.getClass().getName(),
+                                    error.getMessage()));
+                    produceMessage(guid, ERROR, error, originTimestamp);
+                    sample.stop(registrationErrorTimer);
+                })
+                // о перегрузке говорят только таймауты, 5xx и отказы breaker'а, а не бизнес-ошибки источника
+                .doOnSuccess(currency -> admissionLimiter.release(System.nanoTime() - startTime, false))
+                .doOnError(error -> admissionLimiter.release(
+                        System.nanoTime() - startTime,
+                        RemoteErrors.isOverload(error)))
+                // ошибка уже залогирована и отправлена в Kafka, дальше ее передавать некому
+                .onErrorComplete()
+                .subscribe();
     }
 
     private RequestParams buildRequestParams (String guid, ClientRequest request) {
         return RequestParams.builder()
                 .guid(guid)
+                .source(request.getSource())
                 .url(servicesBuilder.getURLByKey(request.getSource()))
                 .build();
     }
 
-    private void produceMessage(String guid, MessageType type, Object object) {
+    private void produceMessage(String guid, MessageType type, Object object, long originTimestamp) {
         producerService.produceMessage(
                 guid,
-                createMessage(type, object));
+                createMessage(type, object),
+                originTimestamp);
+    }
+
+    private Timer registrationTimer(String outcome) {
+        return Timer.builder("mc.producer.registration")
+                .description("Registration until the message is handed over to Kafka")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     private MessageDTO createMessage(MessageType type, Object object) {
         var message = new MessageDTO();
         message.setType(type);
         if (type == CURRENCY) {
+            // Conversion нужен партиционеру (валютная пара), а бинарный сериализатор кодирует его сам
+            message.setConversion((Conversion) object);
+        }
+        if (type == CURRENCY && messageFormat == MessageFormat.JSON) {
             try {
                 message.setMessage(objectMapper.writeValueAsString(object));
             } catch (JsonProcessingException e) {
                 logService.error(object.toString(), e);
                 message.setType(ERROR);
+                message.setConversion(null);
                 message.setMessage(String.format("%s: %s (%s)", e.getClass(), e.getMessage(), object));
             }
         }
@@ -1,17 +1,24 @@
 package ru.madmax.pet.microcurrency.producer.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.serialization.OriginTimestampHeader;
 
 
+import java.util.List;
 import java.util.function.BiConsumer;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_ORIGIN_TIMESTAMP_KEY;
 
 @Service
 public class CurrencyKafkaSenderService implements CurrencyProducerService {
@@ -21,26 +28,41 @@ public class CurrencyKafkaSenderService implements CurrencyProducerService {
     private final LogService logService;
     private final BiConsumer<String, SendResult<String, MessageDTO>> successSendingHandler;
     private final BiConsumer<String,Throwable> errorSendingHandler;
+    private final Timer ackTimer;
+    private final Timer failedAckTimer;
 
     public CurrencyKafkaSenderService(@Value("${spring.kafka.topic.name}") String sendClientTopic,
                                       KafkaTemplate<String, MessageDTO> kafkaTemplate,
                                       LogService logService,
                                       BiConsumer<String,SendResult<String, MessageDTO>> successSendingHandler,
-                                      BiConsumer<String,Throwable> errorSendingHandler) {
+                                      BiConsumer<String,Throwable> errorSendingHandler,
+                                      MeterRegistry meterRegistry) {
         this.sendClientTopic = sendClientTopic;
         this.kafkaTemplate = kafkaTemplate;
         this.logService = logService;
         this.successSendingHandler = successSendingHandler;
         this.errorSendingHandler = errorSendingHandler;
+        this.ackTimer = ackTimer(meterRegistry, "success");
+        this.failedAckTimer = ackTimer(meterRegistry, "error");
     }
 
     @Override
-    public void produceMessage(String key, MessageDTO message) {
+    public void produceMessage(String key, MessageDTO message, long originTimestamp) {
         try {
-            logService.info(key, String.format("Send to broker with type %s", message.getType().name()));
-            var sendResult = kafkaTemplate.send(sendClientTopic, key, message);
+            logService.info(key, "Send to broker with type {}", message.getType());
+            var sample = Timer.start();
+            var sendResult = kafkaTemplate.send(new ProducerRecord<>(
+                    sendClientTopic,
+                    null,
+                    key,
+                    message,
+                    List.of(new RecordHeader(
+                            HEADER_ORIGIN_TIMESTAMP_KEY,
+                            OriginTimestampHeader.encode(originTimestamp)))));
 
             sendResult.whenComplete((result, ex) -> {
+                // время от передачи записи в KafkaTemplate до подтверждения (или отказа) брокера
+                sample.stop(isNull(ex) ? ackTimer : failedAckTimer);
                 if (isNull(ex)) {
                     if (nonNull(successSendingHandler))
                         successSendingHandler.accept(key, result);
@@ -56,4 +78,11 @@ public class CurrencyKafkaSenderService implements CurrencyProducerService {
 
     }
 
+    private static Timer ackTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("mc.producer.kafka.send")
+                .description("Kafka send until broker acknowledgement")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
 }
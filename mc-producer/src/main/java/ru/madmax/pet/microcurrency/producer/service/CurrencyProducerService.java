@@ -3,5 +3,10 @@ package ru.madmax.pet.microcurrency.producer.service;
 import ru.madmax.pet.microcurrency.common.model.MessageDTO;
 
 public interface CurrencyProducerService {
-    void produceMessage(String key, MessageDTO message);
+    default void produceMessage(String key, MessageDTO message) {
+        produceMessage(key, message, System.currentTimeMillis());
+    }
+
+    // originTimestamp - время регистрации запроса (epoch millis), уходит в заголовке записи
+    void produceMessage(String key, MessageDTO message, long originTimestamp);
 }
@@ -0,0 +1,134 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.madmax.pet.microcurrency.common.model.Conversion;
+import ru.madmax.pet.microcurrency.common.model.ServiceRequest;
+import ru.madmax.pet.microcurrency.common.retry.RetryBudget;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder;
+import ru.madmax.pet.microcurrency.producer.model.RequestParams;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+// Хеджирование запросов к группе равнозначных источников (app.services[].group).
+// Запрос уходит в указанный клиентом источник; если ответа нет дольше наблюдаемого квантиля
+// его задержки (app.hedging.quantile, по умолчанию p95) или источник ответил ошибкой, которую
+// стоит повторять (таймаут, 502/503), копия уходит в следующий источник группы. Бизнес-ошибка
+// возвращается сразу. Копия - это тоже повтор, поэтому она списывает жетон общего RetryBudget,
+// и без жетона не отправляется. Побеждает первый успешный Conversion, вторая копия отменяется.
+// Пока замеров мало, ждем initial-delay; задержка не бывает меньше min-delay.
+// Так дублируется лишь хвост медленных запросов (около 5% при p95), а не каждый запрос.
+// Если не удались обе копии, наружу уходит ошибка основного источника
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.hedging.enabled", havingValue = "true")
+public class HedgingRequestService implements CurrencyRequestService {
+    private final ReactRequestService requestService;
+    private final CurrencyRemoteServicesListBuilder servicesBuilder;
+    private final LogService logService;
+    private final SourceLatencyTracker latencyTracker;
+    private final long initialDelayNanos;
+    private final long minDelayNanos;
+    private final RetryBudget retryBudget;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> hedgeCounters = new ConcurrentHashMap<>();
+
+    public HedgingRequestService(ReactRequestService requestService,
+                                 CurrencyRemoteServicesListBuilder servicesBuilder,
+                                 LogService logService,
+                                 RetryBudget retryBudget,
+                                 @Value("${app.hedging.quantile:0.95}") Double quantile,
+                                 @Value("${app.hedging.initial-delay:500}") Long initialDelay,
+                                 @Value("${app.hedging.min-delay:20}") Long minDelay,
+                                 MeterRegistry meterRegistry) {
+        this.requestService = requestService;
+        this.servicesBuilder = servicesBuilder;
+        this.logService = logService;
+        this.retryBudget = retryBudget;
+        this.latencyTracker = new SourceLatencyTracker(quantile);
+        this.initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialDelay);
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelay);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Conversion> sendRequest(ServiceRequest request, RequestParams params) {
+        if (params.getSource() == null)
+            return requestService.sendRequest(request, params);
+        var equivalents = servicesBuilder.getEquivalentSources(params.getSource());
+        if (equivalents.isEmpty())
+            return tracked(request, params);
+        var hedgeParams = RequestParams.builder()
+                .guid(params.getGuid())
+                .source(equivalents.get(0))
+                .url(servicesBuilder.getURLByKey(equivalents.get(0)))
+                .build();
+        return Mono.defer(() -> hedged(request, params, hedgeParams));
+    }
+
+    private Mono<Conversion> hedged(ServiceRequest request, RequestParams params, RequestParams hedgeParams) {
+        var primaryError = new AtomicReference<Throwable>();
+        Sinks.Empty<Void> primaryFailed = Sinks.empty();
+        var primary = tracked(request, params)
+                .doOnError(error -> {
+                    primaryError.set(error);
+                    // копию есть смысл слать только при сбое, который повторил бы и сам запрос
+                    if (RemoteErrors.isRetryable(error))
+                        primaryFailed.tryEmitEmpty();
+                    else
+                        primaryFailed.tryEmitError(error);
+                });
+        var hedge = Mono.firstWithSignal(Mono.delay(hedgeDelay(params.getSource())).then(), primaryFailed.asMono())
+                .then(Mono.defer(() -> {
+                    if (!retryBudget.tryRetry()) {
+                        logService.info(params.getGuid(), "Hedge to {} is denied by retry budget", hedgeParams.getSource());
+                        return Mono.<Conversion>empty();
+                    }
+                    logService.info(params.getGuid(), "Hedge to {}", hedgeParams.getSource());
+                    hedgeCounter(params.getSource()).increment();
+                    return tracked(request, hedgeParams);
+                }));
+        return Mono.firstWithValue(primary, hedge)
+                .onErrorMap(NoSuchElementException.class,
+                        error -> primaryError.get() != null ? primaryError.get() : error);
+    }
+
+    // проигравшая копия отменяется, и время до отмены - нижняя граница ее задержки:
+    // без таких замеров медленные ответы выпадали бы из окна и квантиль занижался бы
+    private Mono<Conversion> tracked(ServiceRequest request, RequestParams params) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return requestService.sendRequest(request, params)
+                    .doOnSuccess(conversion -> latencyTracker.record(params.getSource(), System.nanoTime() - start))
+                    .doOnCancel(() -> latencyTracker.record(params.getSource(), System.nanoTime() - start));
+        });
+    }
+
+    private Duration hedgeDelay(String source) {
+        long quantileNanos = latencyTracker.quantileNanos(source);
+        if (quantileNanos == SourceLatencyTracker.UNKNOWN)
+            return Duration.ofNanos(initialDelayNanos);
+        return Duration.ofNanos(Math.max(minDelayNanos, quantileNanos));
+    }
+
+    // счетчик регистрируется один раз на источник, а не на каждую копию
+    private Counter hedgeCounter(String source) {
+        return hedgeCounters.computeIfAbsent(source, key -> Counter.builder("mc.producer.hedge")
+                .description("Hedged copies sent to an equivalent remote source")
+                .tag("source", key)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,95 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder.Pool;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder.RemoteServiceUrl;
+import ru.madmax.pet.microcurrency.producer.model.RequestParams;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.madmax.pet.microcurrency.producer.configuration.HttpClientConfiguration.withTimeouts;
+
+/*
+// WebClient'ы строятся один раз при старте: по одному на каждый удаленный сервис из app.services,
+// каждый со своим пулом соединений (app.services[].pool).
+// Для адресов, которых нет в конфигурации, клиент создается при первом обращении
+// на общем HttpClient и кешируется по origin (protocol://authority)
+ */
+@Service
+public class PooledWebClientRegistry implements WebClientRegistry {
+    private final Map<String, WebClient> clientsBySource = new HashMap<>();
+    private final Map<String, WebClient> clientsByOrigin = new ConcurrentHashMap<>();
+    private final List<ConnectionProvider> connectionProviders = new ArrayList<>();
+    private final ReactorClientHttpConnector defaultConnector;
+
+    public PooledWebClientRegistry(CurrencyRemoteServicesListBuilder servicesBuilder,
+                                   HttpClient httpClient,
+                                   @Value("${app.request.timeout}") Integer requestTimeout) {
+        this.defaultConnector = new ReactorClientHttpConnector(httpClient);
+        for (RemoteServiceUrl service : servicesBuilder.getServices()) {
+            var connectionProvider = buildConnectionProvider(service);
+            connectionProviders.add(connectionProvider);
+            var connector = new ReactorClientHttpConnector(
+                    withTimeouts(HttpClient.create(connectionProvider), requestTimeout));
+            clientsBySource.put(
+                    service.id(),
+                    buildWebClient(servicesBuilder.getURLByKey(service.id()), connector));
+        }
+    }
+
+    @Override
+    public WebClient getClient(RequestParams params) {
+        var client = params.getSource() == null ? null : clientsBySource.get(params.getSource());
+        if (client != null)
+            return client;
+        return clientsByOrigin.computeIfAbsent(
+                origin(params.getUrl()),
+                origin -> buildWebClient(params.getUrl(), defaultConnector));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    private static ConnectionProvider buildConnectionProvider(RemoteServiceUrl service) {
+        var builder = ConnectionProvider.builder("remote-" + service.id());
+        Pool pool = service.pool();
+        if (pool != null) {
+            if (pool.maxConnections() != null)
+                builder.maxConnections(pool.maxConnections());
+            if (pool.pendingAcquireMaxCount() != null)
+                builder.pendingAcquireMaxCount(pool.pendingAcquireMaxCount());
+            if (pool.maxIdleTime() != null) {
+                // без фоновой чистки простаивающие соединения закрываются только при следующем захвате
+                builder.maxIdleTime(Duration.ofMillis(pool.maxIdleTime()))
+                        .evictInBackground(Duration.ofMillis(pool.maxIdleTime()));
+            }
+        }
+        return builder.build();
+    }
+
+    private static WebClient buildWebClient(URL url, ReactorClientHttpConnector connector) {
+        return WebClient.builder()
+                .baseUrl(origin(url))
+                .clientConnector(connector)
+                .build();
+    }
+
+    private static String origin(URL url) {
+        return String.format("%s://%s", url.getProtocol(), url.getAuthority());
+    }
+}
@@ -1,10 +1,12 @@
 package ru.madmax.pet.microcurrency.producer.service;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
 
 @Service
+@ConditionalOnProperty(name = "app.uuid.generator", havingValue = "random")
 public class RandomUUIDGeneratorService implements UUIDGeneratorService {
 
     @Override
@@ -1,85 +1,170 @@
 package ru.madmax.pet.microcurrency.producer.service;
 
-import io.netty.handler.timeout.ReadTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.ClientResponse;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientRequestException;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
-import reactor.netty.http.client.HttpClient;
+import reactor.core.publisher.SignalType;
 import reactor.util.retry.Retry;
+import ru.madmax.pet.microcurrency.producer.exception.CircuitBreakerOpenException;
 import ru.madmax.pet.microcurrency.producer.exception.RemoteServiceException;
 import ru.madmax.pet.microcurrency.common.model.Conversion;
 import ru.madmax.pet.microcurrency.common.model.ServiceRequest;
+import ru.madmax.pet.microcurrency.common.retry.RetryBudget;
 import ru.madmax.pet.microcurrency.producer.model.RequestParams;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.TimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_DEADLINE_KEY;
 import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_ERROR_KEY;
 import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_GUID_KEY;
 
 @Service
 public class ReactRequestService implements CurrencyRequestService {
-    private final HttpClient httpClient;
+    private final WebClientRegistry webClientRegistry;
     private final LogService logService;
+    private final RemoteCircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final Integer requestTimeout;
     private final Integer requestRetryDuration;
     private final Integer requestRetryAttempts;
+    private final MeterRegistry meterRegistry;
+    // таймеры удаленного вызова регистрируются один раз на источник, а не на каждый вызов
+    private final Map<String, RemoteCallTimers> remoteCallTimers = new ConcurrentHashMap<>();
 
-    public ReactRequestService(HttpClient httpClient,
+    public ReactRequestService(WebClientRegistry webClientRegistry,
                                LogService logService,
+                               RemoteCircuitBreaker circuitBreaker,
+                               RetryBudget retryBudget,
+                               @Value("${app.request.timeout}") Integer requestTimeout,
                                @Value("${app.request.retry.duration}") Integer requestRetryDuration,
-                               @Value("${app.request.retry.attempts}") Integer requestRetryAttempts) {
+                               @Value("${app.request.retry.attempts}") Integer requestRetryAttempts,
+                               MeterRegistry meterRegistry) {
+        this.requestTimeout = requestTimeout;
         this.requestRetryDuration = requestRetryDuration;
         this.requestRetryAttempts = requestRetryAttempts;
-        this.httpClient = httpClient;
+        this.webClientRegistry = webClientRegistry;
         this.logService = logService;
+        this.circuitBreaker = circuitBreaker;
+        this.retryBudget = retryBudget;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public Mono<Conversion> sendRequest(ServiceRequest request, RequestParams params) {
-        logService.info(
-                params.getGuid(),
-                String.format("Send to %s", params.getUrl().toString()));
+        logService.info(params.getGuid(), "Send to {}", params.getUrl());
 
-        var webClient = WebClient.builder()
-                .baseUrl(String.format("%s://%s",
-                        params.getUrl().getProtocol(),
-                        params.getUrl().getAuthority()))
-                .defaultHeader(HEADER_REQUEST_GUID_KEY, params.getGuid())
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
-                .build();
+        // удаленный вызов вместе с повторами, от подписки до ответа или окончательной ошибки
+        return Mono.defer(() -> {
+            var sample = Timer.start(meterRegistry);
+            return exchange(request, params)
+                    .doFinally(signal -> sample.stop(remoteCallTimers(params.getSource()).of(signal)));
+        });
+    }
 
-        return webClient
+    /*
+    // Повтор, прошедший фильтр и лимит попыток, еще должен получить жетон общего бюджета повторов.
+    // Без жетона запрос сразу завершается исходной ошибкой
+     */
+    private Mono<Conversion> exchange(ServiceRequest request, RequestParams params) {
+        return Mono.defer(() -> attempt(request, params))
+                .doOnSuccess(conversion -> retryBudget.recordSuccess())
+                .retryWhen(Retry.backoff(requestRetryAttempts, Duration.ofMillis(requestRetryDuration))
+                        .jitter(retryBudget.getJitter())
+                        .doBeforeRetryAsync(retry -> {
+                            if (!retryBudget.tryRetry())
+                                return Mono.error(retry.failure());
+                            logService.info(params.getGuid(), "Retrying, {}", retry.totalRetries());
+                            return Mono.empty();
+                        })
+                        .filter(throwable -> {
+                                logErrorDetails(params.getGuid(), throwable);
+                                return RemoteErrors.isRetryable(throwable);
+                        }));
+    }
+
+    /*
+    // Одна попытка через circuit breaker источника. При открытом breaker'е попытка сразу завершается
+    // RemoteServiceException (она не повторяется), не занимая соединение и не дожидаясь таймаута.
+    // Breaker'у засчитываются только отказы самого источника: сетевые ошибки, таймауты и 5xx без
+    // заголовка ошибки. Ответ с заголовком ошибки - это ответ работающего сервиса
+     */
+    private Mono<Conversion> attempt(ServiceRequest request, RequestParams params) {
+        var source = params.getSource();
+        if (source == null)
+            return call(request, params);
+        long permit = circuitBreaker.tryAcquire(source);
+        if (permit == RemoteCircuitBreaker.REJECTED)
+            return Mono.error(new CircuitBreakerOpenException(source));
+        long start = System.nanoTime();
+        return call(request, params)
+                .doOnSuccess(conversion -> circuitBreaker.release(
+                        source, permit, System.nanoTime() - start, false))
+                .doOnError(throwable -> circuitBreaker.release(
+                        source, permit, System.nanoTime() - start, RemoteErrors.isSourceFailure(throwable)))
+                .doOnCancel(() -> circuitBreaker.cancel(source, permit));
+    }
+
+    // каждая попытка сообщает удаленному сервису, сколько ее ждут: дольше таймаута ответ уже не нужен
+    private Mono<Conversion> call(ServiceRequest request, RequestParams params) {
+        return webClientRegistry.getClient(params)
                 .post()
                 .uri(uriBuilder -> uriBuilder
                         .path(params.getUrl().getPath())
                         .build())
+                .header(HEADER_REQUEST_GUID_KEY, params.getGuid())
+                .header(HEADER_REQUEST_DEADLINE_KEY, String.valueOf(requestTimeout))
                 .body(BodyInserters.fromValue(request))
                 .exchangeToMono(response -> {
                     logResponseDetails(response, params);
                     if (response.statusCode().is2xxSuccessful())
                         return createSuccessMonoResponse(response);
                     return createErrorMonoResponse(response);
-                })
-                .retryWhen(Retry.backoff(requestRetryAttempts, Duration.ofMillis(requestRetryDuration))
-                        .doBeforeRetry(retry -> logService.info(
-                                params.getGuid(),
-                                String.format("Retrying, %d", retry.totalRetries())))
-                        .filter(throwable -> {
-                                logErrorDetails(params.getGuid(), throwable);
-                                return checkForRetryByError(throwable);
-                        }));
+                });
+    }
+
+    private RemoteCallTimers remoteCallTimers(String source) {
+        return remoteCallTimers.computeIfAbsent(source != null ? source : "unknown", RemoteCallTimers::new);
+    }
+
+    private Timer remoteCallTimer(String source, String outcome) {
+        return Timer.builder("mc.producer.remote.call")
+                .description("Remote currency service call including retries")
+                .tag("source", source)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private class RemoteCallTimers {
+        private final Timer success;
+        private final Timer cancelled;
+        private final Timer error;
+
+        private RemoteCallTimers(String source) {
+            this.success = remoteCallTimer(source, "success");
+            this.cancelled = remoteCallTimer(source, "cancelled");
+            this.error = remoteCallTimer(source, "error");
+        }
+
+        // отмена - это не ошибка источника: так завершается, например, проигравшая хеджированная копия
+        private Timer of(SignalType signal) {
+            if (signal == SignalType.ON_COMPLETE)
+                return success;
+            return signal == SignalType.CANCEL ? cancelled : error;
+        }
     }
 
     private void logResponseDetails(ClientResponse response, RequestParams params) {
-        var headersListString = response
+        // список заголовков собирается, только если сообщение действительно будет записано
+        Supplier<String> headersListString = () -> response
                 .headers()
                 .asHttpHeaders()
                 .entrySet()
@@ -87,13 +172,11 @@ public class ReactRequestService implements CurrencyRequestService {
                 .filter(entry -> entry.getKey().startsWith("X-request-"))
                 .map(entry -> entry.getKey() + "=" + entry.getValue())
                 .collect(Collectors.joining(", "));
-        var statusString = response.statusCode().toString();
         logService.info(
                 params.getGuid(),
-                String.format("Response status: %s, specific headers {%s}",
-                    statusString,
-                    headersListString)
-        );
+                "Response status: {}, specific headers {{}}",
+                response.statusCode(),
+                headersListString);
     }
 
     private Mono<Conversion> createSuccessMonoResponse(ClientResponse response) {
@@ -119,15 +202,5 @@ public class ReactRequestService implements CurrencyRequestService {
         );
     }
 
-    private boolean checkForRetryByError(Throwable throwable) {
-        return throwable instanceof ReadTimeoutException ||
-                throwable instanceof WebClientResponseException &&
-                        (
-                                throwable.getMessage().startsWith("502") ||
-                                        throwable.getMessage().startsWith("503")
-                        ) ||
-                throwable instanceof WebClientRequestException &&
-                        throwable.getCause() instanceof TimeoutException;
-    }
 
 }
@@ -0,0 +1,16 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+public interface RemoteCircuitBreaker {
+    long REJECTED = -1;
+
+    // разрешение на вызов источника: метка, которую нужно вернуть в release/cancel, или REJECTED
+    long tryAcquire(String source);
+
+    void release(String source, long permit, long latencyNanos, boolean failed);
+
+    void cancel(String source, long permit);
+
+    State getState(String source);
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+}
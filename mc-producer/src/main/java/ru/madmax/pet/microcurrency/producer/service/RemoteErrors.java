@@ -0,0 +1,54 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import ru.madmax.pet.microcurrency.producer.exception.CircuitBreakerOpenException;
+
+import java.util.concurrent.TimeoutException;
+
+/*
+// Классификация ошибок удаленного вызова.
+// Отказ источника - сетевая ошибка, таймаут или 5xx без заголовка ошибки; ответ с заголовком ошибки
+// (RemoteServiceException) - это ответ работающего сервиса.
+// Перегрузка - отказ источника или отказ открытого circuit breaker'а: только такие ошибки
+// должны уменьшать лимиты нагрузки, бизнес-ошибки о перегрузке не говорят.
+// Повторять (и хеджировать в другой источник) стоит только таймауты и ответы 502/503
+ */
+public final class RemoteErrors {
+
+    private RemoteErrors() {}
+
+    public static boolean isSourceFailure(Throwable throwable) {
+        return throwable instanceof WebClientRequestException ||
+                throwable instanceof ReadTimeoutException ||
+                throwable instanceof TimeoutException ||
+                throwable instanceof WebClientResponseException responseException &&
+                        responseException.getStatusCode().is5xxServerError();
+    }
+
+    public static boolean isOverload(Throwable throwable) {
+        var error = unwrap(throwable);
+        return error instanceof CircuitBreakerOpenException || isSourceFailure(error);
+    }
+
+    public static boolean isRetryable(Throwable throwable) {
+        var error = unwrap(throwable);
+        return error instanceof ReadTimeoutException ||
+                error instanceof WebClientResponseException &&
+                        (
+                                error.getMessage().startsWith("502") ||
+                                        error.getMessage().startsWith("503")
+                        ) ||
+                error instanceof WebClientRequestException &&
+                        error.getCause() instanceof TimeoutException;
+    }
+
+    // исчерпав попытки, повторы заворачивают последнюю ошибку в исключение Reactor'а
+    private static Throwable unwrap(Throwable throwable) {
+        if (Exceptions.isRetryExhausted(throwable) && throwable.getCause() != null)
+            return throwable.getCause();
+        return throwable;
+    }
+}
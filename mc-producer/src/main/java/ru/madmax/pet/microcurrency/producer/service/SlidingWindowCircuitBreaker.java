@@ -0,0 +1,169 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+// Circuit breaker на каждый удаленный источник (id из app.services).
+// CLOSED: исходы последних window-size вызовов хранятся в кольцевом буфере; как только вызовов
+// не меньше minimum-calls и доля ошибок >= failure-rate-threshold % или доля медленных
+// (дольше slow-call-duration) >= slow-call-rate-threshold %, breaker открывается.
+// OPEN: вызовы отклоняются сразу, без обращения к сети, пока не пройдет open-duration.
+// HALF_OPEN: пропускается half-open-calls пробных вызовов; по их исходам с теми же порогами
+// breaker снова открывается или закрывается с чистым окном.
+// Метка разрешения - номер перехода состояния: исход вызова, начатого до перехода, не учитывается
+ */
+@Service
+public class SlidingWindowCircuitBreaker implements RemoteCircuitBreaker {
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final Map<String, SourceBreaker> breakers = new ConcurrentHashMap<>();
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final MeterRegistry meterRegistry;
+
+    public SlidingWindowCircuitBreaker(@Value("${app.circuit-breaker.window-size:20}") Integer windowSize,
+                                       @Value("${app.circuit-breaker.minimum-calls:10}") Integer minimumCalls,
+                                       @Value("${app.circuit-breaker.failure-rate-threshold:50}") Integer failureRateThreshold,
+                                       @Value("${app.circuit-breaker.slow-call-duration:1000}") Long slowCallDuration,
+                                       @Value("${app.circuit-breaker.slow-call-rate-threshold:80}") Integer slowCallRateThreshold,
+                                       @Value("${app.circuit-breaker.open-duration:5000}") Long openDuration,
+                                       @Value("${app.circuit-breaker.half-open-calls:3}") Integer halfOpenCalls,
+                                       MeterRegistry meterRegistry) {
+        this.windowSize = Math.max(windowSize, halfOpenCalls);
+        this.minimumCalls = Math.min(minimumCalls, this.windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallDuration);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDuration);
+        this.halfOpenCalls = halfOpenCalls;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public long tryAcquire(String source) {
+        return breaker(source).tryAcquire();
+    }
+
+    @Override
+    public void release(String source, long permit, long latencyNanos, boolean failed) {
+        breaker(source).release(permit, failed, latencyNanos >= slowCallNanos);
+    }
+
+    @Override
+    public void cancel(String source, long permit) {
+        breaker(source).cancel(permit);
+    }
+
+    @Override
+    public State getState(String source) {
+        return breaker(source).getState();
+    }
+
+    private SourceBreaker breaker(String source) {
+        return breakers.computeIfAbsent(source, this::createBreaker);
+    }
+
+    private SourceBreaker createBreaker(String source) {
+        var breaker = new SourceBreaker();
+        Gauge.builder("mc.producer.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("Circuit breaker state of remote source: 0 - closed, 1 - open, 2 - half-open")
+                .tag("source", source)
+                .register(meterRegistry);
+        return breaker;
+    }
+
+    private final class SourceBreaker {
+        private final byte[] window = new byte[windowSize];
+        private int position;
+        private int calls;
+        private int failures;
+        private int slowCalls;
+        private State state = State.CLOSED;
+        private long generation;
+        private long openedAt;
+        private int halfOpenPermits;
+
+        synchronized long tryAcquire() {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openNanos)
+                    return REJECTED;
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0)
+                    return REJECTED;
+                halfOpenPermits--;
+            }
+            return generation;
+        }
+
+        synchronized void release(long permit, boolean failed, boolean slow) {
+            if (permit != generation)
+                return;
+            record(failed, slow);
+            if (state == State.HALF_OPEN) {
+                if (calls == halfOpenCalls)
+                    transition(overThresholds() ? State.OPEN : State.CLOSED);
+            } else if (calls >= minimumCalls && overThresholds()) {
+                transition(State.OPEN);
+            }
+        }
+
+        // отмененный пробный вызов возвращает разрешение, иначе breaker навсегда остался бы в HALF_OPEN
+        synchronized void cancel(long permit) {
+            if (permit == generation && state == State.HALF_OPEN)
+                halfOpenPermits++;
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+
+        private void record(boolean failed, boolean slow) {
+            if (calls == window.length) {
+                byte oldest = window[position];
+                failures -= oldest & FAILED;
+                slowCalls -= (oldest & SLOW) >> 1;
+            } else {
+                calls++;
+            }
+            window[position] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+            if (failed)
+                failures++;
+            if (slow)
+                slowCalls++;
+            position = (position + 1) % window.length;
+        }
+
+        private boolean overThresholds() {
+            return failures * 100 >= failureRateThreshold * calls ||
+                    slowCalls * 100 >= slowCallRateThreshold * calls;
+        }
+
+        private void transition(State next) {
+            state = next;
+            generation++;
+            position = 0;
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+            if (next == State.OPEN)
+                openedAt = System.nanoTime();
+            if (next == State.HALF_OPEN)
+                halfOpenPermits = halfOpenCalls;
+        }
+    }
+}
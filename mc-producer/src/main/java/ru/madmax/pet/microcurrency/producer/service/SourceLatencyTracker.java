@@ -0,0 +1,58 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+// Скользящая оценка квантиля задержки по каждому источнику: последние SAMPLES замеров в кольцевом буфере.
+// Квантиль пересчитывается (копия + сортировка) раз в RECOMPUTE_EVERY замеров,
+// поэтому чтение - это одно volatile-чтение без сортировки на каждый запрос
+ */
+public class SourceLatencyTracker {
+    public static final long UNKNOWN = -1;
+
+    private static final int SAMPLES = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final double quantile;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public SourceLatencyTracker(double quantile) {
+        this.quantile = quantile;
+    }
+
+    public void record(String source, long latencyNanos) {
+        windows.computeIfAbsent(source, key -> new Window()).record(latencyNanos);
+    }
+
+    // квантиль задержки источника в наносекундах или UNKNOWN, пока замеров меньше MIN_SAMPLES
+    public long quantileNanos(String source) {
+        var window = windows.get(source);
+        return window == null ? UNKNOWN : window.quantileNanos;
+    }
+
+    private final class Window {
+        private final long[] samples = new long[SAMPLES];
+        private int position;
+        private int count;
+        private int sinceRecompute;
+        private volatile long quantileNanos = UNKNOWN;
+
+        synchronized void record(long latencyNanos) {
+            samples[position] = latencyNanos;
+            position = (position + 1) % SAMPLES;
+            if (count < SAMPLES)
+                count++;
+            sinceRecompute++;
+            if (count >= MIN_SAMPLES && (quantileNanos == UNKNOWN || sinceRecompute >= RECOMPUTE_EVERY)) {
+                var sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int rank = (int) Math.ceil(quantile * count) - 1;
+                quantileNanos = sorted[Math.max(0, Math.min(count - 1, rank))];
+                sinceRecompute = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import com.fasterxml.uuid.Generators;
+import com.fasterxml.uuid.impl.TimeBasedEpochGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/*
+// UUIDv7 (RFC 9562): старшие 48 бит - миллисекунды Unix-времени, остальное - случайные биты.
+// Идентификаторы растут со временем, поэтому вставки в первичный ключ идут в правый край индекса,
+// а не разбрасываются по всему B-дереву, как у UUIDv4.
+// Генератор потокобезопасен (вызовы идут под общей блокировкой). Случайные биты берутся из общего
+// SecureRandom, но только в первом вызове каждой миллисекунды: в пределах той же миллисекунды
+// они увеличиваются на единицу, поэтому под нагрузкой SecureRandom вызывается не чаще раза в миллисекунду.
+// Быстрый некриптографический Random не подставляем: guid отдается клиенту и не должен угадываться
+ */
+@Service
+@ConditionalOnProperty(name = "app.uuid.generator", havingValue = "time-ordered", matchIfMissing = true)
+public class TimeOrderedUUIDGeneratorService implements UUIDGeneratorService {
+    private final TimeBasedEpochGenerator generator = Generators.timeBasedEpochGenerator();
+
+    @Override
+    public String randomGenerate() {
+        return generator.generate().toString();
+    }
+}
@@ -0,0 +1,8 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.madmax.pet.microcurrency.producer.model.RequestParams;
+
+public interface WebClientRegistry {
+    WebClient getClient(RequestParams params);
+}
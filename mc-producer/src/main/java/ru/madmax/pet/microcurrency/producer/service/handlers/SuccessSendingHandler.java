@@ -11,16 +11,18 @@ import java.util.function.BiConsumer;
 @Component
 @RequiredArgsConstructor
 public class SuccessSendingHandler implements BiConsumer<String, SendResult<String, MessageDTO>> {
+    private static final String SENT_PATTERN =
+            "Successful sending: {}" + System.lineSeparator() + "Metadata: partition: {}, offset: {}";
     private final LogService logService;
 
     @Override
     public void accept(String key, SendResult<String, MessageDTO> result) {
-        logService.info(
+        logService.success(
                 key,
-                String.format("Successful sending: %s%nMetadata: partition: %s, offset: %s",
-                    result.getProducerRecord().value(),
-                    result.getRecordMetadata().partition(),
-                    result.getRecordMetadata().offset()));
+                SENT_PATTERN,
+                result.getProducerRecord().value(),
+                result.getRecordMetadata().partition(),
+                result.getRecordMetadata().offset());
     }
 
 
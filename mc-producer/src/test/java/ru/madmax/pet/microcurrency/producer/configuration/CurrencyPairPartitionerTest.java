@@ -0,0 +1,87 @@
+package ru.madmax.pet.microcurrency.producer.configuration;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.jupiter.api.Test;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.common.model.MessageDTO;
+import ru.madmax.pet.microcurrency.common.model.MessageType;
+import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
+import ru.madmax.pet.microcurrency.common.model.TestMessageDTOBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrencyPairPartitionerTest {
+    private static final String TOPIC = "test-topic";
+    private static final int PARTITIONS = 6;
+    private final CurrencyPairPartitioner partitioner = new CurrencyPairPartitioner();
+    private final Cluster cluster = clusterWithPartitions(PARTITIONS);
+
+    @Test
+    void partition_ForSamePair_ReturnsSamePartition_RegardlessOfKey() {
+        var first = partition("guid-1", currencyMessage(Currency.RUB, Currency.USD));
+        var second = partition("guid-2", currencyMessage(Currency.RUB, Currency.USD));
+
+        assertThat(first).isEqualTo(second).isBetween(0, PARTITIONS - 1);
+    }
+
+    @Test
+    void partition_ForDifferentPairs_SpreadsOverSeveralPartitions() {
+        var partitions = new HashSet<Integer>();
+        for (var base : Currency.values())
+            for (var convert : Currency.values())
+                partitions.add(partition("guid", currencyMessage(base, convert)));
+
+        assertThat(partitions).hasSizeGreaterThan(1).allMatch(p -> p >= 0 && p < PARTITIONS);
+    }
+
+    @Test
+    void partition_ForMessageWithoutConversion_UsesKey() {
+        var message = TestMessageDTOBuilder.aMessageDTO().withType(MessageType.ERROR).build();
+        var partitions = IntStream.range(0, 50)
+                .mapToObj(i -> partition("guid-" + i, message))
+                .distinct()
+                .toList();
+
+        assertThat(partitions).hasSizeGreaterThan(1);
+        assertThat(partition("guid-1", message)).isEqualTo(partition("guid-1", message));
+    }
+
+    @Test
+    void partition_ForSinglePartitionTopic_ReturnsZero() {
+        var singlePartitionCluster = clusterWithPartitions(1);
+        var message = currencyMessage(Currency.USD, Currency.CAD);
+
+        assertThat(partitioner.partition(TOPIC, "guid", bytes("guid"), message, null, singlePartitionCluster))
+                .isZero();
+    }
+
+    private int partition(String key, MessageDTO message) {
+        return partitioner.partition(TOPIC, key, bytes(key), message, null, cluster);
+    }
+
+    private static MessageDTO currencyMessage(Currency base, Currency convert) {
+        return TestMessageDTOBuilder.aMessageDTO()
+                .withConversion(TestConversionBuilder.aConversion().withBase(base).withConvert(convert).build())
+                .build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Cluster clusterWithPartitions(int count) {
+        var node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = IntStream.range(0, count)
+                .mapToObj(i -> new PartitionInfo(TOPIC, i, node, new Node[]{node}, new Node[]{node}))
+                .toList();
+        return new Cluster("cluster", List.of(node), partitions, Collections.emptySet(), Collections.emptySet());
+    }
+}
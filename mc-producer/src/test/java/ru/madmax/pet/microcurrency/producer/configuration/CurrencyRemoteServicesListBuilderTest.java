@@ -42,4 +42,11 @@ class CurrencyRemoteServicesListBuilderTest {
     void checkForNonexistingServiceInMap() {
         assertThrows(WrongSourceException.class, () -> servicesBuilder.getURLByKey("123"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void checkForEquivalentSourcesOfGroup() {
+        assertThat(servicesBuilder.getEquivalentSources("first")).containsExactly("second");
+        assertThat(servicesBuilder.getEquivalentSources("second")).containsExactly("first");
+        assertThat(servicesBuilder.getEquivalentSources("123")).isEmpty();
+    }
+}
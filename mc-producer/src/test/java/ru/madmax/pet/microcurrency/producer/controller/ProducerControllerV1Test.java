@@ -7,11 +7,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
 import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.producer.exception.AdmissionRejectedException;
 import ru.madmax.pet.microcurrency.producer.exception.RemoteServiceException;
 import ru.madmax.pet.microcurrency.producer.model.TestClientRequestBuilder;
 import ru.madmax.pet.microcurrency.producer.service.CurrencyService;
@@ -283,4 +285,22 @@ class ProducerControllerV1Test {
                 .expectHeader().doesNotExist(HEADER_REQUEST_GUID_KEY)
                 .expectHeader().valueEquals(HEADER_REQUEST_ERROR_KEY, "Test error");
     }
-}
\ No newline at end of file
+
+    @Test
+    void currencyRequest_WhenAdmissionIsRejected_AndGet503Status_WithDetailsHeader() throws JsonProcessingException {
+        var request = TestClientRequestBuilder.aRequest().build();
+        String requestStr = objectMapper.writeValueAsString(request);
+        when(currencyService.registerRequest(any(ClientRequest.class)))
+                .thenReturn(Mono.error(new AdmissionRejectedException(10)));
+
+        webTestClient
+                .post()
+                .uri("/api/v1/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(requestStr))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectHeader().valueEquals(HEADER_REQUEST_ERROR_KEY, "Too many requests in flight (limit 10)");
+    }
+}
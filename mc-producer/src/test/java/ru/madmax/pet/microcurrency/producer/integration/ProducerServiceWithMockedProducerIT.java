@@ -2,6 +2,7 @@ package ru.madmax.pet.microcurrency.producer.integration;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import lombok.RequiredArgsConstructor;
 import okhttp3.mockwebserver.Dispatcher;
@@ -9,11 +10,13 @@ import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -40,8 +43,10 @@ import ru.madmax.pet.microcurrency.common.model.MessageDTO;
 import ru.madmax.pet.microcurrency.common.model.MessageType;
 import ru.madmax.pet.microcurrency.common.model.ServiceRequest;
 import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
+import ru.madmax.pet.microcurrency.producer.configuration.DispatchSchedulerConfiguration;
 import ru.madmax.pet.microcurrency.producer.configuration.HttpClientConfiguration;
 import ru.madmax.pet.microcurrency.producer.configuration.KafkaConfiguration;
+import ru.madmax.pet.microcurrency.producer.configuration.RetryBudgetConfiguration;
 import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder;
 import ru.madmax.pet.microcurrency.producer.controller.ExceptionHandlerController;
 import ru.madmax.pet.microcurrency.producer.controller.ProducerControllerV1;
@@ -88,13 +93,19 @@ import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_E
         KafkaProperties.class,
         CurrencyRemoteServicesListBuilder.class,
         HttpClientConfiguration.class,
+        DispatchSchedulerConfiguration.class,
         KafkaConfiguration.class,
         CurrencyKafkaSenderServiceViaConsumerFactoryConfiguration.class,
         Slf4JLogService.class,
-        RandomUUIDGeneratorService.class,
+        TimeOrderedUUIDGeneratorService.class,
         SuccessSendingHandler.class,
         ErrorSendingHandler.class,
         CurrencyKafkaSenderService.class,
+        PooledWebClientRegistry.class,
+        AimdAdmissionLimiter.class,
+        SlidingWindowCircuitBreaker.class,
+        SimpleMeterRegistry.class,
+        RetryBudgetConfiguration.class,
         ReactRequestService.class,
         CurrencyFacadeService.class,
         ProducerControllerV1.class,
@@ -110,7 +121,7 @@ import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_E
 class ProducerServiceWithMockedProducerIT {
     final WebTestClient webTestClient;
     MockWebServer remoteMockServer;
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
     @SpyBean
     KafkaTemplate<String, MessageDTO> kafkaTemplate;
@@ -185,7 +196,7 @@ class ProducerServiceWithMockedProducerIT {
         assertThat(consumerRecord.value().getType()).isEqualTo(MessageType.CURRENCY);
         assertThat(records).isEmpty();
 
-        verify(logService, times(6)).info(anyString(), stringCaptor.capture());
+        verify(logService, timeout(1000).times(6)).info(anyString(), stringCaptor.capture());
         verify(logService, never()).error(anyString(), anyString());
         stringCaptor.getAllValues().forEach(System.out::println);
     }
@@ -235,7 +246,7 @@ class ProducerServiceWithMockedProducerIT {
         assertThat(consumerRecord.value().getType()).isEqualTo(MessageType.ERROR);
         assertThat(records).isEmpty();
 
-        verify(logService, times(7)).info(anyString(), stringCaptor.capture());
+        verify(logService, timeout(1000).times(7)).info(anyString(), stringCaptor.capture());
         verify(logService, times(3)).error(anyString(), stringCaptor.capture());
         stringCaptor.getAllValues().forEach(System.out::println);
 
@@ -288,7 +299,7 @@ class ProducerServiceWithMockedProducerIT {
         assertThat(consumerRecord.value().getType()).isEqualTo(MessageType.CURRENCY);
         assertThat(records).isEmpty();
 
-        verify(logService, times(8)).info(anyString(), stringCaptor.capture());
+        verify(logService, timeout(1000).times(8)).info(anyString(), stringCaptor.capture());
         verify(logService, times(1)).error(anyString(), stringCaptor.capture());
         stringCaptor.getAllValues().forEach(System.out::println);
 
@@ -350,7 +361,7 @@ class ProducerServiceWithMockedProducerIT {
         ConsumerRecord<String, MessageDTO> consumerRecord = records.poll(10, TimeUnit.SECONDS);
         assertThat(consumerRecord).isNull();
 
-        verify(logService, times(1)).info(anyString(), stringCaptor.capture());
+        verify(logService, timeout(1000).times(1)).info(anyString(), stringCaptor.capture());
         verify(logService, never()).error(anyString(), anyString());
         stringCaptor.getAllValues().forEach(System.out::println);
 
@@ -363,7 +374,7 @@ class ProducerServiceWithMockedProducerIT {
         var objectMapper = new ObjectMapper();
 
         Throwable error = new KafkaException("Mock kafka error!");
-        doThrow(error).when(kafkaTemplate).send(anyString(), anyString(), any(MessageDTO.class));
+        doThrow(error).when(kafkaTemplate).send(any(ProducerRecord.class));
 
         final ClientRequest clientRequest = TestClientRequestBuilder.aRequest().build();
         final String stringRequest = objectMapper.writeValueAsString(clientRequest);
@@ -393,7 +404,7 @@ class ProducerServiceWithMockedProducerIT {
         ConsumerRecord<String, MessageDTO> consumerRecord = records.poll(20, TimeUnit.SECONDS);
         assertThat(consumerRecord).isNull();
 
-        verify(logService, times(5)).info(anyString(), stringCaptor.capture());
+        verify(logService, timeout(1000).times(5)).info(anyString(), stringCaptor.capture());
         verify(logService, times(1)).error(anyString(), stringCaptor.capture());
         stringCaptor.getAllValues().forEach(System.out::println);
     }
@@ -447,7 +458,7 @@ class ProducerServiceWithMockedProducerIT {
         assertThat(consumerRecord.value().getType()).isEqualTo(MessageType.ERROR);
         assertThat(records).isEmpty();
 
-        verify(logService, times(5)).info(anyString(), stringCaptor.capture());
+        verify(logService, timeout(1000).times(5)).info(anyString(), stringCaptor.capture());
         verify(logService, times(2)).error(anyString(), stringCaptor.capture());
         stringCaptor.getAllValues().forEach(System.out::println);
     }
@@ -588,7 +599,7 @@ class ProducerServiceWithMockedProducerIT {
         assertThat(consumerRecord.value().getType()).isEqualTo(MessageType.ERROR);
         assertThat(records).isEmpty();
 
-        verify(logService, times(7)).info(anyString(), stringCaptor.capture());
+        verify(logService, timeout(1000).times(7)).info(anyString(), stringCaptor.capture());
         verify(logService, times(3)).error(anyString(), stringCaptor.capture());
         stringCaptor.getAllValues().forEach(System.out::println);
     }
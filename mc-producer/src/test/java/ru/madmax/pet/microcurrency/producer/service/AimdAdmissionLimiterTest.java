@@ -0,0 +1,77 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AimdAdmissionLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(2000);
+
+    @Test
+    void tryAcquire_WhenLimitIsReached_ReturnsFalse_AndAfterReleaseReturnsTrue() {
+        var limiter = new AimdAdmissionLimiter(2, 2, 10, 1000L, 0.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        limiter.release(FAST, false);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void release_WithFastResponseUnderLoad_IncreasesLimitAdditively() {
+        var limiter = new AimdAdmissionLimiter(4, 2, 5, 1000L, 0.5);
+        for (int i = 0; i < 4; i++)
+            limiter.tryAcquire();
+
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void release_WithFastResponseWithoutLoad_KeepsLimit() {
+        var limiter = new AimdAdmissionLimiter(10, 2, 20, 1000L, 0.5);
+        limiter.tryAcquire();
+
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void release_WithSlowOrOverloadedResponse_DecreasesLimitMultiplicatively_NotBelowMinimum()
+            throws InterruptedException {
+        var limiter = new AimdAdmissionLimiter(8, 3, 20, 1000L, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        // регистрация начата уже после предыдущего уменьшения
+        TimeUnit.MILLISECONDS.sleep(20);
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void release_WithConcurrentOverloadedResponses_DecreasesLimitOncePerResponseTime() {
+        var limiter = new AimdAdmissionLimiter(100, 3, 200, 1000L, 0.5);
+        for (int i = 0; i < 10; i++)
+            limiter.tryAcquire();
+
+        for (int i = 0; i < 10; i++)
+            limiter.release(FAST, true);
+
+        assertThat(limiter.getLimit()).isEqualTo(50);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+}
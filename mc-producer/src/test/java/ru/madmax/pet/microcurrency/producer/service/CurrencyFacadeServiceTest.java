@@ -2,9 +2,13 @@ package ru.madmax.pet.microcurrency.producer.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.AdditionalAnswers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -22,19 +26,25 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import ru.madmax.pet.microcurrency.common.model.*;
 import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder;
+import ru.madmax.pet.microcurrency.producer.configuration.DispatchSchedulerConfiguration;
+import ru.madmax.pet.microcurrency.producer.exception.AdmissionRejectedException;
 import ru.madmax.pet.microcurrency.producer.exception.AppProducerException;
+import ru.madmax.pet.microcurrency.producer.exception.RemoteServiceException;
 import ru.madmax.pet.microcurrency.producer.exception.WrongSourceException;
 import ru.madmax.pet.microcurrency.producer.model.*;
 
 import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith({SpringExtension.class, MockitoExtension.class})
@@ -43,11 +53,17 @@ import static org.mockito.Mockito.*;
         "app.services[0].host=http://value1.ru",
         "app.services[0].id=first",
         "app.services[0].path=/value2"})
-@ContextConfiguration(classes = {CurrencyRemoteServicesListBuilder.class, CurrencyFacadeService.class})
+@ContextConfiguration(classes = {
+        CurrencyRemoteServicesListBuilder.class,
+        DispatchSchedulerConfiguration.class,
+        AimdAdmissionLimiter.class,
+        SimpleMeterRegistry.class,
+        CurrencyFacadeService.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @ActiveProfiles("test")
 class CurrencyFacadeServiceTest {
     final CurrencyService currencyFacadeService;
+    final MeterRegistry meterRegistry;
 
     @MockBean
     CurrencyRequestService requestService;
@@ -58,15 +74,24 @@ class CurrencyFacadeServiceTest {
     @MockBean
     UUIDGeneratorService uuidGeneratorService;
 
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @SpyBean
     ObjectMapper objectMapper;
 
+    @SpyBean
+    AdmissionLimiter admissionLimiter;
+
     @Captor
     ArgumentCaptor<ServiceRequest> requestCaptor;
 
+    @AfterEach
+    void waitForDetachedWork() {
+        // ответ обрабатывается асинхронно; не даем ему "доехать" до моков следующего теста
+        await().atMost(2, TimeUnit.SECONDS).until(() -> admissionLimiter.getInFlight() == 0);
+    }
+
     @Captor
     ArgumentCaptor<String> infoCaptor;
 
@@ -89,7 +114,7 @@ class CurrencyFacadeServiceTest {
         var response = TestConversionBuilder.aConversion().build();
         when(requestService.sendRequest(any(), any())).thenReturn(Mono.just(response));
 
-        doNothing().when(producerService).produceMessage(any(), any());
+        doNothing().when(producerService).produceMessage(any(), any(), anyLong());
         doNothing().when(logService).info(anyString(), anyString());
         doNothing().when(logService).error(anyString(), anyString());
 
@@ -103,6 +128,27 @@ class CurrencyFacadeServiceTest {
     }
 
 
+    @Test
+    void registerRequest_PassesRegistrationTimeAsOriginTimestamp_AndRecordsRegistrationTimer() {
+        final String guid = "test-guid-origin";
+        when(uuidGeneratorService.randomGenerate()).thenReturn(guid);
+        when(requestService.sendRequest(any(), any()))
+                .thenReturn(Mono.just(TestConversionBuilder.aConversion().build()));
+        doNothing().when(producerService).produceMessage(any(), any(), anyLong());
+        doNothing().when(logService).info(anyString(), anyString());
+
+        var registrationTimer = meterRegistry.timer("mc.producer.registration", "outcome", "success");
+        long countBefore = registrationTimer.count();
+        long registeredFrom = System.currentTimeMillis();
+        currencyFacadeService.registerRequest(TestClientRequestBuilder.aRequest().build()).block();
+
+        var originCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(producerService, timeout(1000).times(1))
+                .produceMessage(eq(guid), any(MessageDTO.class), originCaptor.capture());
+        assertThat(originCaptor.getValue()).isBetween(registeredFrom, System.currentTimeMillis());
+        await().atMost(1, TimeUnit.SECONDS).until(() -> registrationTimer.count() == countBefore + 1);
+    }
+
     @Test
     void registerRequest_happyPass_andCheckForServicesCallsAndTheirParams() throws JsonProcessingException {
         final String guid = "test-guid-1";
@@ -115,7 +161,7 @@ class CurrencyFacadeServiceTest {
 
         when(requestService.sendRequest(any(ClientRequest.class), any(RequestParams.class)))
                 .thenReturn(Mono.just(response));
-        doNothing().when(producerService).produceMessage(eq(guid), any(MessageDTO.class));
+        doNothing().when(producerService).produceMessage(eq(guid), any(MessageDTO.class), anyLong());
 
         doNothing().when(logService).info(anyString(), anyString());
         doNothing().when(logService).error(anyString(), anyString());
@@ -135,13 +181,13 @@ class CurrencyFacadeServiceTest {
         assertThat(requestParamsForVerify.getUrl().toString()).contains("http://value1.ru/value2");
 
         verify(uuidGeneratorService, times(1)).randomGenerate();
-        verify(producerService, times(1)).produceMessage(eq(guid), messageDTOCaptor.capture());
+        verify(producerService, timeout(1000).times(1)).produceMessage(eq(guid), messageDTOCaptor.capture(), anyLong());
         MessageDTO messageDTOForVerify = messageDTOCaptor.getValue();
         assertThat(messageDTOForVerify).isNotNull();
         assertThat(messageDTOForVerify.getType()).isEqualTo(MessageType.CURRENCY);
         assertThat(messageDTOForVerify.getMessage()).isEqualTo(messageDTO.getMessage());
 
-        verify(logService, times(2)).info(keyCaptor.capture(), infoCaptor.capture());
+        verify(logService, timeout(1000).times(2)).info(keyCaptor.capture(), infoCaptor.capture());
         List<String> infoStringList = infoCaptor.getAllValues();
         List<String> keyValues = keyCaptor.getAllValues();
         assertThat(infoStringList.get(0)).contains(
@@ -163,7 +209,7 @@ class CurrencyFacadeServiceTest {
         when(requestService.sendRequest(any(ServiceRequest.class), any(RequestParams.class)))
                 .thenReturn(Mono.error(error));
 
-        doNothing().when(producerService).produceMessage(eq(guid), any(MessageDTO.class));
+        doNothing().when(producerService).produceMessage(eq(guid), any(MessageDTO.class), anyLong());
 
         doNothing().when(logService).info(anyString(), anyString());
         doNothing().when(logService).error(anyString(), anyString());
@@ -173,13 +219,13 @@ class CurrencyFacadeServiceTest {
 
         verify(requestService, times(1)).sendRequest(requestCaptor.capture(), requestParamsCaptor.capture());
         verify(uuidGeneratorService, times(1)).randomGenerate();
-        verify(producerService, times(1)).produceMessage(eq(guid), messageDTOCaptor.capture());
+        verify(producerService, timeout(1000).times(1)).produceMessage(eq(guid), messageDTOCaptor.capture(), anyLong());
         MessageDTO messageDTOForVerify = messageDTOCaptor.getValue();
         assertThat(messageDTOForVerify).isNotNull();
         assertThat(messageDTOForVerify.getType()).isEqualTo(MessageType.ERROR);
         assertThat(messageDTOForVerify.getMessage()).contains("Test-error");
 
-        verify(logService, times(1)).error(keyCaptor.capture(), errorCaptor.capture());
+        verify(logService, timeout(1000).times(1)).error(keyCaptor.capture(), errorCaptor.capture());
         String errorString = errorCaptor.getValue();
         String keyValue = keyCaptor.getValue();
         assertThat(errorString).contains(
@@ -188,7 +234,7 @@ class CurrencyFacadeServiceTest {
                 "RuntimeException");
         assertThat(keyValue).isEqualTo(guid);
 
-        verify(logService, times(1)).info(anyString(), anyString());
+        verify(logService, timeout(1000).times(1)).info(anyString(), anyString());
     }
 
 
@@ -201,7 +247,7 @@ class CurrencyFacadeServiceTest {
         when(requestService.sendRequest(any(), any())).thenReturn(Mono.just(response));
 
         RuntimeException appError = new AppProducerException("Test-error");
-        doThrow(appError).when(producerService).produceMessage(any(), any());
+        doThrow(appError).when(producerService).produceMessage(any(), any(), anyLong());
         doNothing().when(logService).info(anyString(), anyString());
         doNothing().when(logService).error(anyString(), anyString());
 
@@ -224,7 +270,7 @@ class CurrencyFacadeServiceTest {
         when(requestService.sendRequest(any(), any())).thenReturn(Mono.just(response));
 
         RuntimeException appError = new AppProducerException("Test-error");
-        doThrow(appError).when(producerService).produceMessage(any(), any());
+        doThrow(appError).when(producerService).produceMessage(any(), any(), anyLong());
         doNothing().when(logService).info(anyString(), anyString());
         doNothing().when(logService).error(anyString(), anyString());
 
@@ -233,7 +279,7 @@ class CurrencyFacadeServiceTest {
 
         verify(requestService, times(1)).sendRequest(requestCaptor.capture(), requestParamsCaptor.capture());
         verify(uuidGeneratorService, times(1)).randomGenerate();
-        verify(producerService, times(2)).produceMessage(eq(guid), messageDTOCaptor.capture());
+        verify(producerService, timeout(1000).times(2)).produceMessage(eq(guid), messageDTOCaptor.capture(), anyLong());
         List<MessageDTO> messageDTOListForVerify = messageDTOCaptor.getAllValues();
         assertThat(messageDTOListForVerify.get(0)).isNotNull();
         assertThat(messageDTOListForVerify.get(0).getType()).isEqualTo(MessageType.CURRENCY);
@@ -241,7 +287,7 @@ class CurrencyFacadeServiceTest {
         assertThat(messageDTOListForVerify.get(1).getType()).isEqualTo(MessageType.ERROR);
         assertThat(messageDTOListForVerify.get(1).getMessage()).contains("Test-error");
 
-        verify(logService, times(1)).error(keyCaptor.capture(), errorCaptor.capture());
+        verify(logService, timeout(1000).times(1)).error(keyCaptor.capture(), errorCaptor.capture());
         String errorString = errorCaptor.getValue();
         String keyValue = keyCaptor.getValue();
         assertThat(errorString).contains(
@@ -250,7 +296,7 @@ class CurrencyFacadeServiceTest {
                 "AppProducerException");
         assertThat(keyValue).isEqualTo(guid);
 
-        verify(logService, times(2)).info(anyString(), anyString());
+        verify(logService, timeout(1000).times(2)).info(anyString(), anyString());
     }
 
     @Test
@@ -269,16 +315,17 @@ class CurrencyFacadeServiceTest {
         doAnswer((Answer<Void>) invocationOnMock -> {
             facadeMethodCompleteTime.set(System.nanoTime());
             return null;
-        }).when(producerService).produceMessage(eq(guid), any(MessageDTO.class));
+        }).when(producerService).produceMessage(eq(guid), any(MessageDTO.class), anyLong());
 
         ClientRequest request = TestClientRequestBuilder.aRequest().build();
-        currencyFacadeService.registerRequest(request);
+        currencyFacadeService.registerRequest(request).block();
 
         var returnFacadeMethodTime = System.nanoTime();
 
         await().atMost(1500, TimeUnit.MILLISECONDS)
-                .until(() ->
-                        ((int)((facadeMethodCompleteTime.get() - returnFacadeMethodTime) / 1_000_000_000) != 1));
+                .until(() -> facadeMethodCompleteTime.get() != 0);
+        // задержка удаленного сервиса отсчитывается с момента отправки запроса, чуть раньше возврата из метода
+        assertThat((facadeMethodCompleteTime.get() - returnFacadeMethodTime) / 1_000_000).isBetween(800L, 1500L);
     }
 
     @Test
@@ -315,4 +362,66 @@ class CurrencyFacadeServiceTest {
         assertThatThrownBy(mono::block).isInstanceOf(WrongSourceException.class);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void registerRequest_AndCheckThatResponseIsProducedOnDispatchScheduler() {
+        final String guid = "test-guid-1";
+        when(uuidGeneratorService.randomGenerate()).thenReturn(guid);
+
+        var response = TestConversionBuilder.aConversion().build();
+        when(requestService.sendRequest(any(), any())).thenReturn(Mono.just(response));
+
+        final AtomicReference<String> producerThreadName = new AtomicReference<>();
+        doAnswer((Answer<Void>) invocationOnMock -> {
+            producerThreadName.set(Thread.currentThread().getName());
+            return null;
+        }).when(producerService).produceMessage(eq(guid), any(MessageDTO.class), anyLong());
+
+        ClientRequest request = TestClientRequestBuilder.aRequest().build();
+        currencyFacadeService.registerRequest(request).block();
+
+        await().atMost(1000, TimeUnit.MILLISECONDS).until(() -> producerThreadName.get() != null);
+        assertThat(producerThreadName.get()).startsWith("remote-dispatch");
+    }
+
+    @Test
+    void registerRequest_WhenAdmissionLimitIsReached_AndThrowsAdmissionRejectedException_WithoutRemoteCall() {
+        when(uuidGeneratorService.randomGenerate()).thenReturn("guid");
+        doReturn(false).when(admissionLimiter).tryAcquire();
+
+        ClientRequest request = TestClientRequestBuilder.aRequest().build();
+        var mono = currencyFacadeService.registerRequest(request);
+
+        assertThatThrownBy(mono::block).isInstanceOf(AdmissionRejectedException.class);
+        verify(requestService, never()).sendRequest(any(), any());
+        verify(producerService, never()).produceMessage(any(), any(), anyLong());
+    }
+
+    @Test
+    void registerRequest_AndCheckThatAdmissionPermitIsReleasedAfterResponse() {
+        when(uuidGeneratorService.randomGenerate()).thenReturn("guid");
+        when(requestService.sendRequest(any(), any()))
+                .thenReturn(Mono.error(new TimeoutException("Test-error")));
+
+        ClientRequest request = TestClientRequestBuilder.aRequest().build();
+        currencyFacadeService.registerRequest(request).block();
+
+        verify(admissionLimiter, timeout(1000).times(1)).release(anyLong(), eq(true));
+        // spy фиксирует вызов release до того, как реальный метод освободит разрешение
+        await().atMost(1, TimeUnit.SECONDS).until(() -> admissionLimiter.getInFlight() == 0);
+    }
+
+    @Test
+    void registerRequest_WithBusinessErrorResponse_AndCheckThatItIsNotCountedAsOverload() {
+        when(uuidGeneratorService.randomGenerate()).thenReturn("guid");
+        when(requestService.sendRequest(any(), any()))
+                .thenReturn(Mono.error(new RemoteServiceException("Test-error")));
+
+        ClientRequest request = TestClientRequestBuilder.aRequest().build();
+        currencyFacadeService.registerRequest(request).block();
+
+        verify(admissionLimiter, timeout(1000).times(1)).release(anyLong(), eq(false));
+        // spy фиксирует вызов release до того, как реальный метод освободит разрешение
+        await().atMost(1, TimeUnit.SECONDS).until(() -> admissionLimiter.getInFlight() == 0);
+    }
+}
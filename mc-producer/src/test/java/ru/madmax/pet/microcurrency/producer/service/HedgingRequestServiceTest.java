@@ -0,0 +1,184 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.madmax.pet.microcurrency.common.model.Conversion;
+import ru.madmax.pet.microcurrency.common.model.ServiceRequest;
+import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
+import ru.madmax.pet.microcurrency.common.model.TestServiceRequestBuilder;
+import ru.madmax.pet.microcurrency.common.retry.RetryBudget;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder;
+import ru.madmax.pet.microcurrency.producer.exception.RemoteServiceException;
+import ru.madmax.pet.microcurrency.producer.model.RequestParams;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HedgingRequestServiceTest {
+    @Mock
+    ReactRequestService requestService;
+    @Mock
+    CurrencyRemoteServicesListBuilder servicesBuilder;
+    @Mock
+    LogService logService;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    HedgingRequestService hedgingService;
+    final ServiceRequest serviceRequest = TestServiceRequestBuilder.aRequest().build();
+    final Conversion primaryConversion = TestConversionBuilder.aConversion().withSource("primary").build();
+    final Conversion hedgeConversion = TestConversionBuilder.aConversion().withSource("hedge").build();
+    RequestParams params;
+
+    @BeforeEach
+    void initialize() throws MalformedURLException {
+        hedgingService = new HedgingRequestService(requestService, servicesBuilder, logService,
+                new RetryBudget(0.1, 10, 0.5), 0.95, 50L, 10L, meterRegistry);
+        params = RequestParams.builder()
+                .guid("test-guid")
+                .source("primary")
+                .url(new URL("http://primary.ru/convert"))
+                .build();
+    }
+
+    @Test
+    void sendRequest_WhenPrimaryAnswersBeforeHedgeDelay_HedgeIsNotSent() throws MalformedURLException {
+        givenGroupOfPrimaryAndHedge();
+        when(requestService.sendRequest(any(), argThat(p -> p != null && "primary".equals(p.getSource()))))
+                .thenReturn(Mono.just(primaryConversion));
+
+        StepVerifier.create(hedgingService.sendRequest(serviceRequest, params))
+                .expectNext(primaryConversion)
+                .expectComplete()
+                .verify();
+
+        verify(requestService, never()).sendRequest(any(), argThat(p -> p != null && "hedge".equals(p.getSource())));
+    }
+
+    @Test
+    void sendRequest_WhenPrimaryIsSlow_HedgeWins_AndPrimaryIsCancelled() throws MalformedURLException {
+        givenGroupOfPrimaryAndHedge();
+        var primaryCancelled = new AtomicBoolean();
+        when(requestService.sendRequest(any(), argThat(p -> p != null && "primary".equals(p.getSource()))))
+                .thenReturn(Mono.just(primaryConversion)
+                        .delayElement(Duration.ofSeconds(5))
+                        .doOnCancel(() -> primaryCancelled.set(true)));
+        when(requestService.sendRequest(any(), argThat(p -> p != null && "hedge".equals(p.getSource()))))
+                .thenReturn(Mono.just(hedgeConversion));
+
+        StepVerifier.create(hedgingService.sendRequest(serviceRequest, params))
+                .expectNext(hedgeConversion)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+
+        assertThat(primaryCancelled).isTrue();
+        assertThat(meterRegistry.get("mc.producer.hedge").tag("source", "primary").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void sendRequest_WhenPrimaryFailsWithRetryableError_HedgeIsSentAtOnce_AndBothFail_PrimaryErrorIsReturned()
+            throws MalformedURLException {
+        givenGroupOfPrimaryAndHedge();
+        when(requestService.sendRequest(any(), argThat(p -> p != null && "primary".equals(p.getSource()))))
+                .thenReturn(Mono.error(serviceUnavailable("primary is down")));
+        when(requestService.sendRequest(any(), argThat(p -> p != null && "hedge".equals(p.getSource()))))
+                .thenReturn(Mono.error(serviceUnavailable("hedge is down")));
+
+        StepVerifier.create(withLongHedgeDelay(new RetryBudget(0.1, 10, 0.5)).sendRequest(serviceRequest, params))
+                .expectErrorMatches(throwable -> throwable instanceof WebClientResponseException &&
+                        throwable.getMessage().contains("primary is down"))
+                .verify(Duration.ofSeconds(2));
+
+        verify(requestService).sendRequest(any(), argThat(p -> p != null && "hedge".equals(p.getSource())));
+    }
+
+    @Test
+    void sendRequest_WhenPrimaryFailsWithBusinessError_HedgeIsNotSent_AndErrorIsReturnedAtOnce()
+            throws MalformedURLException {
+        givenGroupOfPrimaryAndHedge();
+        when(requestService.sendRequest(any(), argThat(p -> p != null && "primary".equals(p.getSource()))))
+                .thenReturn(Mono.error(new RemoteServiceException("wrong currency")));
+
+        StepVerifier.create(withLongHedgeDelay(new RetryBudget(0.1, 10, 0.5)).sendRequest(serviceRequest, params))
+                .expectErrorMatches(throwable -> throwable instanceof RemoteServiceException &&
+                        throwable.getMessage().equals("wrong currency"))
+                .verify(Duration.ofSeconds(2));
+
+        verify(requestService, never()).sendRequest(any(), argThat(p -> p != null && "hedge".equals(p.getSource())));
+    }
+
+    @Test
+    void sendRequest_WhenRetryBudgetIsExhausted_HedgeIsNotSent_AndPrimaryErrorIsReturned()
+            throws MalformedURLException {
+        givenGroupOfPrimaryAndHedge();
+        when(requestService.sendRequest(any(), argThat(p -> p != null && "primary".equals(p.getSource()))))
+                .thenReturn(Mono.error(serviceUnavailable("primary is down")));
+        var retryBudget = new RetryBudget(0.1, 1, 0.5);
+        assertThat(retryBudget.tryRetry()).isTrue();
+
+        StepVerifier.create(withLongHedgeDelay(retryBudget).sendRequest(serviceRequest, params))
+                .expectErrorMatches(throwable -> throwable instanceof WebClientResponseException &&
+                        throwable.getMessage().contains("primary is down"))
+                .verify(Duration.ofSeconds(2));
+
+        verify(requestService, never()).sendRequest(any(), argThat(p -> p != null && "hedge".equals(p.getSource())));
+    }
+
+    @Test
+    void sendRequest_ForSourceWithoutGroup_GoesOnlyToThatSource() {
+        when(servicesBuilder.getEquivalentSources("primary")).thenReturn(List.of());
+        when(requestService.sendRequest(serviceRequest, params)).thenReturn(Mono.just(primaryConversion));
+
+        StepVerifier.create(hedgingService.sendRequest(serviceRequest, params))
+                .expectNext(primaryConversion)
+                .expectComplete()
+                .verify();
+
+        verify(requestService, times(1)).sendRequest(any(), any());
+    }
+
+    @Test
+    void latencyTracker_AfterEnoughSamples_ReportsQuantile() {
+        var tracker = new SourceLatencyTracker(0.95);
+        for (int i = 1; i < 20; i++)
+            tracker.record("source", TimeUnit.MILLISECONDS.toNanos(i));
+        assertThat(tracker.quantileNanos("source")).isEqualTo(SourceLatencyTracker.UNKNOWN);
+
+        for (int i = 20; i <= 100; i++)
+            tracker.record("source", TimeUnit.MILLISECONDS.toNanos(i));
+        assertThat(tracker.quantileNanos("source")).isBetween(
+                TimeUnit.MILLISECONDS.toNanos(80), TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    private HedgingRequestService withLongHedgeDelay(RetryBudget retryBudget) {
+        return new HedgingRequestService(requestService, servicesBuilder, logService,
+                retryBudget, 0.95, 60_000L, 10L, meterRegistry);
+    }
+
+    private static WebClientResponseException serviceUnavailable(String message) {
+        return WebClientResponseException.create(503, message, HttpHeaders.EMPTY, new byte[0], null);
+    }
+
+    private void givenGroupOfPrimaryAndHedge() throws MalformedURLException {
+        when(servicesBuilder.getEquivalentSources("primary")).thenReturn(List.of("hedge"));
+        when(servicesBuilder.getURLByKey("hedge")).thenReturn(new URL("http://hedge.ru/convert"));
+    }
+}
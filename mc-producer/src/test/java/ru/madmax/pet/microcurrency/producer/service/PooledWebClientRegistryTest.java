@@ -0,0 +1,63 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.client.HttpClient;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder.Pool;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder.RemoteServiceUrl;
+import ru.madmax.pet.microcurrency.producer.model.RequestParams;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledWebClientRegistryTest {
+    PooledWebClientRegistry registry;
+
+    @BeforeEach
+    void initialize() {
+        var servicesBuilder = new CurrencyRemoteServicesListBuilder();
+        servicesBuilder.setServices(List.of(
+                new RemoteServiceUrl("first", "http://value1.ru", "/value2", new Pool(10, 20, 1000L), null),
+                new RemoteServiceUrl("second", "https://value3.org", "/value4", null, null)));
+        registry = new PooledWebClientRegistry(servicesBuilder, HttpClient.create(), 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void getClient_ForConfiguredSource_ReturnsSameInstanceForEveryRequest() throws MalformedURLException {
+        var first = registry.getClient(params("first", "http://value1.ru/value2"));
+        var second = registry.getClient(params("first", "http://value1.ru/value2"));
+
+        assertThat(first).isNotNull().isSameAs(second);
+        assertThat(registry.getClient(params("second", "https://value3.org/value4")))
+                .isNotNull()
+                .isNotSameAs(first);
+    }
+
+    @Test
+    void getClient_ForUnknownSource_ReturnsClientCachedByOrigin() throws MalformedURLException {
+        var first = registry.getClient(params(null, "http://localhost:1234/a"));
+        var second = registry.getClient(params("unknown", "http://localhost:1234/b"));
+        var other = registry.getClient(params(null, "http://localhost:4321/a"));
+
+        assertThat(first).isSameAs(second);
+        assertThat(other).isNotSameAs(first);
+    }
+
+    private RequestParams params(String source, String url) throws MalformedURLException {
+        return RequestParams.builder()
+                .guid("test-guid")
+                .source(source)
+                .url(new URL(url))
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package ru.madmax.pet.microcurrency.producer.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import lombok.RequiredArgsConstructor;
 import okhttp3.mockwebserver.Dispatcher;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -24,6 +26,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 import reactor.test.StepVerifier;
@@ -31,7 +34,10 @@ import ru.madmax.pet.microcurrency.common.model.Conversion;
 import ru.madmax.pet.microcurrency.common.model.ServiceRequest;
 import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
 import ru.madmax.pet.microcurrency.common.model.TestServiceRequestBuilder;
+import ru.madmax.pet.microcurrency.common.retry.RetryBudget;
 import ru.madmax.pet.microcurrency.producer.configuration.HttpClientConfiguration;
+import ru.madmax.pet.microcurrency.producer.configuration.CurrencyRemoteServicesListBuilder;
+import ru.madmax.pet.microcurrency.producer.exception.RemoteServiceException;
 import ru.madmax.pet.microcurrency.producer.model.RequestParams;
 
 import java.io.IOException;
@@ -43,6 +49,7 @@ import java.util.concurrent.TimeUnit;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_GUID_KEY;
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_DEADLINE_KEY;
 import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_ERROR_KEY;
 
 @ExtendWith({SpringExtension.class, MockitoExtension.class})
@@ -53,11 +60,14 @@ import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_E
 class ReactRequestServiceTest {
     private final HttpClient httpClient;
     ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
-    @MockBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     MockWebServer remoteMockServer;
+    PooledWebClientRegistry webClientRegistry;
     CurrencyRequestService loaderService;
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    SlidingWindowCircuitBreaker circuitBreaker;
 
     @Captor
     ArgumentCaptor<String> logInfoCaptor;
@@ -73,13 +83,17 @@ class ReactRequestServiceTest {
         remoteMockServer = new MockWebServer();
         remoteMockServer.start();
 
-        loaderService = new ReactRequestService(httpClient, logService, 100, 1);
+        circuitBreaker = new SlidingWindowCircuitBreaker(4, 2, 50, 1000L, 100, 60_000L, 1, meterRegistry);
+        webClientRegistry = new PooledWebClientRegistry(new CurrencyRemoteServicesListBuilder(), httpClient, 1000);
+        loaderService = new ReactRequestService(
+                webClientRegistry, logService, circuitBreaker, new RetryBudget(0.1, 10, 0.5), 1000, 100, 1, meterRegistry);
     }
 
     @AfterEach
     void tearDown() throws IOException {
         if (remoteMockServer != null)
             remoteMockServer.shutdown();
+        webClientRegistry.shutdown();
     }
 
     @Test
@@ -114,6 +128,7 @@ class ReactRequestServiceTest {
         RecordedRequest request = remoteMockServer.takeRequest();
         assertThat(request.getMethod()).isEqualTo("POST");
         assertThat(request.getHeader(HEADER_REQUEST_GUID_KEY)).isEqualTo("test-guid");
+        assertThat(request.getHeader(HEADER_REQUEST_DEADLINE_KEY)).isEqualTo("1000");
         assertThat(request.getRequestLine()).contains(url.getPath());
         assertThat(request.getBody().readUtf8()).isEqualTo(stringRequestContent);
 
@@ -127,6 +142,8 @@ class ReactRequestServiceTest {
 
         verify(logService, never()).error(anyString(), anyString());
 
+        assertThat(meterRegistry.get("mc.producer.remote.call").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
     }
 
     @Test
@@ -186,6 +203,34 @@ class ReactRequestServiceTest {
 
     }
 
+    @Test
+    void sendRequest_WhenRetryBudgetIsExhausted_DoesNotRetry_AndReturnsOriginalError() throws MalformedURLException {
+        var retryBudget = new RetryBudget(0.1, 1, 0.5);
+        retryBudget.tryRetry();
+        loaderService = new ReactRequestService(
+                webClientRegistry, logService, circuitBreaker, retryBudget, 1000, 100, 3, meterRegistry);
+        remoteMockServer.enqueue(new MockResponse()
+                .setResponseCode(HttpResponseStatus.SERVICE_UNAVAILABLE.code()));
+        remoteMockServer.enqueue(new MockResponse()
+                .setResponseCode(HttpResponseStatus.SERVICE_UNAVAILABLE.code()));
+
+        final ServiceRequest serviceRequest = TestServiceRequestBuilder.aRequest().build();
+        final RequestParams params = RequestParams
+                .builder()
+                .guid("test-guid")
+                .url(new URL(remoteMockServer.url("/test-path").toString()))
+                .build();
+
+        StepVerifier.create(loaderService.sendRequest(serviceRequest, params))
+                .expectErrorMatches(throwable -> throwable instanceof WebClientResponseException &&
+                        throwable.getMessage().startsWith("503"))
+                .verify();
+
+        assertThat(remoteMockServer.getRequestCount()).isEqualTo(1);
+        assertThat(retryBudget.getGranted()).isEqualTo(1);
+        assertThat(retryBudget.getDenied()).isEqualTo(1);
+    }
+
     @Test
     void sendRequest_WhenServerIs503UnavailableMoreThanRetryThreshold_CheckRetry_ReturnError_AndCheckForReturningMonoError_AndCheckLogs()
             throws JsonProcessingException, InterruptedException, MalformedURLException {
@@ -463,4 +508,36 @@ class ReactRequestServiceTest {
         assertThat(keyErrorValues).isNotEmpty().allMatch(key -> key.equals("test-guid"));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void sendRequest_WhenSourceFailsUntilCircuitOpens_NextRequestFailsFastWithoutCallingSource()
+            throws MalformedURLException {
+        doNothing().when(logService).info(anyString(), anyString());
+        doNothing().when(logService).error(anyString(), anyString());
+        for (int i = 0; i < 2; i++)
+            remoteMockServer.enqueue(new MockResponse()
+                    .setResponseCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()));
+
+        final ServiceRequest serviceRequest = TestServiceRequestBuilder.aRequest().build();
+        final RequestParams params = RequestParams
+                .builder()
+                .guid("test-guid")
+                .url(new URL(remoteMockServer.url("/test-path").toString()))
+                .source("test-source")
+                .build();
+
+        for (int i = 0; i < 2; i++)
+            StepVerifier.create(loaderService.sendRequest(serviceRequest, params))
+                    .expectError()
+                    .verify();
+        assertThat(circuitBreaker.getState("test-source")).isEqualTo(RemoteCircuitBreaker.State.OPEN);
+
+        StepVerifier.create(loaderService.sendRequest(serviceRequest, params))
+                .expectErrorMatches(throwable -> throwable instanceof RemoteServiceException &&
+                        throwable.getMessage().contains("Circuit breaker is open"))
+                .verify();
+        assertThat(remoteMockServer.getRequestCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("mc.producer.circuit.state").tag("source", "test-source").gauge().value())
+                .isEqualTo(RemoteCircuitBreaker.State.OPEN.ordinal());
+    }
+}
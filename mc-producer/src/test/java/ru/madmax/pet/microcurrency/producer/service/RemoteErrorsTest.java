@@ -0,0 +1,35 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import ru.madmax.pet.microcurrency.producer.exception.CircuitBreakerOpenException;
+import ru.madmax.pet.microcurrency.producer.exception.RemoteServiceException;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RemoteErrorsTest {
+
+    @Test
+    void isOverload_WithTimeoutServerErrorOrOpenBreaker_ReturnsTrue() {
+        assertThat(RemoteErrors.isOverload(new TimeoutException())).isTrue();
+        assertThat(RemoteErrors.isOverload(serverError(503))).isTrue();
+        assertThat(RemoteErrors.isOverload(new CircuitBreakerOpenException("source"))).isTrue();
+        assertThat(RemoteErrors.isOverload(Exceptions.retryExhausted("exhausted", new TimeoutException())))
+                .isTrue();
+    }
+
+    @Test
+    void isOverload_WithBusinessOrClientError_ReturnsFalse() {
+        assertThat(RemoteErrors.isOverload(new RemoteServiceException("Wrong currency"))).isFalse();
+        assertThat(RemoteErrors.isOverload(serverError(400))).isFalse();
+        assertThat(RemoteErrors.isOverload(new IllegalArgumentException())).isFalse();
+    }
+
+    private static WebClientResponseException serverError(int status) {
+        return WebClientResponseException.create(status, "status " + status, HttpHeaders.EMPTY, new byte[0], null);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.madmax.pet.microcurrency.producer.service.RemoteCircuitBreaker.REJECTED;
+import static ru.madmax.pet.microcurrency.producer.service.RemoteCircuitBreaker.State.*;
+
+class SlidingWindowCircuitBreakerTest {
+    private static final String SOURCE = "source";
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(2000);
+
+    @Test
+    void failureRateOverThreshold_AfterMinimumCalls_OpensAndRejectsCalls() {
+        var breaker = breaker(60_000L);
+
+        call(breaker, FAST, false);
+        call(breaker, FAST, true);
+        assertThat(breaker.getState(SOURCE)).isEqualTo(CLOSED);
+        call(breaker, FAST, true);
+        call(breaker, FAST, true);
+
+        assertThat(breaker.getState(SOURCE)).isEqualTo(OPEN);
+        assertThat(breaker.tryAcquire(SOURCE)).isEqualTo(REJECTED);
+    }
+
+    @Test
+    void slowCallRateOverThreshold_OpensEvenWithoutFailures() {
+        var breaker = breaker(60_000L);
+
+        for (int i = 0; i < 4; i++)
+            call(breaker, SLOW, false);
+
+        assertThat(breaker.getState(SOURCE)).isEqualTo(OPEN);
+    }
+
+    @Test
+    void newOutcomeReplacesOldestInSlidingWindow() {
+        var breaker = breaker(60_000L);
+
+        for (int i = 0; i < 3; i++)
+            call(breaker, FAST, false);
+        call(breaker, FAST, true);
+        assertThat(breaker.getState(SOURCE)).isEqualTo(CLOSED);
+
+        // 2 ошибки из 4 последних вызовов (по всем пяти было бы 2 из 5)
+        call(breaker, FAST, true);
+        assertThat(breaker.getState(SOURCE)).isEqualTo(OPEN);
+    }
+
+    @Test
+    void afterOpenDuration_HalfOpenLetsProbeCallsThrough_AndSuccessfulProbesClose() {
+        var breaker = breaker(0L);
+        for (int i = 0; i < 4; i++)
+            call(breaker, FAST, true);
+        assertThat(breaker.getState(SOURCE)).isEqualTo(OPEN);
+
+        var firstProbe = breaker.tryAcquire(SOURCE);
+        var secondProbe = breaker.tryAcquire(SOURCE);
+        assertThat(breaker.getState(SOURCE)).isEqualTo(HALF_OPEN);
+        assertThat(breaker.tryAcquire(SOURCE)).isEqualTo(REJECTED);
+
+        breaker.release(SOURCE, firstProbe, FAST, false);
+        breaker.release(SOURCE, secondProbe, FAST, false);
+        assertThat(breaker.getState(SOURCE)).isEqualTo(CLOSED);
+    }
+
+    @Test
+    void failedProbes_OpenCircuitAgain_AndCancelledProbeReturnsPermit() {
+        var breaker = breaker(0L);
+        for (int i = 0; i < 4; i++)
+            call(breaker, FAST, true);
+
+        var cancelled = breaker.tryAcquire(SOURCE);
+        breaker.cancel(SOURCE, cancelled);
+        call(breaker, FAST, true);
+        call(breaker, FAST, true);
+
+        assertThat(breaker.getState(SOURCE)).isEqualTo(OPEN);
+    }
+
+    @Test
+    void resultOfCallStartedBeforeTransition_IsIgnored() {
+        var breaker = breaker(60_000L);
+        var lateCall = breaker.tryAcquire(SOURCE);
+        for (int i = 0; i < 4; i++)
+            call(breaker, FAST, true);
+
+        breaker.release(SOURCE, lateCall, FAST, false);
+
+        assertThat(breaker.getState(SOURCE)).isEqualTo(OPEN);
+    }
+
+    private static SlidingWindowCircuitBreaker breaker(long openDuration) {
+        return new SlidingWindowCircuitBreaker(4, 4, 50, 1000L, 100, openDuration, 2, new SimpleMeterRegistry());
+    }
+
+    private static void call(RemoteCircuitBreaker breaker, long latency, boolean failed) {
+        var permit = breaker.tryAcquire(SOURCE);
+        assertThat(permit).isNotEqualTo(REJECTED);
+        breaker.release(SOURCE, permit, latency, failed);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.madmax.pet.microcurrency.producer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUUIDGeneratorServiceTest {
+    TimeOrderedUUIDGeneratorService generatorService = new TimeOrderedUUIDGeneratorService();
+
+    @Test
+    void generate_ReturnsVersion7Uuid_WithCurrentTimestamp() {
+        var before = System.currentTimeMillis();
+        var uuid = UUID.fromString(generatorService.randomGenerate());
+        var after = System.currentTimeMillis();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        // старшие 48 бит - миллисекунды Unix-времени
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, after);
+    }
+
+    @Test
+    void generateSeveral_ReturnsUniqueAndAscendingUuids() {
+        List<String> generated = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            generated.add(generatorService.randomGenerate());
+
+        assertThat(new HashSet<>(generated)).hasSize(generated.size());
+        // текстовое представление сравнивается так же, как байты uuid-колонки в БД
+        assertThat(generated).isSorted();
+    }
+}
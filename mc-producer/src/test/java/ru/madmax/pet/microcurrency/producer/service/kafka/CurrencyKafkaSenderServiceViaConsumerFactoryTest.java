@@ -6,7 +6,8 @@ import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.mockito.Answers;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.kafka.core.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,7 +39,7 @@ class CurrencyKafkaSenderServiceViaConsumerFactoryTest {
     @Value("${spring.kafka.topic.name}")
     String testTopic;
 
-    @SpyBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     final ObjectMapper objectMapper;
@@ -2,20 +2,24 @@ package ru.madmax.pet.microcurrency.producer.service.kafka;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import ru.madmax.pet.microcurrency.common.model.*;
+import ru.madmax.pet.microcurrency.common.serialization.OriginTimestampHeader;
 import ru.madmax.pet.microcurrency.producer.service.LogService;
 import ru.madmax.pet.microcurrency.producer.service.CurrencyKafkaSenderService;
 import ru.madmax.pet.microcurrency.producer.service.handlers.ErrorSendingHandler;
@@ -28,6 +32,7 @@ import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_ORIGIN_TIMESTAMP_KEY;
 
 @ActiveProfiles("test")
 @SpringBootTest
@@ -43,9 +48,10 @@ class CurrencyKafkaSenderServiceViaKafkaListenerAnnotationTest {
     final KafkaTemplate<String, MessageDTO> kafkaTemplate;
     final SuccessSendingHandler successSendingHandler;
     final ErrorSendingHandler errorSendingHandler;
+    final MeterRegistry meterRegistry;
     BlockingQueue<ConsumerRecord<String, MessageDTO>> records = new LinkedBlockingQueue<>();
 
-    @SpyBean
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
     LogService logService;
 
     @Captor
@@ -95,6 +101,26 @@ class CurrencyKafkaSenderServiceViaKafkaListenerAnnotationTest {
         verify(logService, never()).error(anyString(), anyString());
     }
 
+    @Test
+    void sendMessageWithOriginTimestamp_AndConsumerGetsItInHeader_AndAckTimerIsRecorded() throws InterruptedException {
+        final MessageDTO messageDTO = TestMessageDTOBuilder.aMessageDTO()
+                .withType(MessageType.ERROR)
+                .withMessage("origin-test")
+                .build();
+        final long originTimestamp = 1_700_000_000_000L;
+
+        currencySenderService.produceMessage("kafka-annotation-origin", messageDTO, originTimestamp);
+        ConsumerRecord<String, MessageDTO> consumerRecord = records.poll(15000, TimeUnit.MILLISECONDS);
+
+        assertThat(consumerRecord).isNotNull();
+        var header = consumerRecord.headers().lastHeader(HEADER_ORIGIN_TIMESTAMP_KEY);
+        assertThat(header).isNotNull();
+        assertThat(OriginTimestampHeader.decode(header.value())).isEqualTo(originTimestamp);
+        verify(logService, timeout(1000).times(2)).info(anyString(), anyString());
+        assertThat(meterRegistry.get("mc.producer.kafka.send").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
     @Test
     void sendTwoConversionMessagesToProducerOneAfterAnother_andConsumerGetTwoMessages() throws InterruptedException, JsonProcessingException {
         final Conversion response1 = TestConversionBuilder.aConversion().withBase(Currency.RUB).build();
@@ -156,7 +182,8 @@ class CurrencyKafkaSenderServiceViaKafkaListenerAnnotationTest {
                 kafkaTemplate,
                 logService,
                 successSendingHandler,
-                errorSendingHandler);
+                errorSendingHandler,
+                new SimpleMeterRegistry());
         final Conversion response = TestConversionBuilder.aConversion().build();
         final MessageDTO messageDTO = TestMessageDTOBuilder.aMessageDTO()
                 .withType(MessageType.CURRENCY)
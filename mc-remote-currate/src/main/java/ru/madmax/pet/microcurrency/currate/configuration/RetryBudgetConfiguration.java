@@ -0,0 +1,35 @@
+package ru.madmax.pet.microcurrency.currate.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.madmax.pet.microcurrency.common.retry.RetryBudget;
+
+@Configuration
+public class RetryBudgetConfiguration {
+
+    // один бюджет на все повторы запросов сервиса, разрешенные и отклоненные повторы видны в метриках
+    @Bean
+    public RetryBudget retryBudget(
+            @Value("${app.request.retry.budget.ratio:0.1}") Double retryRatio,
+            @Value("${app.request.retry.budget.max-tokens:10}") Integer maxTokens,
+            @Value("${app.request.retry.jitter:0.5}") Double jitter,
+            MeterRegistry meterRegistry) {
+        var retryBudget = new RetryBudget(retryRatio, maxTokens, jitter);
+        FunctionCounter.builder("mc.currate.retry", retryBudget, RetryBudget::getGranted)
+                .description("Retries allowed by the retry budget")
+                .tag("outcome", "granted")
+                .register(meterRegistry);
+        FunctionCounter.builder("mc.currate.retry", retryBudget, RetryBudget::getDenied)
+                .description("Retries rejected by the exhausted retry budget")
+                .tag("outcome", "denied")
+                .register(meterRegistry);
+        Gauge.builder("mc.currate.retry.budget", retryBudget, RetryBudget::getTokens)
+                .description("Retry tokens left in the budget")
+                .register(meterRegistry);
+        return retryBudget;
+    }
+}
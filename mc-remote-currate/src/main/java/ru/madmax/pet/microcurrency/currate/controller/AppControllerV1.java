@@ -6,10 +6,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import ru.madmax.pet.microcurrency.currate.model.RateFreshness;
+import ru.madmax.pet.microcurrency.currate.model.RequestDeadline;
 import ru.madmax.pet.microcurrency.currate.service.CurrencyService;
 import ru.madmax.pet.microcurrency.common.model.ServiceRequest;
 import ru.madmax.pet.microcurrency.common.model.Conversion;
 
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_RATE_STALE_KEY;
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_DEADLINE_KEY;
 import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_ERROR_KEY;
 import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_GUID_KEY;
 
@@ -23,23 +28,31 @@ public class AppControllerV1 {
 
     @PostMapping("/convert")
     public Mono<ResponseEntity<Conversion>> conversionRequest(@RequestBody @Valid ServiceRequest request,
-                                                           @RequestHeader(name= HEADER_REQUEST_GUID_KEY) String requestGuid) {
+                                                           @RequestHeader(name= HEADER_REQUEST_GUID_KEY) String requestGuid,
+                                                           @RequestHeader(name = HEADER_REQUEST_DEADLINE_KEY, required = false) Long deadline) {
 
+        var rateFreshness = new RateFreshness();
+        var context = Context.of(RateFreshness.class, rateFreshness);
+        if (deadline != null)
+            context = context.put(RequestDeadline.class, RequestDeadline.after(deadline));
         var mono = currencyService.getRateMono(request);
         return mono
-                .map(result ->
-                        ResponseEntity
-                                .ok()
-                                .header(HEADER_REQUEST_GUID_KEY, requestGuid)
-                                .body(result)
-                )
+                .map(result -> {
+                    var response = ResponseEntity
+                            .ok()
+                            .header(HEADER_REQUEST_GUID_KEY, requestGuid);
+                    if (rateFreshness.isStale())
+                        response.header(HEADER_RATE_STALE_KEY, Boolean.TRUE.toString());
+                    return response.body(result);
+                })
                 .onErrorResume(error->
                         Mono.just(ResponseEntity
                                 .internalServerError()
                                 .header(HEADER_REQUEST_GUID_KEY, requestGuid)
                                 .header(HEADER_REQUEST_ERROR_KEY, error.getMessage())
                                 .body(null))
-                );
+                )
+                .contextWrite(context);
     }
 
 
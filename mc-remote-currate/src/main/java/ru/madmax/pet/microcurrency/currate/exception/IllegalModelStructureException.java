@@ -8,6 +8,22 @@ public class IllegalModelStructureException extends RuntimeException{
         this.modelStringPresentation = modelStringPresentation;
     }
 
+    /*
+    // Ошибка во всей модели, а не в отдельном поле: потоковый разбор не держит модель целиком,
+    // ее представление подставляет тот, у кого есть исходное тело ответа
+     */
+    public IllegalModelStructureException(String message) {
+        this(message, null);
+    }
+
+    public boolean hasModelPresentation() {
+        return modelStringPresentation != null;
+    }
+
+    public String getReason() {
+        return super.getMessage();
+    }
+
     @Override
     public String getMessage() {
         return String.format("%s: %s %s",
@@ -0,0 +1,7 @@
+package ru.madmax.pet.microcurrency.currate.exception;
+
+public class RequestDeadlineExceededException extends RuntimeException {
+    public RequestDeadlineExceededException(String message) {
+        super(message);
+    }
+}
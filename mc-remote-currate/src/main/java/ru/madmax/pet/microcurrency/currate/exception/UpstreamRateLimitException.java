@@ -0,0 +1,7 @@
+package ru.madmax.pet.microcurrency.currate.exception;
+
+public class UpstreamRateLimitException extends RuntimeException {
+    public UpstreamRateLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,131 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.currate.exception.IllegalModelStructureException;
+import ru.madmax.pet.microcurrency.currate.model.RemoteResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+// Общий разбор ответа currate.ru: {"status":200,"message":"rates","data":{"USDRUB":"64.1824", ...}}.
+// Ответ читается потоком токенов, без промежуточного дерева JsonNode: из корня берутся только status
+// и пары блока data, остальное пропускается. Пары проверяются уже после status, как и раньше,
+// поэтому порядок полей в ответе на итоговую ошибку не влияет.
+// Наследники решают, сколько записей из блока data им нужно
+ */
+public abstract class AbstractCurrateDeserializer<T> extends StdDeserializer<T> {
+    private static final String STATUS_KEY = "status";
+    private static final String DATA_KEY = "data";
+
+    protected AbstractCurrateDeserializer(Class<?> vc) {
+        super(vc);
+    }
+
+    @Override
+    public T deserialize(JsonParser jsonParser, DeserializationContext deserializationContext)
+            throws IOException {
+
+        if (!jsonParser.isExpectedStartObjectToken()) {
+            valueText(jsonParser);
+            throw new IllegalModelStructureException("Wrong status");
+        }
+
+        String status = null;
+        List<RawRate> data = List.of();
+        String fieldName;
+        while ((fieldName = jsonParser.nextFieldName()) != null) {
+            var token = jsonParser.nextToken();
+            if (STATUS_KEY.equals(fieldName)) {
+                status = valueText(jsonParser);
+            } else if (DATA_KEY.equals(fieldName) && token == JsonToken.START_OBJECT) {
+                data = readDataBlock(jsonParser);
+            } else {
+                jsonParser.skipChildren();
+            }
+        }
+
+        int code = getStatus(status);
+        if (code == 200) {
+            if (!data.isEmpty())
+                return parseDataBlock(data);
+            throw new IllegalModelStructureException("Empty data");
+        } else {
+            throw new IllegalModelStructureException("Wrong answer code", "" + code);
+        }
+    }
+
+    protected abstract T parseDataBlock(List<RawRate> data);
+
+    protected RemoteResponse parseEntry(RawRate entry) {
+        var response = new RemoteResponse();
+        response.setRate(parseRate(entry.rate()));
+        String pair = checkCurrencyPair(entry.pair());
+        response.setFrom(Currency.decode(pair, 0));
+        response.setTo(Currency.decode(pair, 3));
+        if (response.getFrom() == null) {
+            throw new IllegalModelStructureException("Non registered currency code: ", pair.substring(0, 3));
+        }
+        if (response.getTo() == null) {
+            throw new IllegalModelStructureException("Non registered currency code: ", pair.substring(3));
+        }
+        return response;
+    }
+
+    private List<RawRate> readDataBlock(JsonParser jsonParser) throws IOException {
+        List<RawRate> data = new ArrayList<>(4);
+        String pair;
+        while ((pair = jsonParser.nextFieldName()) != null) {
+            jsonParser.nextToken();
+            data.add(new RawRate(pair, valueText(jsonParser)));
+        }
+        return data;
+    }
+
+    // текст скалярного значения как есть (у чисел - исходная запись), у объектов и массивов - пустая строка
+    private String valueText(JsonParser jsonParser) throws IOException {
+        if (jsonParser.currentToken().isStructStart()) {
+            jsonParser.skipChildren();
+            return "";
+        }
+        return jsonParser.getText();
+    }
+
+    private int getStatus(String status) {
+        if (status == null)
+            throw new IllegalModelStructureException("Wrong status");
+        try {
+            return Integer.parseInt(status);
+        } catch (NumberFormatException e) {
+            throw new IllegalModelStructureException("Wrong status", status);
+        }
+    }
+
+    // коды валют читаются прямо из строки пары (Currency.decode), без подстрок
+    private String checkCurrencyPair(String strPair) {
+        if (strPair.length() == 6)
+            return strPair;
+        throw new IllegalModelStructureException("Illegal currency pair", strPair);
+    }
+
+    private BigDecimal parseRate(String rate) {
+        if (rate == null)
+            throw new IllegalModelStructureException("Illegal rate", "null");
+
+        try {
+            return new BigDecimal(rate);
+        } catch (NumberFormatException e) {
+            throw new IllegalModelStructureException("Illegal rate", rate);
+        }
+    }
+
+    // пара из блока data в том виде, в каком пришла: код пары и текст курса
+    protected record RawRate(String pair, String rate) {
+    }
+}
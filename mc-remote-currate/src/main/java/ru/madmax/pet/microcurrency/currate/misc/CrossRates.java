@@ -0,0 +1,22 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/*
+// Кросс-курс через опорную (pivot) валюту.
+// Курс пары (base, convert) - сколько base стоит одна единица convert (как у currate.ru для пары convert+base),
+// pivot-курс валюты X - сколько pivot стоит одна единица X.
+// Тогда курс (base, convert) = pivot(convert) / pivot(base).
+// Деление идет с точностью DECIMAL128, округление до 4 знаков HALF_UP остается
+// за ConversionServiceImpl, чтобы промежуточный курс не вносил своей ошибки округления
+ */
+public final class CrossRates {
+    private CrossRates() {}
+
+    public static BigDecimal cross(BigDecimal basePivotRate, BigDecimal convertPivotRate) {
+        if (basePivotRate.compareTo(BigDecimal.ONE) == 0)
+            return convertPivotRate;
+        return convertPivotRate.divide(basePivotRate, MathContext.DECIMAL128);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import ru.madmax.pet.microcurrency.common.model.Currency;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+/*
+// Неизменяемый снимок таблицы курсов: ячейка пары (base, convert) - элемент массива
+// с индексом base.ordinal() * N + convert.ordinal(). Кросс-курсы считаются (CrossRates) при построении
+// снимка, а не при чтении, поэтому чтение - это два обращения к массивам без блокировок и аллокаций.
+// Обновление не меняет снимок, а строит новый (copy-on-write) с пересчетом только строк и столбцов
+// изменившихся валют; публикует его владелец через одну volatile-ссылку.
+// Курс хранится как BigDecimal: кросс-курс идет с точностью DECIMAL128, и округление до long
+// изменило бы результат пересчета. Время загрузки - в миллисекундах, для кросс-курса - по более старому
+ */
+public final class RateMatrix {
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final int SIZE = CURRENCIES.length;
+
+    private final BigDecimal[] pivotRates;
+    private final long[] pivotLoadedAt;
+    private final BigDecimal[] rates;
+    private final long[] loadedAt;
+
+    private RateMatrix(BigDecimal[] pivotRates, long[] pivotLoadedAt, BigDecimal[] rates, long[] loadedAt) {
+        this.pivotRates = pivotRates;
+        this.pivotLoadedAt = pivotLoadedAt;
+        this.rates = rates;
+        this.loadedAt = loadedAt;
+    }
+
+    // пустая таблица: известны только курс pivot к самой себе и диагональ
+    public static RateMatrix empty(Currency pivot) {
+        var pivotRates = new BigDecimal[SIZE];
+        var pivotLoadedAt = new long[SIZE];
+        var rates = new BigDecimal[SIZE * SIZE];
+        var loadedAt = new long[SIZE * SIZE];
+        Arrays.fill(pivotLoadedAt, ABSENT);
+        Arrays.fill(loadedAt, ABSENT);
+        pivotRates[pivot.ordinal()] = BigDecimal.ONE;
+        pivotLoadedAt[pivot.ordinal()] = Long.MAX_VALUE;
+        for (int i = 0; i < SIZE; i++) {
+            rates[cell(i, i)] = BigDecimal.ONE;
+            loadedAt[cell(i, i)] = Long.MAX_VALUE;
+        }
+        return new RateMatrix(pivotRates, pivotLoadedAt, rates, loadedAt);
+    }
+
+    public RateMatrix withPivotRate(Currency currency, BigDecimal rate, Instant loaded) {
+        return withPivotRates(Map.of(currency, rate), loaded);
+    }
+
+    public RateMatrix withPivotRates(Map<Currency, BigDecimal> pivotRateUpdates, Instant loaded) {
+        var newPivotRates = pivotRates.clone();
+        var newPivotLoadedAt = pivotLoadedAt.clone();
+        var newRates = rates.clone();
+        var newLoadedAt = loadedAt.clone();
+        var changed = new boolean[SIZE];
+        long loadedMillis = loaded.toEpochMilli();
+        pivotRateUpdates.forEach((currency, rate) -> {
+            newPivotRates[currency.ordinal()] = rate;
+            newPivotLoadedAt[currency.ordinal()] = loadedMillis;
+            changed[currency.ordinal()] = true;
+        });
+
+        for (int base = 0; base < SIZE; base++) {
+            for (int convert = 0; convert < SIZE; convert++) {
+                if (base == convert || !(changed[base] || changed[convert])
+                        || newPivotRates[base] == null || newPivotRates[convert] == null)
+                    continue;
+                newRates[cell(base, convert)] = CrossRates.cross(newPivotRates[base], newPivotRates[convert]);
+                newLoadedAt[cell(base, convert)] = Math.min(newPivotLoadedAt[base], newPivotLoadedAt[convert]);
+            }
+        }
+        return new RateMatrix(newPivotRates, newPivotLoadedAt, newRates, newLoadedAt);
+    }
+
+    // курс пары или null, если хотя бы одного pivot-курса еще нет
+    public BigDecimal rate(Currency base, Currency convert) {
+        return rates[cell(base.ordinal(), convert.ordinal())];
+    }
+
+    // время загрузки курса пары в миллисекундах или ABSENT
+    public long loadedAt(Currency base, Currency convert) {
+        return loadedAt[cell(base.ordinal(), convert.ordinal())];
+    }
+
+    private static int cell(int base, int convert) {
+        return base * SIZE + convert;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import ru.madmax.pet.microcurrency.currate.model.CurrencyPair;
+import ru.madmax.pet.microcurrency.currate.model.RemoteRatesResponse;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RemoteRatesDeserializer extends AbstractCurrateDeserializer<RemoteRatesResponse> {
+    public RemoteRatesDeserializer() {
+        this(null);
+    }
+
+    public RemoteRatesDeserializer(Class<?> vc) {
+        super(vc);
+    }
+
+    @Override
+    protected RemoteRatesResponse parseDataBlock(List<RawRate> data) {
+        Map<CurrencyPair, BigDecimal> rates = new HashMap<>();
+        for (var entry : data) {
+            var remoteResponse = parseEntry(entry);
+            rates.put(new CurrencyPair(remoteResponse.getFrom(), remoteResponse.getTo()), remoteResponse.getRate());
+        }
+        var response = new RemoteRatesResponse();
+        response.setRates(rates);
+        return response;
+    }
+}
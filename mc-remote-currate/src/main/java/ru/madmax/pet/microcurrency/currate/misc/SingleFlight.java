@@ -0,0 +1,38 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/*
+// Объединение одновременных одинаковых запросов: пока по ключу выполняется Mono,
+// все вызывающие получают его же (через cache()), и источник подписывается один раз.
+// После завершения (успешного или с ошибкой) ключ освобождается,
+// и следующий вызов снова идет в источник
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> supplier) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, supplier)));
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Mono<V> share(K key, Supplier<Mono<V>> supplier) {
+        var shared = new AtomicReference<Mono<V>>();
+        // ключ освобождается до того, как результат уйдет ожидающим,
+        // иначе вызов сразу после получения результата мог бы получить тот же завершенный Mono
+        var mono = supplier.get()
+                .doOnTerminate(() -> inFlight.remove(key, shared.get()))
+                .doOnCancel(() -> inFlight.remove(key, shared.get()))
+                .cache();
+        shared.set(mono);
+        return mono;
+    }
+}
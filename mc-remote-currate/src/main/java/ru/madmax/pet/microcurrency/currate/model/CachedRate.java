@@ -0,0 +1,10 @@
+package ru.madmax.pet.microcurrency.currate.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record CachedRate(BigDecimal rate, Instant loadedAt, boolean stale) {
+    public CachedRate asStale() {
+        return new CachedRate(rate, loadedAt, true);
+    }
+}
@@ -0,0 +1,5 @@
+package ru.madmax.pet.microcurrency.currate.model;
+
+import ru.madmax.pet.microcurrency.common.model.Currency;
+
+public record CurrencyPair(Currency from, Currency to) {}
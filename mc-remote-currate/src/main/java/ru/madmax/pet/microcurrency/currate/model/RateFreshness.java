@@ -0,0 +1,20 @@
+package ru.madmax.pet.microcurrency.currate.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+// Признак того, что в ответе использован устаревший курс.
+// Контроллер кладет объект в Reactor Context запроса, сервис отмечает его,
+// если курс пришлось взять из кэша после недоступности currate.ru
+ */
+public class RateFreshness {
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    public void markStale() {
+        stale.set(true);
+    }
+
+    public boolean isStale() {
+        return stale.get();
+    }
+}
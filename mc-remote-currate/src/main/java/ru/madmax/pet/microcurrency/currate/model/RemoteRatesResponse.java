@@ -0,0 +1,16 @@
+package ru.madmax.pet.microcurrency.currate.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import ru.madmax.pet.microcurrency.currate.misc.RemoteRatesDeserializer;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@JsonDeserialize(using = RemoteRatesDeserializer.class)
+@Data
+@EqualsAndHashCode
+public class RemoteRatesResponse {
+    private Map<CurrencyPair, BigDecimal> rates;
+}
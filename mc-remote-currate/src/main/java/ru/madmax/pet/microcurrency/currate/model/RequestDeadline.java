@@ -0,0 +1,29 @@
+package ru.madmax.pet.microcurrency.currate.model;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+// Момент, после которого ответ на запрос уже никто не ждет.
+// Контроллер кладет объект в Reactor Context запроса по заголовку X-request-deadline
+// (сколько миллисекунд вызывающий еще ждет), сервис по нему ограничивает ожидание курса
+ */
+public class RequestDeadline {
+    private final long deadlineNanos;
+
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static RequestDeadline after(long millis) {
+        return new RequestDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(deadlineNanos - System.nanoTime(), 0));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+}
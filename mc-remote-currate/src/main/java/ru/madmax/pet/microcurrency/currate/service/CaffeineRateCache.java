@@ -0,0 +1,122 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.currate.misc.CrossRates;
+import ru.madmax.pet.microcurrency.currate.misc.RateMatrix;
+import ru.madmax.pet.microcurrency.currate.misc.SingleFlight;
+import ru.madmax.pet.microcurrency.currate.model.CachedRate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+// Кэш курсов. Хранятся только курсы валют к опорной (pivot) валюте,
+// курс любой пары считается из двух pivot-курсов (см. CrossRates),
+// поэтому на N валют нужно N - 1 курсов от currate.ru, а не N * (N - 1).
+// ttl - сколько курс считается свежим;
+// refresh-ahead - через сколько после загрузки обращение к курсу запускает фоновое обновление
+// (должен быть меньше ttl, тогда горячие курсы обновляются до того, как устареют);
+// stale-ttl - сколько держать курс, если currate.ru недоступен: устаревший курс отдается с признаком stale.
+// Каждый загруженный курс публикуется еще и в снимок RateMatrix: пока курс пары моложе ttl, refresh-ahead и stale-ttl,
+// getRate отвечает из снимка, не трогая Caffeine. Более старые курсы идут обычным путем через Caffeine,
+// так что фоновое обновление и отдача устаревших курсов работают как раньше
+ */
+@Service
+public class CaffeineRateCache implements RateCache {
+    private final RateLoader rateLoader;
+    private final Currency pivot;
+    private final Duration ttl;
+    private final long matrixServingWindow;
+    private final AtomicReference<RateMatrix> matrix;
+    private final AsyncLoadingCache<Currency, CachedRate> cache;
+    private final SingleFlight<Currency, CachedRate> singleFlight = new SingleFlight<>();
+
+    public CaffeineRateCache(RateLoader rateLoader,
+                             @Value("${app.cache.pivot:RUB}") Currency pivot,
+                             @Value("${app.cache.ttl:300000}") Long ttl,
+                             @Value("${app.cache.refresh-ahead:240000}") Long refreshAhead,
+                             @Value("${app.cache.stale-ttl:3600000}") Long staleTtl) {
+        this.rateLoader = rateLoader;
+        this.pivot = pivot;
+        this.ttl = Duration.ofMillis(ttl);
+        this.matrixServingWindow = Math.min(ttl, Math.min(refreshAhead, staleTtl));
+        this.matrix = new AtomicReference<>(RateMatrix.empty(pivot));
+        this.cache = Caffeine.newBuilder()
+                .refreshAfterWrite(Duration.ofMillis(refreshAhead))
+                .expireAfterWrite(Duration.ofMillis(staleTtl))
+                .buildAsync((currency, executor) -> load(currency).toFuture());
+    }
+
+    @Override
+    public Mono<CachedRate> getRate(Currency base, Currency convert) {
+        if (base == convert)
+            return Mono.just(new CachedRate(BigDecimal.ONE, Instant.now(), false));
+        var snapshot = matrix.get();
+        long loadedAt = snapshot.loadedAt(base, convert);
+        if (loadedAt != RateMatrix.ABSENT && System.currentTimeMillis() - loadedAt < matrixServingWindow)
+            return Mono.just(new CachedRate(snapshot.rate(base, convert), Instant.ofEpochMilli(loadedAt), false));
+        return Mono.zip(getPivotRate(base), getPivotRate(convert))
+                .map(rates -> cross(rates.getT1(), rates.getT2()));
+    }
+
+    /*
+    // Загрузка всей таблицы pivot-курсов одним запросом к currate.ru.
+    // Используется для прогрева и периодического обновления (RateTableRefresher)
+     */
+    @Override
+    public Mono<Void> refreshAll() {
+        var currencies = Arrays.stream(Currency.values())
+                .filter(currency -> currency != pivot)
+                .toList();
+        return rateLoader.loadRates(pivot, currencies)
+                .doOnNext(rates -> {
+                    var loadedAt = Instant.now();
+                    rates.forEach((currency, rate) -> cache.put(currency,
+                            CompletableFuture.completedFuture(new CachedRate(rate, loadedAt, false))));
+                    matrix.updateAndGet(snapshot -> snapshot.withPivotRates(rates, loadedAt));
+                })
+                .then();
+    }
+
+    private Mono<CachedRate> getPivotRate(Currency currency) {
+        if (currency == pivot)
+            return Mono.just(new CachedRate(BigDecimal.ONE, Instant.MAX, false));
+        // suppressCancel: отмена одного запроса не должна отменять загрузку, которую ждут остальные
+        return Mono.fromFuture(cache.get(currency), true)
+                .flatMap(cachedRate -> isFresh(cachedRate) ?
+                        Mono.just(cachedRate) :
+                        load(currency)
+                                .doOnNext(loaded -> cache.put(currency, CompletableFuture.completedFuture(loaded)))
+                                .onErrorResume(error -> Mono.just(cachedRate.asStale())));
+    }
+
+    // первичная загрузка, фоновое обновление и перезагрузка устаревшего курса
+    // по одной валюте идут в currate.ru одним запросом, сколько бы их ни ждало
+    private Mono<CachedRate> load(Currency currency) {
+        return singleFlight.execute(currency, () -> rateLoader.loadRate(pivot, currency)
+                .map(rate -> new CachedRate(rate, Instant.now(), false))
+                .doOnNext(loaded -> matrix.updateAndGet(snapshot ->
+                        snapshot.withPivotRate(currency, loaded.rate(), loaded.loadedAt()))));
+    }
+
+    private boolean isFresh(CachedRate cachedRate) {
+        return cachedRate.loadedAt().plus(ttl).isAfter(Instant.now());
+    }
+
+    private static CachedRate cross(CachedRate base, CachedRate convert) {
+        var loadedAt = base.loadedAt().isBefore(convert.loadedAt()) ? base.loadedAt() : convert.loadedAt();
+        return new CachedRate(
+                CrossRates.cross(base.rate(), convert.rate()),
+                loadedAt,
+                base.stale() || convert.stale());
+    }
+}
@@ -1,15 +1,14 @@
 package ru.madmax.pet.microcurrency.currate.service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 import org.springframework.stereotype.Service;
+import ru.madmax.pet.microcurrency.common.money.FixedPointMoney;
 import ru.madmax.pet.microcurrency.currate.exception.IllegalAmountException;
 import ru.madmax.pet.microcurrency.currate.exception.IllegalRateException;
 
 @Service
 public class ConversionServiceImpl implements ConversionService {
-    private static final int SCALE = 4;
 
     @Override
     public BigDecimal covert(BigDecimal amount, BigDecimal rate)
@@ -20,19 +19,20 @@ public class ConversionServiceImpl implements ConversionService {
         if (rate == null) {
             throw new IllegalRateException("The rate is not defined");
         }
-        if (amount.compareTo(BigDecimal.ZERO) == 0) {
+        if (amount.signum() == 0) {
             return BigDecimal.ZERO;
         }
-        if (amount.compareTo(BigDecimal.ZERO) < 0) {
+        if (amount.signum() < 0) {
             throw new IllegalAmountException("The amount is negative");
         }
-        if (rate.compareTo(BigDecimal.ZERO) == 0) {
+        if (rate.signum() == 0) {
             throw new IllegalRateException("The rate is zero");
         }
-        if (rate.compareTo(BigDecimal.ZERO) < 0) {
+        if (rate.signum() < 0) {
             throw new IllegalRateException("The rate is negative");
         }
 
-        return amount.divide(rate, SCALE, RoundingMode.HALF_UP);
+        // деление в long с масштабом 4 при любом масштабе курса; в BigDecimal - только при переполнении long
+        return FixedPointMoney.divide(amount, rate);
     }
 }
@@ -1,93 +1,77 @@
 package ru.madmax.pet.microcurrency.currate.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
-import reactor.netty.http.client.HttpClient;
-import reactor.util.retry.Retry;
 import ru.madmax.pet.microcurrency.currate.exception.IllegalAmountException;
 import ru.madmax.pet.microcurrency.currate.exception.IllegalModelStructureException;
 import ru.madmax.pet.microcurrency.currate.exception.IllegalRateException;
-import ru.madmax.pet.microcurrency.currate.model.RemoteResponse;
+import ru.madmax.pet.microcurrency.currate.exception.RequestDeadlineExceededException;
+import ru.madmax.pet.microcurrency.currate.model.CachedRate;
+import ru.madmax.pet.microcurrency.currate.model.RateFreshness;
+import ru.madmax.pet.microcurrency.currate.model.RequestDeadline;
 import ru.madmax.pet.microcurrency.common.model.ServiceRequest;
 import ru.madmax.pet.microcurrency.common.model.Conversion;
 
-import java.time.Duration;
-
 @Service
 public class CurrateCurrencyService implements CurrencyService {
-    private final WebClient webClient;
+    private final RateCache rateCache;
     private final ConversionService conversionService;
-
-    private final ObjectMapper objectMapper;
-    private final Integer requestRetryDuration;
-    private final Integer requestRetryAttempts;
-    private final String remotePath;
-    private final String remoteAccessKey;
     private final String remoteHost;
 
-    public CurrateCurrencyService(HttpClient httpClient,
+    public CurrateCurrencyService(RateCache rateCache,
                                   ConversionService conversionService,
-                                  ObjectMapper objectMapper,
-                                  @Value("${app.key}") String remoteAccessKey,
-                                  @Value("${app.url}") String remoteHost,
-                                  @Value("${app.path}") String remotePath,
-                                  @Value("${app.request.retry.duration}") Integer requestRetryDuration,
-                                  @Value("${app.request.retry.attempts}") Integer requestRetryAttempts) {
-        this.webClient = WebClient.builder()
-                .baseUrl(remoteHost)
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
-                .build();
-        this.requestRetryDuration = requestRetryDuration;
-        this.requestRetryAttempts = requestRetryAttempts;
-        this.remotePath = remotePath;
-        this.remoteHost = remoteHost;
-        this.objectMapper = objectMapper;
-        this.remoteAccessKey = remoteAccessKey;
+                                  @Value("${app.url}") String remoteHost) {
+        this.rateCache = rateCache;
         this.conversionService = conversionService;
+        this.remoteHost = remoteHost;
     }
 
 
+    /*
+    // Если в контексте есть срок запроса (RequestDeadline), ожидание курса ограничено оставшимся временем,
+    // а запрос, пришедший уже после срока, завершается сразу, не обращаясь к кэшу и currate.ru.
+    // Общая загрузка курса при этом не отменяется: ее результат нужен кэшу и другим запросам
+     */
     @Override
     public Mono<Conversion> getRateMono(final ServiceRequest request) {
-        return webClient
-                .get()
-                .uri(uriBuilder -> uriBuilder
-                        .path(remotePath)
-                        .queryParam("get", "rates")
-                        .queryParam("pair", getCurrencyPairParamFromRequest(request))
-                        .queryParam("key", remoteAccessKey)
-                        .build())
-                .retrieve()
-                .bodyToMono(String.class)
-                .flatMap(str -> Mono.just(createConversionFromResponse(str, request)))
-                .retryWhen(Retry.backoff(requestRetryAttempts, Duration.ofMillis(requestRetryDuration))
-                        .filter(throwable -> !(throwable instanceof IllegalModelStructureException)));
+        return Mono.deferContextual(context -> {
+            var deadline = context.<RequestDeadline>getOrEmpty(RequestDeadline.class);
+            if (deadline.isPresent() && deadline.get().isExpired())
+                return Mono.error(deadlineExceeded());
+            var conversion = rateCache
+                    .getRate(request.getBaseCurrency(), request.getConvertCurrency())
+                    .doOnNext(cachedRate -> {
+                        if (cachedRate.stale())
+                            context.<RateFreshness>getOrEmpty(RateFreshness.class)
+                                    .ifPresent(RateFreshness::markStale);
+                    })
+                    .map(cachedRate -> createConversion(cachedRate, request));
+            return deadline
+                    .map(requestDeadline -> conversion.timeout(
+                            requestDeadline.remaining(), Mono.error(CurrateCurrencyService::deadlineExceeded)))
+                    .orElse(conversion);
+        });
     }
 
-    private Conversion createConversionFromResponse(String str, ServiceRequest request) {
+    private static RequestDeadlineExceededException deadlineExceeded() {
+        return new RequestDeadlineExceededException("Request deadline exceeded");
+    }
+
+    private Conversion createConversion(CachedRate cachedRate, ServiceRequest request) {
         try {
-            var remoteResponse = objectMapper.readValue(str, RemoteResponse.class);
             var conversion = new Conversion();
             conversion.setBase(request.getBaseCurrency());
             conversion.setConvert(request.getConvertCurrency());
             conversion.setBaseAmount(request.getBaseAmount());
             conversion.setConversionAmount(conversionService.covert(
-                    request.getBaseAmount(), remoteResponse.getRate())
+                    request.getBaseAmount(), cachedRate.rate())
             );
             conversion.setSource(remoteHost);
             return conversion;
-        } catch (JsonProcessingException | IllegalRateException | IllegalAmountException e) {
-            throw new IllegalModelStructureException(e.getMessage(), str);
+        } catch (IllegalRateException | IllegalAmountException e) {
+            throw new IllegalModelStructureException(e.getMessage(), String.valueOf(cachedRate.rate()));
         }
     }
 
-    private String getCurrencyPairParamFromRequest(ServiceRequest request) {
-        return request.getConvertCurrency().name() + request.getBaseCurrency().name();
-    }
-
 }
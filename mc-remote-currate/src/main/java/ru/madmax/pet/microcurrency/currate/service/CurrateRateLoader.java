@@ -0,0 +1,179 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.retry.Retry;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.common.retry.RetryBudget;
+import ru.madmax.pet.microcurrency.currate.exception.IllegalModelStructureException;
+import ru.madmax.pet.microcurrency.currate.exception.UpstreamRateLimitException;
+import ru.madmax.pet.microcurrency.currate.model.RemoteRatesResponse;
+import ru.madmax.pet.microcurrency.currate.model.RemoteResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class CurrateRateLoader implements RateLoader {
+    // предел тела ответа, как у кодеков WebClient по умолчанию
+    private static final int MAX_RESPONSE_SIZE = 256 * 1024;
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final Integer requestRetryDuration;
+    private final Integer requestRetryAttempts;
+    private final String remotePath;
+    private final String remoteAccessKey;
+    private final RetryBudget retryBudget;
+    private final UpstreamRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final Timer parseTimer;
+    private final Timer upstreamSuccessTimer;
+    private final Timer upstreamErrorTimer;
+
+    public CurrateRateLoader(HttpClient httpClient,
+                             ObjectMapper objectMapper,
+                             @Value("${app.key}") String remoteAccessKey,
+                             @Value("${app.url}") String remoteHost,
+                             @Value("${app.path}") String remotePath,
+                             @Value("${app.request.retry.duration}") Integer requestRetryDuration,
+                             @Value("${app.request.retry.attempts}") Integer requestRetryAttempts,
+                             RetryBudget retryBudget,
+                             UpstreamRateLimiter rateLimiter,
+                             MeterRegistry meterRegistry) {
+        this.webClient = WebClient.builder()
+                .baseUrl(remoteHost)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        this.requestRetryDuration = requestRetryDuration;
+        this.requestRetryAttempts = requestRetryAttempts;
+        this.remotePath = remotePath;
+        this.objectMapper = objectMapper;
+        this.remoteAccessKey = remoteAccessKey;
+        this.retryBudget = retryBudget;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.parseTimer = Timer.builder("mc.currate.parse")
+                .description("Parsing of currate.ru response")
+                .register(meterRegistry);
+        this.upstreamSuccessTimer = upstreamTimer("success");
+        this.upstreamErrorTimer = upstreamTimer("error");
+    }
+
+    @Override
+    public Mono<BigDecimal> loadRate(Currency base, Currency convert) {
+        return requestRates(getCurrencyPairParam(base, convert))
+                .map(body -> readResponse(body, RemoteResponse.class).getRate());
+    }
+
+    /*
+    // Курсы нескольких валют к base одним запросом: currate.ru принимает список пар через запятую
+    // и возвращает их все в блоке data. Результат - курс по каждой валюте из converts
+     */
+    @Override
+    public Mono<Map<Currency, BigDecimal>> loadRates(Currency base, Collection<Currency> converts) {
+        var pairParam = converts.stream()
+                .map(convert -> getCurrencyPairParam(base, convert))
+                .collect(Collectors.joining(","));
+        return requestRates(pairParam)
+                .map(body -> toRatesByCurrency(readResponse(body, RemoteRatesResponse.class), base));
+    }
+
+    // запрос к currate.ru вместе с повторами, от подписки до тела ответа или окончательной ошибки
+    private Mono<DataBuffer> requestRates(String pairParam) {
+        return Mono.defer(() -> {
+            var sample = Timer.start(meterRegistry);
+            return exchange(pairParam)
+                    .doFinally(signal -> sample.stop(
+                            signal == SignalType.ON_COMPLETE ? upstreamSuccessTimer : upstreamErrorTimer));
+        });
+    }
+
+    /*
+    // Тело ответа не декодируется в String: буферы Netty только склеиваются (без копирования)
+    // и разбираются потоком токенов прямо из них.
+    // Повтор требует жетона общего бюджета повторов, без него возвращается исходная ошибка.
+    // Каждая попытка, включая повторы, проходит через ограничитель частоты запросов к currate.ru;
+    // отказ ограничителя не повторяется
+     */
+    private Mono<DataBuffer> exchange(String pairParam) {
+        return rateLimiter.acquire().then(webClient
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path(remotePath)
+                        .queryParam("get", "rates")
+                        .queryParam("pair", pairParam)
+                        .queryParam("key", remoteAccessKey)
+                        .build())
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(body -> DataBufferUtils.join(body, MAX_RESPONSE_SIZE)))
+                .doOnSuccess(body -> retryBudget.recordSuccess())
+                .retryWhen(Retry.backoff(requestRetryAttempts, Duration.ofMillis(requestRetryDuration))
+                        .jitter(retryBudget.getJitter())
+                        .doBeforeRetryAsync(retry -> retryBudget.tryRetry() ?
+                                Mono.empty() :
+                                Mono.error(retry.failure()))
+                        .filter(throwable -> !(throwable instanceof IllegalModelStructureException ||
+                                throwable instanceof UpstreamRateLimitException)));
+    }
+
+    // буфер освобождается здесь; в String тело декодируется только для текста ошибки
+    private <T> T readResponse(DataBuffer body, Class<T> responseClass) {
+        var sample = Timer.start(meterRegistry);
+        int start = body.readPosition();
+        try {
+            return objectMapper.readValue(body.asInputStream(), responseClass);
+        } catch (IllegalModelStructureException e) {
+            if (e.hasModelPresentation())
+                throw e;
+            throw new IllegalModelStructureException(e.getReason(), bodyText(body, start));
+        } catch (IOException e) {
+            throw new IllegalModelStructureException(e.getMessage(), bodyText(body, start));
+        } finally {
+            DataBufferUtils.release(body);
+            sample.stop(parseTimer);
+        }
+    }
+
+    private String bodyText(DataBuffer body, int start) {
+        return body.toString(start, body.writePosition() - start, StandardCharsets.UTF_8);
+    }
+
+    private Timer upstreamTimer(String outcome) {
+        return Timer.builder("mc.currate.upstream")
+                .description("currate.ru call including retries")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Map<Currency, BigDecimal> toRatesByCurrency(RemoteRatesResponse response, Currency base) {
+        Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+        response.getRates().forEach((pair, rate) -> {
+            if (pair.to() != base)
+                throw new IllegalModelStructureException("Illegal currency pair", pair.from().name() + pair.to().name());
+            rates.put(pair.from(), rate);
+        });
+        return rates;
+    }
+
+    private String getCurrencyPairParam(Currency base, Currency convert) {
+        return convert.name() + base.name();
+    }
+}
@@ -0,0 +1,10 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.currate.model.CachedRate;
+
+public interface RateCache {
+    Mono<CachedRate> getRate(Currency base, Currency convert);
+    Mono<Void> refreshAll();
+}
@@ -0,0 +1,13 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+public interface RateLoader {
+    Mono<BigDecimal> loadRate(Currency base, Currency convert);
+    Mono<Map<Currency, BigDecimal>> loadRates(Currency base, Collection<Currency> converts);
+}
@@ -0,0 +1,32 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/*
+// Периодическое обновление всей таблицы курсов одним запросом.
+// Первый запуск сразу после старта - это прогрев кэша,
+// интервал должен быть меньше app.cache.ttl, тогда запросы к /convert не ждут currate.ru
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "app.cache.bulk-refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class RateTableRefresher {
+    private static final Duration REFRESH_TIMEOUT = Duration.ofSeconds(30);
+    private final RateCache rateCache;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.cache.bulk-refresh.interval:240000}")
+    public void refresh() {
+        try {
+            rateCache.refreshAll().block(REFRESH_TIMEOUT);
+        } catch (RuntimeException e) {
+            log.warn("Rate table refresh failed: {}", e.getMessage());
+        }
+    }
+}
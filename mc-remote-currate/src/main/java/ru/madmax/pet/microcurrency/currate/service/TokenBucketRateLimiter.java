@@ -0,0 +1,102 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.madmax.pet.microcurrency.currate.exception.UpstreamRateLimitException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+// Token bucket перед currate.ru в форме GCRA: вместо счетчика жетонов хранится теоретическое время
+// следующего запроса. Каждый запрос резервирует свой слот (одним CAS) и ждет его наступления
+// без блокировки потока (Mono.delay), пачка до burst запросов проходит сразу.
+// Запрос, которому пришлось бы ждать дольше max-wait, или при уже queue-capacity ожидающих,
+// отклоняется сразу и слот не занимает: поток запросов к currate.ru держится на квоте,
+// а лишние запросы получают быстрый отказ вместо ошибок превышения квоты и повторов.
+// Слот отмененного запроса не возвращается - это лишь уменьшает поток ниже квоты.
+// permits-per-second <= 0 - ограничения нет
+ */
+@Service
+public class TokenBucketRateLimiter implements UpstreamRateLimiter {
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final long maxWaitNanos;
+    private final int queueCapacity;
+    private final Counter immediateCounter;
+    private final Counter queuedCounter;
+    private final Counter rejectedCounter;
+
+    public TokenBucketRateLimiter(@Value("${app.rate-limit.permits-per-second:10}") Double permitsPerSecond,
+                                  @Value("${app.rate-limit.burst:10}") Integer burst,
+                                  @Value("${app.rate-limit.max-wait:1000}") Long maxWait,
+                                  @Value("${app.rate-limit.queue-capacity:100}") Integer queueCapacity,
+                                  MeterRegistry meterRegistry) {
+        this.intervalNanos = permitsPerSecond > 0 ? Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.burstToleranceNanos = Math.max(burst - 1, 0) * intervalNanos;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWait);
+        this.queueCapacity = queueCapacity;
+        this.immediateCounter = permitCounter(meterRegistry, "immediate");
+        this.queuedCounter = permitCounter(meterRegistry, "queued");
+        this.rejectedCounter = permitCounter(meterRegistry, "rejected");
+        Gauge.builder("mc.currate.rate.limit.waiting", waiting, AtomicInteger::get)
+                .description("Requests waiting for their currate.ru slot")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> acquire() {
+        if (intervalNanos == 0)
+            return Mono.empty();
+        return Mono.defer(this::reserve);
+    }
+
+    private Mono<Void> reserve() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long arrival = Math.max(current, now);
+            long wait = arrival - burstToleranceNanos - now;
+            if (wait > maxWaitNanos)
+                return reject("Upstream rate limit: wait would exceed " +
+                        TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms");
+            // место в очереди занимается до резервирования слота, чтобы очередь не переполнялась при гонке
+            if (wait > 0 && waiting.incrementAndGet() > queueCapacity) {
+                waiting.decrementAndGet();
+                return reject("Upstream rate limit: wait queue is full");
+            }
+            if (theoreticalArrival.compareAndSet(current, arrival + intervalNanos)) {
+                if (wait <= 0) {
+                    immediateCounter.increment();
+                    return Mono.empty();
+                }
+                queuedCounter.increment();
+                return Mono.delay(Duration.ofNanos(wait))
+                        .doFinally(signal -> waiting.decrementAndGet())
+                        .then();
+            }
+            if (wait > 0)
+                waiting.decrementAndGet();
+        }
+    }
+
+    private Mono<Void> reject(String message) {
+        rejectedCounter.increment();
+        return Mono.error(new UpstreamRateLimitException(message));
+    }
+
+    private static Counter permitCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("mc.currate.rate.limit")
+                .description("Permits requested from the currate.ru rate limiter")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
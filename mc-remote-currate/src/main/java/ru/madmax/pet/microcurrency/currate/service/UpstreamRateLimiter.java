@@ -0,0 +1,8 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import reactor.core.publisher.Mono;
+
+public interface UpstreamRateLimiter {
+    // завершается, когда можно отправить запрос к currate.ru, или UpstreamRateLimitException без ожидания
+    Mono<Void> acquire();
+}
@@ -13,14 +13,20 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
 import reactor.core.publisher.Mono;
 import ru.madmax.pet.microcurrency.currate.exception.IllegalModelStructureException;
+import ru.madmax.pet.microcurrency.currate.model.RateFreshness;
+import ru.madmax.pet.microcurrency.currate.model.RequestDeadline;
 import ru.madmax.pet.microcurrency.currate.service.CurrencyService;
 import ru.madmax.pet.microcurrency.common.model.TestServiceRequestBuilder;
 import ru.madmax.pet.microcurrency.common.model.TestConversionBuilder;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_RATE_STALE_KEY;
+import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_DEADLINE_KEY;
 import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_ERROR_KEY;
 import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_GUID_KEY;
 
@@ -58,6 +64,54 @@ class AppControllerV1Test {
         assertThat(receivedContent).isEqualTo(conversionString);
     }
 
+    @Test
+    void currencyCorrectRequest_WithStaleRate_AndCheckStaleHeader() throws Exception {
+        var conversion = TestConversionBuilder.aConversion().build();
+        when(currencyService.getRateMono(any())).thenReturn(Mono.deferContextual(context -> {
+            context.<RateFreshness>get(RateFreshness.class).markStale();
+            return Mono.just(conversion);
+        }));
+
+        String stringContent = objectMapper.writeValueAsString(TestServiceRequestBuilder.aRequest().build());
+
+        webTestClient
+                .post()
+                .uri("/api/v1/convert")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(stringContent))
+                .header(HEADER_REQUEST_GUID_KEY, "testguid")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HEADER_REQUEST_GUID_KEY, "testguid")
+                .expectHeader().valueEquals(HEADER_RATE_STALE_KEY, "true");
+    }
+
+    @Test
+    void currencyCorrectRequest_WithDeadlineHeader_PassesDeadlineToService() throws Exception {
+        var conversion = TestConversionBuilder.aConversion().build();
+        when(currencyService.getRateMono(any())).thenReturn(Mono.deferContextual(context -> {
+            var deadline = context.<RequestDeadline>get(RequestDeadline.class);
+            assertThat(deadline.isExpired()).isFalse();
+            assertThat(deadline.remaining()).isLessThanOrEqualTo(Duration.ofMillis(1500));
+            return Mono.just(conversion);
+        }));
+
+        String stringContent = objectMapper.writeValueAsString(TestServiceRequestBuilder.aRequest().build());
+
+        webTestClient
+                .post()
+                .uri("/api/v1/convert")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(stringContent))
+                .header(HEADER_REQUEST_GUID_KEY, "testguid")
+                .header(HEADER_REQUEST_DEADLINE_KEY, "1500")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HEADER_REQUEST_GUID_KEY, "testguid");
+    }
+
     @Test
     void currencyCorrectRequest_WithFloatAmount_WithPointSeparation_AndCheckAnswerAndHeader() throws Exception {
         var conversion = TestConversionBuilder.aConversion().build();
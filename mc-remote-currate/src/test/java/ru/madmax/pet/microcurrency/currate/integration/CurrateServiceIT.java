@@ -37,7 +37,9 @@ import static ru.madmax.pet.microcurrency.common.model.Constant.HEADER_REQUEST_G
         "app.url=http://localhost:44444",
         "app.path=/test",
         "app.key=secret_key",
-        "app.request.retry.attempts=1"
+        "app.request.retry.attempts=1",
+        "app.cache.stale-ttl=0",
+        "app.cache.bulk-refresh.enabled=false"
 })
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureWebTestClient
@@ -0,0 +1,40 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import org.junit.jupiter.api.Test;
+import ru.madmax.pet.microcurrency.currate.service.ConversionServiceImpl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrossRatesTest {
+    final BigDecimal usdRub = new BigDecimal("64.1824");
+    final BigDecimal cadRub = new BigDecimal("47.3011");
+
+    @Test
+    void crossFromPivot_ReturnsPivotRateAsIs() {
+        assertThat(CrossRates.cross(BigDecimal.ONE, usdRub)).isEqualByComparingTo(usdRub);
+    }
+
+    @Test
+    void crossToPivot_ReturnsInverseRate() {
+        var rate = CrossRates.cross(usdRub, BigDecimal.ONE);
+        assertThat(rate.multiply(usdRub).setScale(20, RoundingMode.HALF_UP))
+                .isEqualByComparingTo(BigDecimal.ONE);
+    }
+
+    @Test
+    void crossBetweenNonPivotCurrencies_ConvertsLikeTwoStepConversion() throws Exception {
+        var conversionService = new ConversionServiceImpl();
+        var amount = new BigDecimal(10000);
+
+        // USD -> CAD: курс = сколько USD стоит один CAD
+        var usdCad = CrossRates.cross(usdRub, cadRub);
+        var direct = conversionService.covert(amount, usdCad);
+
+        var expected = amount.multiply(usdRub).divide(cadRub, 4, RoundingMode.HALF_UP);
+        assertThat(direct).isEqualByComparingTo(expected);
+        assertThat(direct.scale()).isEqualTo(4);
+    }
+}
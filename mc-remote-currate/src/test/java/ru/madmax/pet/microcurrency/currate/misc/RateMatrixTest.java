@@ -0,0 +1,54 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import org.junit.jupiter.api.Test;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateMatrixTest {
+    final BigDecimal usdRub = new BigDecimal("64.1824");
+    final BigDecimal cadRub = new BigDecimal("47.3011");
+    final Instant loadedAt = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    @Test
+    void emptyMatrix_KnowsOnlyDiagonal() {
+        var matrix = RateMatrix.empty(Currency.RUB);
+
+        assertThat(matrix.rate(Currency.USD, Currency.USD)).isEqualByComparingTo(BigDecimal.ONE);
+        assertThat(matrix.rate(Currency.RUB, Currency.USD)).isNull();
+        assertThat(matrix.loadedAt(Currency.RUB, Currency.USD)).isEqualTo(RateMatrix.ABSENT);
+    }
+
+    @Test
+    void withPivotRates_FillsPivotAndCrossCells_LikeCrossRates() {
+        var matrix = RateMatrix.empty(Currency.RUB)
+                .withPivotRates(Map.of(Currency.USD, usdRub, Currency.CAD, cadRub), loadedAt);
+
+        assertThat(matrix.rate(Currency.RUB, Currency.USD)).isEqualTo(usdRub);
+        assertThat(matrix.rate(Currency.USD, Currency.RUB)).isEqualTo(CrossRates.cross(usdRub, BigDecimal.ONE));
+        assertThat(matrix.rate(Currency.USD, Currency.CAD)).isEqualTo(CrossRates.cross(usdRub, cadRub));
+        assertThat(matrix.loadedAt(Currency.USD, Currency.CAD)).isEqualTo(loadedAt.toEpochMilli());
+    }
+
+    @Test
+    void withPivotRate_ReturnsNewSnapshot_AndLeavesPreviousUntouched() {
+        var first = RateMatrix.empty(Currency.RUB)
+                .withPivotRates(Map.of(Currency.USD, usdRub, Currency.CAD, cadRub), loadedAt);
+        var newUsdRub = new BigDecimal("65.0001");
+        var later = loadedAt.plusSeconds(60);
+
+        var second = first.withPivotRate(Currency.USD, newUsdRub, later);
+
+        assertThat(first.rate(Currency.RUB, Currency.USD)).isEqualTo(usdRub);
+        assertThat(second.rate(Currency.RUB, Currency.USD)).isEqualTo(newUsdRub);
+        assertThat(second.rate(Currency.CAD, Currency.USD)).isEqualTo(CrossRates.cross(cadRub, newUsdRub));
+        // кросс-курс устаревает по более старому из двух pivot-курсов
+        assertThat(second.loadedAt(Currency.CAD, Currency.USD)).isEqualTo(loadedAt.toEpochMilli());
+        assertThat(second.loadedAt(Currency.RUB, Currency.USD)).isEqualTo(later.toEpochMilli());
+        assertThat(second.loadedAt(Currency.RUB, Currency.CAD)).isEqualTo(loadedAt.toEpochMilli());
+    }
+}
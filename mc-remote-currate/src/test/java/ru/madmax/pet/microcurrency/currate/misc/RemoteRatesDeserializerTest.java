@@ -0,0 +1,71 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.boot.test.json.JacksonTester;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.currate.exception.IllegalModelStructureException;
+import ru.madmax.pet.microcurrency.currate.model.CurrencyPair;
+import ru.madmax.pet.microcurrency.currate.model.RemoteRatesResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JsonTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class RemoteRatesDeserializerTest {
+    final JacksonTester<RemoteRatesResponse> json;
+
+    @Test
+    void testDeserialization_OfAllPairs() throws IOException {
+        var response = json.parse(
+                "{\"status\":200,\"message\":\"rates\",\"data\":{\"USDRUB\":\"64.1824\",\"CADRUB\":\"47.3011\"}}")
+                .getObject();
+
+        assertThat(response.getRates()).hasSize(2);
+        assertThat(response.getRates().get(new CurrencyPair(Currency.USD, Currency.RUB)))
+                .isEqualByComparingTo(new BigDecimal("64.1824"));
+        assertThat(response.getRates().get(new CurrencyPair(Currency.CAD, Currency.RUB)))
+                .isEqualByComparingTo(new BigDecimal("47.3011"));
+    }
+
+    @Test
+    void testDeserialization_WithOneIllegalRate_ThrowsIllegalModelStructureException() {
+        assertThatThrownBy(() -> json.parse(
+                "{\"status\":200,\"message\":\"rates\",\"data\":{\"USDRUB\":\"64.1824\",\"CADRUB\":\"abc\"}}"))
+                .isInstanceOf(IllegalModelStructureException.class)
+                .hasMessageContaining("Illegal rate")
+                .hasMessageContaining("abc");
+    }
+
+    @Test
+    void testDeserialization_WithEmptyData_ThrowsIllegalModelStructureException() {
+        assertThatThrownBy(() -> json.parse("{\"status\":200,\"message\":\"rates\",\"data\":{}}"))
+                .isInstanceOf(IllegalModelStructureException.class)
+                .hasMessageContaining("Empty data");
+    }
+
+    @Test
+    void testDeserialization_WithStatusAfterDataAndUnknownNestedFields() throws IOException {
+        var response = json.parse(
+                "{\"message\":{\"text\":[\"rates\"]},\"data\":{\"USDRUB\":64.1824},\"status\":\"200\"}")
+                .getObject();
+
+        assertThat(response.getRates()).hasSize(1);
+        assertThat(response.getRates().get(new CurrencyPair(Currency.USD, Currency.RUB)))
+                .isEqualByComparingTo(new BigDecimal("64.1824"));
+    }
+
+    @Test
+    void testDeserialization_WithWrongStatusAfterIllegalData_ThrowsWrongAnswerCode() {
+        assertThatThrownBy(() -> json.parse("{\"data\":{\"GELID\":\"abc\"},\"status\":500}"))
+                .isInstanceOf(IllegalModelStructureException.class)
+                .hasMessageContaining("Wrong answer code")
+                .hasMessageContaining("500");
+    }
+}
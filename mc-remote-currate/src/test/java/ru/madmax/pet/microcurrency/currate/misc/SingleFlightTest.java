@@ -0,0 +1,77 @@
+package ru.madmax.pet.microcurrency.currate.misc;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+    final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+    @Test
+    void concurrentCallsWithSameKey_ShareOneSubscription() {
+        var subscriptions = new AtomicInteger();
+        var source = Mono.fromCallable(subscriptions::incrementAndGet)
+                .delayElement(Duration.ofMillis(100));
+
+        var results = Flux.range(0, 50)
+                .flatMap(i -> singleFlight.execute("USDRUB", () -> source))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        assertThat(results).hasSize(50).containsOnly(1);
+        assertThat(subscriptions.get()).isEqualTo(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void callsWithDifferentKeys_DoNotShare() {
+        var subscriptions = new AtomicInteger();
+        var source = Mono.fromCallable(subscriptions::incrementAndGet)
+                .delayElement(Duration.ofMillis(50));
+
+        Flux.merge(
+                        singleFlight.execute("USDRUB", () -> source),
+                        singleFlight.execute("CADRUB", () -> source))
+                .blockLast(Duration.ofSeconds(2));
+
+        assertThat(subscriptions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void callAfterCompletion_SubscribesAgain() {
+        var subscriptions = new AtomicInteger();
+        var source = Mono.fromCallable(subscriptions::incrementAndGet);
+
+        singleFlight.execute("USDRUB", () -> source).block();
+        StepVerifier.create(singleFlight.execute("USDRUB", () -> source))
+                .expectNext(2)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void errorIsSharedWithWaiters_AndNotCached() {
+        var subscriptions = new AtomicInteger();
+        Mono<Integer> failing = Mono.<Integer>error(new IllegalStateException("test-error"))
+                .doOnSubscribe(s -> subscriptions.incrementAndGet())
+                .delaySubscription(Duration.ofMillis(50));
+
+        StepVerifier.create(Flux.merge(
+                        singleFlight.execute("USDRUB", () -> failing),
+                        singleFlight.execute("USDRUB", () -> failing)))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(2));
+        assertThat(subscriptions.get()).isEqualTo(1);
+
+        StepVerifier.create(singleFlight.execute("USDRUB", () -> Mono.just(5)))
+                .expectNext(5)
+                .expectComplete()
+                .verify();
+    }
+}
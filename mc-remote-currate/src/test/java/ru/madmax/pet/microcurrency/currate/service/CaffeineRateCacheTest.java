@@ -0,0 +1,227 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.currate.exception.IllegalModelStructureException;
+import ru.madmax.pet.microcurrency.currate.model.CachedRate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CaffeineRateCacheTest {
+    @Mock
+    RateLoader rateLoader;
+
+    final BigDecimal firstRate = new BigDecimal("64.1824");
+    final BigDecimal secondRate = new BigDecimal("65.0001");
+
+    @Test
+    void getRateTwice_WithinTtl_AndLoadOnce() {
+        when(rateLoader.loadRate(Currency.RUB, Currency.USD)).thenReturn(Mono.just(firstRate));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 60_000L, 50_000L, 120_000L);
+
+        for (int i = 0; i < 2; i++)
+            StepVerifier.create(rateCache.getRate(Currency.RUB, Currency.USD))
+                    .expectNextMatches(cachedRate -> cachedRate.rate().equals(firstRate) && !cachedRate.stale())
+                    .expectComplete()
+                    .verify();
+
+        verify(rateLoader, times(1)).loadRate(Currency.RUB, Currency.USD);
+    }
+
+    @Test
+    void getRate_AfterTtl_WhenRemoteFails_AndGetStaleRate() throws InterruptedException {
+        when(rateLoader.loadRate(Currency.RUB, Currency.USD))
+                .thenReturn(Mono.just(firstRate))
+                .thenReturn(Mono.error(new IllegalModelStructureException("Wrong answer code", "500")));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 50L, 60_000L, 120_000L);
+
+        rateCache.getRate(Currency.RUB, Currency.USD).block();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        StepVerifier.create(rateCache.getRate(Currency.RUB, Currency.USD))
+                .expectNextMatches(cachedRate -> cachedRate.rate().equals(firstRate) && cachedRate.stale())
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void getRate_AfterTtl_WhenRemoteAnswers_AndGetFreshRate() throws InterruptedException {
+        when(rateLoader.loadRate(Currency.RUB, Currency.USD))
+                .thenReturn(Mono.just(firstRate))
+                .thenReturn(Mono.just(secondRate));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 50L, 60_000L, 120_000L);
+
+        rateCache.getRate(Currency.RUB, Currency.USD).block();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        StepVerifier.create(rateCache.getRate(Currency.RUB, Currency.USD))
+                .expectNextMatches(cachedRate -> cachedRate.rate().equals(secondRate) && !cachedRate.stale())
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void concurrentGetRate_AfterTtl_AndReloadOnce() throws InterruptedException {
+        when(rateLoader.loadRate(Currency.RUB, Currency.USD))
+                .thenReturn(Mono.just(firstRate))
+                .thenReturn(Mono.just(secondRate).delayElement(Duration.ofMillis(100)));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 50L, 60_000L, 120_000L);
+
+        rateCache.getRate(Currency.RUB, Currency.USD).block();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        var rates = Flux.range(0, 20)
+                .flatMap(i -> rateCache.getRate(Currency.RUB, Currency.USD))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        assertThat(rates).hasSize(20).allMatch(cachedRate -> cachedRate.rate().equals(secondRate));
+        verify(rateLoader, times(2)).loadRate(Currency.RUB, Currency.USD);
+    }
+
+    @Test
+    void getRate_AfterRefreshAhead_AndRefreshInBackground() throws InterruptedException {
+        when(rateLoader.loadRate(Currency.RUB, Currency.USD))
+                .thenReturn(Mono.just(firstRate))
+                .thenReturn(Mono.just(secondRate).delayElement(Duration.ofMillis(100)));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 60_000L, 50L, 120_000L);
+
+        rateCache.getRate(Currency.RUB, Currency.USD).block();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        StepVerifier.create(rateCache.getRate(Currency.RUB, Currency.USD))
+                .expectNextMatches(cachedRate -> cachedRate.rate().equals(firstRate))
+                .expectComplete()
+                .verify();
+        BigDecimal refreshedRate = null;
+        for (int i = 0; i < 20 && !secondRate.equals(refreshedRate); i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+            refreshedRate = rateCache.getRate(Currency.RUB, Currency.USD).block().rate();
+        }
+        assertThat(refreshedRate).isEqualTo(secondRate);
+        verify(rateLoader, times(2)).loadRate(Currency.RUB, Currency.USD);
+    }
+
+    @Test
+    void getRate_AfterStaleTtl_WhenRemoteFails_AndGetError() throws InterruptedException {
+        when(rateLoader.loadRate(Currency.RUB, Currency.USD))
+                .thenReturn(Mono.just(firstRate))
+                .thenReturn(Mono.error(new IllegalModelStructureException("Wrong answer code", "500")));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 50L, 60_000L, 100L);
+
+        rateCache.getRate(Currency.RUB, Currency.USD).block();
+        TimeUnit.MILLISECONDS.sleep(150);
+
+        StepVerifier.create(rateCache.getRate(Currency.RUB, Currency.USD))
+                .expectError(IllegalModelStructureException.class)
+                .verify();
+    }
+
+    @Test
+    void getCrossRate_LoadsOnlyPivotRates_AndDerivesPair() {
+        when(rateLoader.loadRate(Currency.RUB, Currency.USD)).thenReturn(Mono.just(firstRate));
+        when(rateLoader.loadRate(Currency.RUB, Currency.CAD)).thenReturn(Mono.just(new BigDecimal("47.3011")));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 60_000L, 50_000L, 120_000L);
+
+        StepVerifier.create(rateCache.getRate(Currency.USD, Currency.CAD))
+                .expectNextMatches(cachedRate -> cachedRate.rate().compareTo(
+                        new BigDecimal("47.3011").divide(firstRate, MathContext.DECIMAL128)) == 0)
+                .expectComplete()
+                .verify();
+        StepVerifier.create(rateCache.getRate(Currency.CAD, Currency.RUB))
+                .expectNextMatches(cachedRate -> cachedRate.rate().compareTo(
+                        BigDecimal.ONE.divide(new BigDecimal("47.3011"), MathContext.DECIMAL128)) == 0)
+                .expectComplete()
+                .verify();
+
+        verify(rateLoader, times(1)).loadRate(Currency.RUB, Currency.USD);
+        verify(rateLoader, times(1)).loadRate(Currency.RUB, Currency.CAD);
+        verifyNoMoreInteractions(rateLoader);
+    }
+
+    @Test
+    void getCrossRate_WhenOnePivotRateIsStale_AndGetStaleCrossRate() throws InterruptedException {
+        when(rateLoader.loadRate(Currency.RUB, Currency.USD))
+                .thenReturn(Mono.just(firstRate))
+                .thenReturn(Mono.error(new IllegalModelStructureException("Wrong answer code", "500")));
+        when(rateLoader.loadRate(Currency.RUB, Currency.CAD)).thenReturn(Mono.just(new BigDecimal("47.3011")));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 50L, 60_000L, 120_000L);
+
+        rateCache.getRate(Currency.RUB, Currency.USD).block();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        StepVerifier.create(rateCache.getRate(Currency.USD, Currency.CAD))
+                .expectNextMatches(CachedRate::stale)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void getRate_ForSameCurrency_AndGetOne_WithoutLoading() {
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 60_000L, 50_000L, 120_000L);
+
+        StepVerifier.create(rateCache.getRate(Currency.USD, Currency.USD))
+                .expectNextMatches(cachedRate -> cachedRate.rate().compareTo(BigDecimal.ONE) == 0)
+                .expectComplete()
+                .verify();
+        verifyNoInteractions(rateLoader);
+    }
+
+    @Test
+    void refreshAll_LoadsWholeTableInOneCall_AndServesFromCache() {
+        when(rateLoader.loadRates(Currency.RUB, List.of(Currency.USD, Currency.CAD)))
+                .thenReturn(Mono.just(Map.of(
+                        Currency.USD, firstRate,
+                        Currency.CAD, new BigDecimal("47.3011"))));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 60_000L, 50_000L, 120_000L);
+
+        StepVerifier.create(rateCache.refreshAll())
+                .expectComplete()
+                .verify();
+        StepVerifier.create(rateCache.getRate(Currency.RUB, Currency.USD))
+                .expectNextMatches(cachedRate -> cachedRate.rate().equals(firstRate))
+                .expectComplete()
+                .verify();
+        StepVerifier.create(rateCache.getRate(Currency.USD, Currency.CAD))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+
+        verify(rateLoader, never()).loadRate(any(), any());
+    }
+
+    @Test
+    void getCrossRate_AfterRefreshAll_ServedFromRateMatrix_LikeCrossRates() {
+        var cadRate = new BigDecimal("47.3011");
+        when(rateLoader.loadRates(Currency.RUB, List.of(Currency.USD, Currency.CAD)))
+                .thenReturn(Mono.just(Map.of(Currency.USD, firstRate, Currency.CAD, cadRate)));
+        var rateCache = new CaffeineRateCache(rateLoader, Currency.RUB, 60_000L, 50_000L, 120_000L);
+        rateCache.refreshAll().block();
+
+        for (int i = 0; i < 2; i++)
+            StepVerifier.create(rateCache.getRate(Currency.USD, Currency.CAD))
+                    .expectNextMatches(cachedRate ->
+                            cachedRate.rate().equals(cadRate.divide(firstRate, MathContext.DECIMAL128)) &&
+                            !cachedRate.stale())
+                    .expectComplete()
+                    .verify();
+
+        verify(rateLoader, never()).loadRate(any(), any());
+    }
+}
@@ -1,6 +1,7 @@
 package ru.madmax.pet.microcurrency.currate.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import lombok.RequiredArgsConstructor;
 import okhttp3.mockwebserver.MockResponse;
@@ -20,14 +21,19 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 import reactor.test.StepVerifier;
+import reactor.util.context.Context;
 import ru.madmax.pet.microcurrency.common.model.*;
+import ru.madmax.pet.microcurrency.common.retry.RetryBudget;
 import ru.madmax.pet.microcurrency.currate.configuration.HttpClientConfiguration;
 import ru.madmax.pet.microcurrency.currate.configuration.MainConfig;
 import ru.madmax.pet.microcurrency.currate.exception.IllegalAmountException;
 import ru.madmax.pet.microcurrency.currate.exception.IllegalRateException;
+import ru.madmax.pet.microcurrency.currate.exception.RequestDeadlineExceededException;
+import ru.madmax.pet.microcurrency.currate.model.RequestDeadline;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -62,8 +68,11 @@ class CurrateCurrencyReactServiceTest {
         remoteMockServer = new MockWebServer();
         remoteMockServer.start();
         host = remoteMockServer.url("").toString();
+        var rateLoader = new CurrateRateLoader(
+                httpClient, objectMapper, token, host, "", 100, 1,
+                new RetryBudget(0.1, 10, 0.5), Mono::empty, new SimpleMeterRegistry());
         currencyService = new CurrateCurrencyService(
-                httpClient, conversionService, objectMapper, token, host, "", 100, 1);
+                new CaffeineRateCache(rateLoader, Currency.RUB, 300_000L, 240_000L, 3_600_000L), conversionService, host);
     }
 
     @AfterEach
@@ -110,6 +119,36 @@ class CurrateCurrencyReactServiceTest {
                 token);
     }
 
+    @Test
+    void requestCurrency_WithExpiredDeadline_FailsAtOnce_WithoutRemoteRequest() {
+        final ServiceRequest request = TestServiceRequestBuilder.aRequest().build();
+        Mono<Conversion> responseMono = currencyService.getRateMono(request)
+                .contextWrite(Context.of(RequestDeadline.class, RequestDeadline.after(0)));
+
+        StepVerifier.create(responseMono)
+                .expectError(RequestDeadlineExceededException.class)
+                .verify();
+
+        assertThat(remoteMockServer.getRequestCount()).isZero();
+    }
+
+    @Test
+    void requestCurrency_WhenRemoteAnswersAfterDeadline_FailsAtDeadline() {
+        final String responseStr = "{\"status\":200,\"message\":\"rates\",\"data\":{\"USDRUB\":\"64.1824\"}}";
+        remoteMockServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", MediaType.APPLICATION_JSON)
+                .setBody(responseStr).setBodyDelay(800, TimeUnit.MILLISECONDS));
+
+        final ServiceRequest request = TestServiceRequestBuilder.aRequest().build();
+        Mono<Conversion> responseMono = currencyService.getRateMono(request)
+                .contextWrite(Context.of(RequestDeadline.class, RequestDeadline.after(200)));
+
+        StepVerifier.create(responseMono)
+                .expectErrorMatches(throwable -> throwable instanceof RequestDeadlineExceededException &&
+                        throwable.getMessage().equals("Request deadline exceeded"))
+                .verify(Duration.ofMillis(600));
+    }
+
     @Test
     void requestCurrency_AndReceiveIllegalModelResponse_ThrowsIllegalModelStructureException() {
         final String stringContent = "1234!!";
@@ -0,0 +1,113 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.test.StepVerifier;
+import ru.madmax.pet.microcurrency.common.model.Currency;
+import ru.madmax.pet.microcurrency.common.retry.RetryBudget;
+import ru.madmax.pet.microcurrency.currate.configuration.HttpClientConfiguration;
+import ru.madmax.pet.microcurrency.currate.configuration.MainConfig;
+import ru.madmax.pet.microcurrency.currate.exception.UpstreamRateLimitException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@TestPropertySource(properties = {"app.request.timeout=1000"})
+@ContextConfiguration(classes = {
+        HttpClientConfiguration.class,
+        MainConfig.class
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ActiveProfiles("test")
+class CurrateRateLoaderTest {
+    final HttpClient httpClient;
+    final ObjectMapper objectMapper;
+
+    MockWebServer remoteMockServer;
+    RateLoader rateLoader;
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void initialize() throws IOException {
+        remoteMockServer = new MockWebServer();
+        remoteMockServer.start();
+        rateLoader = new CurrateRateLoader(
+                httpClient, objectMapper, "test-token", remoteMockServer.url("").toString(), "", 100, 1,
+                new RetryBudget(0.1, 10, 0.5), Mono::empty, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (remoteMockServer != null)
+            remoteMockServer.shutdown();
+    }
+
+    @Test
+    void loadRates_RequestsAllPairsAtOnce_AndReturnsRateByCurrency() throws InterruptedException {
+        remoteMockServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", MediaType.APPLICATION_JSON)
+                .setBody("{\"status\":200,\"message\":\"rates\",\"data\":{\"USDRUB\":\"64.1824\",\"CADRUB\":\"47.3011\"}}"));
+
+        StepVerifier.create(rateLoader.loadRates(Currency.RUB, List.of(Currency.USD, Currency.CAD)))
+                .assertNext(rates -> {
+                    assertThat(rates).hasSize(2);
+                    assertThat(rates.get(Currency.USD)).isEqualByComparingTo(new BigDecimal("64.1824"));
+                    assertThat(rates.get(Currency.CAD)).isEqualByComparingTo(new BigDecimal("47.3011"));
+                })
+                .expectComplete()
+                .verify();
+
+        var mockRequest = remoteMockServer.takeRequest();
+        assertThat(remoteMockServer.getRequestCount()).isEqualTo(1);
+        assertThat(mockRequest.getRequestUrl().queryParameter("pair")).isEqualTo("USDRUB,CADRUB");
+        assertThat(meterRegistry.get("mc.currate.upstream").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("mc.currate.parse").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void loadRates_WithPairToAnotherBase_ThrowsIllegalModelStructureException() {
+        remoteMockServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", MediaType.APPLICATION_JSON)
+                .setBody("{\"status\":200,\"message\":\"rates\",\"data\":{\"USDCAD\":\"1.3500\"}}"));
+
+        StepVerifier.create(rateLoader.loadRates(Currency.RUB, List.of(Currency.USD)))
+                .expectErrorMatches(throwable -> throwable.getClass().toString().contains("IllegalModelStructureException") &&
+                        throwable.getMessage().contains("Illegal currency pair"))
+                .verify();
+    }
+
+    @Test
+    void loadRates_WhenRateLimiterRejects_DoesNotCallRemote_AndDoesNotRetry() {
+        var limitedLoader = new CurrateRateLoader(
+                httpClient, objectMapper, "test-token", remoteMockServer.url("").toString(), "", 100, 3,
+                new RetryBudget(0.1, 10, 0.5),
+                () -> Mono.error(new UpstreamRateLimitException("Upstream rate limit: wait queue is full")),
+                meterRegistry);
+
+        StepVerifier.create(limitedLoader.loadRates(Currency.RUB, List.of(Currency.USD)))
+                .expectError(UpstreamRateLimitException.class)
+                .verify();
+
+        assertThat(remoteMockServer.getRequestCount()).isZero();
+    }
+}
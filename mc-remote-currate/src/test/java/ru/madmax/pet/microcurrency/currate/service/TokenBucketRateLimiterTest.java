@@ -0,0 +1,87 @@
+package ru.madmax.pet.microcurrency.currate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.madmax.pet.microcurrency.currate.exception.UpstreamRateLimitException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acquire_WithinBurst_PassesImmediately() {
+        var rateLimiter = new TokenBucketRateLimiter(1.0, 3, 0L, 10, meterRegistry);
+
+        for (int i = 0; i < 3; i++)
+            StepVerifier.create(rateLimiter.acquire())
+                    .expectComplete()
+                    .verify(Duration.ofMillis(100));
+
+        assertThat(outcomeCount("immediate")).isEqualTo(3);
+    }
+
+    @Test
+    void acquire_OverBurst_WaitsForItsSlot() {
+        var rateLimiter = new TokenBucketRateLimiter(10.0, 1, 1000L, 10, meterRegistry);
+        long start = System.nanoTime();
+
+        StepVerifier.create(Flux.range(0, 3).concatMap(i -> rateLimiter.acquire().thenReturn(i)))
+                .expectNext(0, 1, 2)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+
+        // второй и третий запросы ждут по 100 мс своих слотов
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(180));
+        assertThat(outcomeCount("queued")).isEqualTo(2);
+    }
+
+    @Test
+    void acquire_WhenWaitWouldExceedMaxWait_IsRejectedAtOnce() {
+        var rateLimiter = new TokenBucketRateLimiter(1.0, 1, 500L, 10, meterRegistry);
+        rateLimiter.acquire().block();
+
+        StepVerifier.create(rateLimiter.acquire())
+                .expectErrorMatches(throwable -> throwable instanceof UpstreamRateLimitException &&
+                        throwable.getMessage().contains("500 ms"))
+                .verify(Duration.ofMillis(100));
+
+        assertThat(outcomeCount("rejected")).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_WhenQueueIsFull_IsRejectedAtOnce_AndRejectedRequestTakesNoSlot() {
+        var rateLimiter = new TokenBucketRateLimiter(10.0, 1, 5000L, 2, meterRegistry);
+        rateLimiter.acquire().block();
+        var firstWaiting = rateLimiter.acquire().subscribe();
+        var secondWaiting = rateLimiter.acquire().subscribe();
+
+        StepVerifier.create(rateLimiter.acquire())
+                .expectErrorMatches(throwable -> throwable instanceof UpstreamRateLimitException &&
+                        throwable.getMessage().contains("queue is full"))
+                .verify(Duration.ofMillis(100));
+
+        firstWaiting.dispose();
+        secondWaiting.dispose();
+        assertThat(meterRegistry.get("mc.currate.rate.limit.waiting").gauge().value()).isZero();
+    }
+
+    @Test
+    void acquire_WithoutQuota_IsNotLimited() {
+        var rateLimiter = new TokenBucketRateLimiter(0.0, 1, 0L, 0, meterRegistry);
+
+        StepVerifier.create(Flux.range(0, 100).concatMap(i -> rateLimiter.acquire().then(Mono.just(i))))
+                .expectNextCount(100)
+                .expectComplete()
+                .verify(Duration.ofMillis(500));
+    }
+
+    private double outcomeCount(String outcome) {
+        return meterRegistry.get("mc.currate.rate.limit").tag("outcome", outcome).counter().count();
+    }
+}